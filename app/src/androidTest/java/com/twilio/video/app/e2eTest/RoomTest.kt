@@ -4,6 +4,8 @@ import androidx.annotation.IdRes
 import androidx.test.espresso.Espresso.onView
 import androidx.test.espresso.action.ViewActions.click
 import androidx.test.espresso.assertion.ViewAssertions.matches
+import androidx.test.espresso.matcher.ViewMatchers.isAssignableFrom
+import androidx.test.espresso.matcher.ViewMatchers.isDescendantOfA
 import androidx.test.espresso.matcher.ViewMatchers.isDisplayed
 import androidx.test.espresso.matcher.ViewMatchers.withContentDescription
 import androidx.test.espresso.matcher.ViewMatchers.withId
@@ -20,6 +22,7 @@ import com.twilio.video.app.screen.clickJoinRoomButton
 import com.twilio.video.app.screen.clickMicButton
 import com.twilio.video.app.screen.clickVideoButton
 import com.twilio.video.app.screen.enterRoomName
+import com.twilio.video.app.ui.room.ParticipantThumbView
 import com.twilio.video.app.ui.splash.SplashActivity
 import com.twilio.video.app.util.assertTextIsDisplayedRetry
 import com.twilio.video.app.util.clickView
@@ -65,16 +68,14 @@ class RoomTest : BaseE2ETest() {
                     withContentDescription(getString(R.string.primary_profile_picture))))
                         .check(matches(isDisplayed()))
         }
-        onView(allOf(withId(R.id.stub),
-                withContentDescription(getString(R.string.profile_picture)))).check(matches(isDisplayed()))
+        onView(thumbnailProfilePicture()).check(matches(isDisplayed()))
         clickView(R.id.local_video)
         retryEspressoAction {
             onView(allOf(withId(R.id.stub),
                     withContentDescription(getString(R.string.primary_profile_picture))))
                         .check(HiddenView())
         }
-        onView(allOf(withId(R.id.stub),
-                withContentDescription(getString(R.string.profile_picture)))).check(HiddenView())
+        onView(thumbnailProfilePicture()).check(HiddenView())
 
         clickDisconnectButton()
     }
@@ -153,4 +154,8 @@ class RoomTest : BaseE2ETest() {
             onView(withId(id)).check(matches(earpieceDrawableMatcher))
         }
     }
+
+    private fun thumbnailProfilePicture() = allOf(withId(R.id.stub),
+            isDescendantOfA(isAssignableFrom(ParticipantThumbView::class.java)),
+            withContentDescription(getString(R.string.profile_picture)))
 }
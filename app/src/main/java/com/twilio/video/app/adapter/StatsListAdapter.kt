@@ -17,24 +17,29 @@
 package com.twilio.video.app.adapter
 
 import android.content.Context
-import android.os.Handler
-import android.os.Looper
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
+import androidx.recyclerview.widget.DiffUtil
 import androidx.recyclerview.widget.RecyclerView
-import com.twilio.video.RemoteAudioTrack
-import com.twilio.video.RemoteParticipant
-import com.twilio.video.RemoteVideoTrack
 import com.twilio.video.app.R
 import com.twilio.video.app.databinding.StatsViewBinding
 import com.twilio.video.app.model.StatsListItem
+import com.twilio.video.app.sdk.CaptureDecision
+import com.twilio.video.app.sdk.CaptureReason
 import com.twilio.video.app.sdk.RoomStats
+import com.twilio.video.app.sdk.TrackSidIndex
+import com.twilio.video.app.ui.room.FrameStatsSnapshot
 
 class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<StatsListAdapter.ViewHolder>() {
 
     private val statsListItems = ArrayList<StatsListItem>()
-    private val handler: Handler = Handler(Looper.getMainLooper())
+    private val itemIds = HashMap<String, Long>()
+    private var nextItemId = 0L
+
+    init {
+        setHasStableIds(true)
+    }
 
     class ViewHolder(internal val binding: StatsViewBinding) : RecyclerView.ViewHolder(binding.root)
 
@@ -45,58 +50,119 @@ class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<Stat
     }
 
     override fun onBindViewHolder(holder: ViewHolder, position: Int) {
-        val item = statsListItems[position]
-        val binding = holder.binding
-        binding.trackName.text = item.trackName
-        binding.trackSid.text = item.trackSid
-        binding.codec.text = item.codec
-        binding.packetsLost.text = item.packetsLost.toString()
-        binding.bytes.text = item.bytes.toString()
-        if (item.isLocalTrack) {
-            binding.bytesTitle.text = context.getString(R.string.stats_bytes_sent)
-            binding.rtt.text = item.rtt.toString()
-            binding.rttRow.visibility = View.VISIBLE
+        bind(holder.binding, statsListItems[position], null)
+    }
+
+    override fun onBindViewHolder(holder: ViewHolder, position: Int, payloads: MutableList<Any>) {
+        // The first payload is the item that was last bound, so only the fields that differ are set
+        val previousItem = payloads.firstOrNull() as? StatsListItem
+        if (previousItem != null) {
+            bind(holder.binding, statsListItems[position], previousItem)
         } else {
+            onBindViewHolder(holder, position)
+        }
+    }
+
+    override fun getItemCount(): Int {
+        return statsListItems.size
+    }
+
+    override fun getItemId(position: Int): Long {
+        return itemIds.getOrPut(statsListItems[position].trackSid) { nextItemId++ }
+    }
+
+    private fun bind(binding: StatsViewBinding, item: StatsListItem, previousItem: StatsListItem?) {
+        val isNewRow = previousItem == null ||
+                previousItem.isLocalTrack != item.isLocalTrack ||
+                previousItem.isAudioTrack != item.isAudioTrack
+        if (isNewRow || previousItem?.trackName != item.trackName) binding.trackName.text = item.trackName
+        if (isNewRow || previousItem?.trackSid != item.trackSid) binding.trackSid.text = item.trackSid
+        if (isNewRow || previousItem?.codec != item.codec) binding.codec.text = item.codec
+        if (isNewRow || previousItem?.packetsLost != item.packetsLost) {
+            binding.packetsLost.text = item.packetsLost.toString()
+        }
+        if (isNewRow || previousItem?.bytes != item.bytes) binding.bytes.text = item.bytes.toString()
+        if (isNewRow || previousItem?.bitrateKbps != item.bitrateKbps) {
+            binding.bitrate.text = context.getString(R.string.stats_bitrate_value, item.bitrateKbps)
+        }
+        if (isNewRow || previousItem?.packetLossPercent != item.packetLossPercent) {
+            binding.packetLoss.text = context.getString(R.string.stats_packet_loss_value,
+                    item.packetLossPercent)
+        }
+        if (item.isLocalTrack) {
+            if (isNewRow || previousItem?.rtt != item.rtt) binding.rtt.text = item.rtt.toString()
+            if (isNewRow) {
+                binding.bytesTitle.text = context.getString(R.string.stats_bytes_sent)
+                binding.rttRow.visibility = View.VISIBLE
+            }
+        } else if (isNewRow) {
             binding.rttRow.visibility = View.GONE
             binding.bytesTitle.text = context.getString(R.string.stats_bytes_received)
         }
         if (item.isAudioTrack) {
-            binding.jitter.text = item.jitter.toString()
-            binding.audioLevel.text = item.audioLevel.toString()
-            binding.dimensionsRow.visibility = View.GONE
-            binding.framerateRow.visibility = View.GONE
-            binding.jitterRow.visibility = View.VISIBLE
-            binding.audioLevelRow.visibility = View.VISIBLE
+            if (isNewRow || previousItem?.jitter != item.jitter) binding.jitter.text = item.jitter.toString()
+            if (isNewRow || previousItem?.audioLevel != item.audioLevel) {
+                binding.audioLevel.text = item.audioLevel.toString()
+            }
+            if (isNewRow) {
+                binding.renderedRow.visibility = View.GONE
+                binding.captureRow.visibility = View.GONE
+                binding.dimensionsRow.visibility = View.GONE
+                binding.framerateRow.visibility = View.GONE
+                binding.jitterRow.visibility = View.VISIBLE
+                binding.audioLevelRow.visibility = View.VISIBLE
+            }
         } else {
-            binding.dimensions.text = item.dimensions
-            binding.framerate.text = item.framerate.toString()
-            binding.dimensionsRow.visibility = View.VISIBLE
-            binding.framerateRow.visibility = View.VISIBLE
-            binding.jitterRow.visibility = View.GONE
-            binding.audioLevelRow.visibility = View.GONE
+            if (isNewRow || previousItem?.dimensions != item.dimensions) {
+                binding.dimensions.text = item.dimensions
+            }
+            if (isNewRow || previousItem?.framerate != item.framerate) {
+                binding.framerate.text = item.framerate.toString()
+            }
+            if (isNewRow || previousItem?.captureFormat != item.captureFormat) {
+                binding.captureRow.visibility =
+                        if (item.captureFormat != null) View.VISIBLE else View.GONE
+                binding.capture.text = item.captureFormat
+            }
+            if (isNewRow || previousItem?.isRendered != item.isRendered) {
+                binding.renderedRow.visibility = if (item.isRendered) View.VISIBLE else View.GONE
+            }
+            if (item.isRendered && (isNewRow ||
+                            previousItem?.renderedFramerate != item.renderedFramerate ||
+                            previousItem?.frozenFrames != item.frozenFrames)) {
+                binding.rendered.text = context.getString(R.string.stats_rendered_value,
+                        item.renderedFramerate, item.frozenFrames)
+            }
+            if (isNewRow) {
+                binding.dimensionsRow.visibility = View.VISIBLE
+                binding.framerateRow.visibility = View.VISIBLE
+                binding.jitterRow.visibility = View.GONE
+                binding.audioLevelRow.visibility = View.GONE
+            }
         }
     }
 
-    override fun getItemCount(): Int {
-        return statsListItems.size
-    }
-
-    fun updateStatsData(roomStats: RoomStats?) {
-        /*
-         * Generate new items on a separate list to ensure statsListItems changes are only
-         * performed on the UI thread to meet the threading requirement of RecyclerView.Adapter.
-         */
+    /*
+     * Builds the rows for the stats reports. It does not touch the adapter, so it may run off the
+     * main thread; the rows are then handed to submitStatsItems on the main thread.
+     * frameStats holds the render counters of the displayed remote video tracks by track sid.
+     */
+    fun buildStatsItems(
+        roomStats: RoomStats,
+        frameStats: Map<String, FrameStatsSnapshot> = emptyMap()
+    ): List<StatsListItem> {
         val statsItemList = mutableListOf<StatsListItem>()
 
         // Generate stats items list from reports
         var localTracksAdded = false
-        roomStats?.statsReports?.let { statsReports ->
+        roomStats.statsReports?.let { statsReports ->
             for (report in statsReports) {
                 if (!localTracksAdded) {
                     // go trough local tracks
                     for (localAudioTrackStats in report.localAudioTrackStats) {
                         val item = StatsListItem.Builder()
                                 .baseTrackInfo(localAudioTrackStats)
+                                .trackRates(roomStats.trackRates[localAudioTrackStats.trackSid])
                                 .bytes(localAudioTrackStats.bytesSent)
                                 .rtt(localAudioTrackStats.roundTripTime)
                                 .jitter(localAudioTrackStats.jitter)
@@ -108,16 +174,17 @@ class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<Stat
                         statsItemList.add(item)
                     }
                     for (localVideoTrackStats in report.localVideoTrackStats) {
-                        var localVideoTrackName = roomStats.localVideoTrackNames[localVideoTrackStats.trackSid]
-                        if (localVideoTrackName == null) {
-                            localVideoTrackName = context.getString(R.string.local_video_track)
-                        }
+                        val localVideoTrackName = roomStats.trackSidIndex[localVideoTrackStats.trackSid]?.name
+                                ?: context.getString(R.string.local_video_track)
                         val item = StatsListItem.Builder()
                                 .baseTrackInfo(localVideoTrackStats)
+                                .trackRates(roomStats.trackRates[localVideoTrackStats.trackSid])
                                 .bytes(localVideoTrackStats.bytesSent)
                                 .rtt(localVideoTrackStats.roundTripTime)
                                 .dimensions(localVideoTrackStats.dimensions.toString())
                                 .framerate(localVideoTrackStats.frameRate)
+                                .captureFormat(roomStats.captureDecisions[localVideoTrackStats.trackSid]
+                                        ?.let { formatCaptureDecision(it) })
                                 .trackName(localVideoTrackName)
                                 .isAudioTrack(false)
                                 .isLocalTrack(true)
@@ -128,13 +195,14 @@ class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<Stat
                 }
                 var trackCount = 0
                 for (remoteAudioTrackStats in report.remoteAudioTrackStats) {
-                    val trackName = (getParticipantName(remoteAudioTrackStats.trackSid, true, roomStats.remoteParticipants) +
+                    val trackName = (getParticipantName(remoteAudioTrackStats.trackSid, roomStats.trackSidIndex) +
                             " " +
                             context.getString(R.string.audio_track) +
                             " " +
                             trackCount)
                     val item = StatsListItem.Builder()
                             .baseTrackInfo(remoteAudioTrackStats)
+                            .trackRates(roomStats.trackRates[remoteAudioTrackStats.trackSid])
                             .bytes(remoteAudioTrackStats.bytesReceived)
                             .jitter(remoteAudioTrackStats.jitter)
                             .audioLevel(remoteAudioTrackStats.audioLevel)
@@ -148,16 +216,18 @@ class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<Stat
                 trackCount = 0
                 for (remoteVideoTrackStats in report.remoteVideoTrackStats) {
                     val trackName = (getParticipantName(
-                            remoteVideoTrackStats.trackSid, false, roomStats.remoteParticipants) +
+                            remoteVideoTrackStats.trackSid, roomStats.trackSidIndex) +
                             " " +
                             context.getString(R.string.video_track) +
                             " " +
                             trackCount)
                     val item = StatsListItem.Builder()
                             .baseTrackInfo(remoteVideoTrackStats)
+                            .trackRates(roomStats.trackRates[remoteVideoTrackStats.trackSid])
                             .bytes(remoteVideoTrackStats.bytesReceived)
                             .dimensions(remoteVideoTrackStats.dimensions.toString())
                             .framerate(remoteVideoTrackStats.frameRate)
+                            .frameStats(frameStats[remoteVideoTrackStats.trackSid])
                             .trackName(trackName)
                             .isAudioTrack(false)
                             .isLocalTrack(false)
@@ -168,54 +238,54 @@ class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<Stat
             }
         }
 
-        handler.post {
-            statsListItems.clear()
-            statsListItems.addAll(statsItemList.toList())
-            notifyDataSetChanged()
-        }
+        return statsItemList
     }
 
-    private fun getParticipantName(
-        trackSid: String,
-        isAudioTrack: Boolean,
-        remoteParticipants: List<RemoteParticipant>
-    ): String {
-        for (remoteParticipant in remoteParticipants) {
-            if (isAudioTrack) {
-                val remoteAudioTrack = getAudioTrack(remoteParticipant, trackSid)
-                if (remoteAudioTrack != null) {
-                    return remoteParticipant.identity
-                }
-            } else {
-                val remoteVideoTrack = getRemoteVideoTrack(remoteParticipant, trackSid)
-                if (remoteVideoTrack != null) {
-                    return remoteParticipant.identity
-                }
-            }
-        }
-        return ""
+    /*
+     * Rows are matched by track sid so existing rows are only rebound with the fields that
+     * changed, which keeps the scroll position and avoids a relayout of the whole stats pane.
+     */
+    fun submitStatsItems(newStatsListItems: List<StatsListItem>) {
+        val diffResult = DiffUtil.calculateDiff(
+                StatsListDiffCallback(ArrayList(statsListItems), newStatsListItems))
+        statsListItems.clear()
+        statsListItems.addAll(newStatsListItems)
+        val trackSids = newStatsListItems.mapTo(HashSet()) { it.trackSid }
+        itemIds.keys.retainAll(trackSids)
+        diffResult.dispatchUpdatesTo(this)
     }
 
-    private fun getAudioTrack(remoteParticipant: RemoteParticipant, trackSid: String): RemoteAudioTrack? {
-        for (remoteAudioTrackPublication in remoteParticipant.remoteAudioTracks) {
-            if (remoteAudioTrackPublication.trackSid == trackSid) {
-                return remoteAudioTrackPublication.remoteAudioTrack
-            }
-        }
-
-        return null
+    private fun formatCaptureDecision(captureDecision: CaptureDecision): String {
+        val reason = context.getString(when (captureDecision.reason) {
+            CaptureReason.PREFERENCE -> R.string.stats_capture_preference
+            CaptureReason.CONGESTION -> R.string.stats_capture_congestion
+            CaptureReason.RECOVERY -> R.string.stats_capture_recovery
+            CaptureReason.DEVICE_LIMIT -> R.string.stats_capture_device_limit
+        })
+        return context.getString(R.string.stats_capture_value,
+                captureDecision.level.dimensions.toString(), captureDecision.level.framerate, reason,
+                captureDecision.step + 1, captureDecision.stepCount)
     }
 
-    private fun getRemoteVideoTrack(
-        remoteParticipant: RemoteParticipant,
-        trackSid: String
-    ): RemoteVideoTrack? {
-        for (remoteVideoTrackPublication in remoteParticipant.remoteVideoTracks) {
-            if (remoteVideoTrackPublication.trackSid == trackSid) {
-                return remoteVideoTrackPublication.remoteVideoTrack
-            }
-        }
+    private fun getParticipantName(trackSid: String, trackSidIndex: TrackSidIndex): String =
+            trackSidIndex[trackSid]?.name ?: ""
+
+    private class StatsListDiffCallback(
+        private val oldItems: List<StatsListItem>,
+        private val newItems: List<StatsListItem>
+    ) : DiffUtil.Callback() {
+
+        override fun getOldListSize() = oldItems.size
+
+        override fun getNewListSize() = newItems.size
+
+        override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                oldItems[oldItemPosition].trackSid == newItems[newItemPosition].trackSid
+
+        override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                oldItems[oldItemPosition] == newItems[newItemPosition]
 
-        return null
+        override fun getChangePayload(oldItemPosition: Int, newItemPosition: Int): Any? =
+                oldItems[oldItemPosition]
     }
 }
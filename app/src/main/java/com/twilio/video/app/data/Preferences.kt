@@ -49,6 +49,9 @@ object Preferences {
     const val LOGOUT = "pref_logout"
     const val ENABLE_STATS = "pref_enable_stats"
     const val ENABLE_STATS_DEFAULT = true
+    const val RECORD_CALL_STATS = "pref_record_call_stats"
+    const val RECORD_CALL_STATS_DEFAULT = false
+    const val SHARE_CALL_STATS = "pref_share_call_stats"
     const val ENABLE_INSIGHTS = "pref_enable_insights"
     const val ENABLE_NETWORK_QUALITY_LEVEL = "pref_enable_network_quality_level"
     const val ENABLE_NETWORK_QUALITY_LEVEL_DEFAULT = true
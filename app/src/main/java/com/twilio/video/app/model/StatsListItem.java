@@ -16,7 +16,11 @@
 
 package com.twilio.video.app.model;
 
+import androidx.annotation.Nullable;
+import androidx.core.util.ObjectsCompat;
 import com.twilio.video.BaseTrackStats;
+import com.twilio.video.app.sdk.TrackRates;
+import com.twilio.video.app.ui.room.FrameStatsSnapshot;
 
 public class StatsListItem {
     public final String trackSid;
@@ -31,6 +35,12 @@ public class StatsListItem {
     public final int audioLevel;
     public final boolean isLocalTrack;
     public final boolean isAudioTrack;
+    public final int bitrateKbps;
+    public final float packetLossPercent;
+    public final boolean isRendered;
+    public final int renderedFramerate;
+    public final long frozenFrames;
+    @Nullable public final String captureFormat;
 
     private StatsListItem(Builder builder) {
         this.trackSid = builder.trackSid;
@@ -45,6 +55,60 @@ public class StatsListItem {
         this.audioLevel = builder.audioLevel;
         this.isLocalTrack = builder.isLocalTrack;
         this.isAudioTrack = builder.isAudioTrack;
+        this.bitrateKbps = builder.bitrateKbps;
+        this.packetLossPercent = builder.packetLossPercent;
+        this.isRendered = builder.isRendered;
+        this.renderedFramerate = builder.renderedFramerate;
+        this.frozenFrames = builder.frozenFrames;
+        this.captureFormat = builder.captureFormat;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StatsListItem that = (StatsListItem) o;
+        return packetsLost == that.packetsLost
+                && bytes == that.bytes
+                && rtt == that.rtt
+                && framerate == that.framerate
+                && jitter == that.jitter
+                && audioLevel == that.audioLevel
+                && isLocalTrack == that.isLocalTrack
+                && isAudioTrack == that.isAudioTrack
+                && bitrateKbps == that.bitrateKbps
+                && Float.compare(packetLossPercent, that.packetLossPercent) == 0
+                && isRendered == that.isRendered
+                && renderedFramerate == that.renderedFramerate
+                && frozenFrames == that.frozenFrames
+                && ObjectsCompat.equals(trackSid, that.trackSid)
+                && ObjectsCompat.equals(trackName, that.trackName)
+                && ObjectsCompat.equals(codec, that.codec)
+                && ObjectsCompat.equals(dimensions, that.dimensions)
+                && ObjectsCompat.equals(captureFormat, that.captureFormat);
+    }
+
+    @Override
+    public int hashCode() {
+        return ObjectsCompat.hash(
+                trackSid,
+                trackName,
+                codec,
+                packetsLost,
+                bytes,
+                rtt,
+                dimensions,
+                framerate,
+                jitter,
+                audioLevel,
+                isLocalTrack,
+                isAudioTrack,
+                bitrateKbps,
+                packetLossPercent,
+                isRendered,
+                renderedFramerate,
+                frozenFrames,
+                captureFormat);
     }
 
     public static class Builder {
@@ -60,6 +124,12 @@ public class StatsListItem {
         private int audioLevel;
         private boolean isLocalTrack;
         private boolean isAudioTrack;
+        private int bitrateKbps;
+        private float packetLossPercent;
+        private boolean isRendered;
+        private int renderedFramerate;
+        private long frozenFrames;
+        private String captureFormat;
 
         public Builder() {}
 
@@ -108,6 +178,28 @@ public class StatsListItem {
             return this;
         }
 
+        public Builder trackRates(@Nullable TrackRates trackRates) {
+            if (trackRates != null) {
+                this.bitrateKbps = trackRates.getBitrateKbps();
+                this.packetLossPercent = trackRates.getPacketLossPercent();
+            }
+            return this;
+        }
+
+        public Builder frameStats(@Nullable FrameStatsSnapshot frameStats) {
+            if (frameStats != null) {
+                this.isRendered = true;
+                this.renderedFramerate = frameStats.getFramesPerSecond();
+                this.frozenFrames = frameStats.getFrozenFrameCount();
+            }
+            return this;
+        }
+
+        public Builder captureFormat(@Nullable String captureFormat) {
+            this.captureFormat = captureFormat;
+            return this;
+        }
+
         public Builder baseTrackInfo(BaseTrackStats trackStats) {
             this.codec = trackStats.codec;
             this.packetsLost = trackStats.packetsLost;
@@ -0,0 +1,51 @@
+package com.twilio.video.app.participant
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority.LOW
+import java.util.Collections
+import java.util.WeakHashMap
+
+/*
+ * Remembers which remote video tracks were lowered to LOW, so that only those are restored and a
+ * priority that was set elsewhere in the meantime is left alone. A lowered track is recorded even
+ * if it already was LOW, e.g. because of a render hint, and isLowered tells the render hints to
+ * leave it alone until it is restored.
+ */
+internal class LoweredTrackPriorities {
+
+    private val loweredTracks = HashSet<RemoteVideoTrack>()
+
+    fun lower(videoTrack: RemoteVideoTrack) {
+        if (loweredTracks.add(videoTrack)) ownedTracks.add(videoTrack)
+        if (videoTrack.priority != LOW) videoTrack.priority = LOW
+    }
+
+    fun restore(videoTrack: RemoteVideoTrack) {
+        if (loweredTracks.remove(videoTrack)) {
+            ownedTracks.remove(videoTrack)
+            if (videoTrack.priority == LOW) videoTrack.priority = null
+        }
+    }
+
+    /*
+     * Forgets the tracks that are no longer published.
+     */
+    fun retainAll(videoTracks: Set<RemoteVideoTrack>) {
+        val iterator = loweredTracks.iterator()
+        while (iterator.hasNext()) {
+            val videoTrack = iterator.next()
+            if (!videoTracks.contains(videoTrack)) {
+                iterator.remove()
+                ownedTracks.remove(videoTrack)
+            }
+        }
+    }
+
+    companion object {
+        /** Tracks lowered by any instance, weakly held so unpublished tracks are not leaked. */
+        private val ownedTracks: MutableSet<RemoteVideoTrack> =
+                Collections.synchronizedSet(Collections.newSetFromMap(WeakHashMap()))
+
+        fun isLowered(videoTrack: RemoteVideoTrack) = ownedTracks.contains(videoTrack)
+    }
+}
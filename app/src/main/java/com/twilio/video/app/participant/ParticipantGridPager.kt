@@ -0,0 +1,75 @@
+package com.twilio.video.app.participant
+
+import com.twilio.video.RemoteVideoTrack
+import kotlin.math.sign
+
+const val DEFAULT_GRID_PAGE_SIZE = 6
+const val GRID_COLUMNS = 2
+
+/*
+ * Splits the participants into pages of pageSize tiles for the grid layout. Only the tiles of the
+ * current page are rendered. The remote video tracks of all other pages are lowered to LOW,
+ * except for the page the user is likely to move to next, which keeps its priority so the next
+ * page switch is prefetched. A lowered track is only restored if its priority is still LOW.
+ */
+class ParticipantGridPager(val pageSize: Int = DEFAULT_GRID_PAGE_SIZE) {
+
+    private val loweredTracks = LoweredTrackPriorities()
+
+    var currentPage = 0
+        private set
+
+    /** Page in the direction of the last page switch, the next page initially. */
+    var prefetchPage = 1
+        private set
+
+    /** The tracks of the prefetched page are lowered as well while this is false. */
+    var isPrefetchEnabled = true
+
+    fun pageCount(participantCount: Int) = maxOf(1, (participantCount + pageSize - 1) / pageSize)
+
+    fun pageRange(participantCount: Int): IntRange {
+        val start = currentPage * pageSize
+        return start until minOf(start + pageSize, participantCount)
+    }
+
+    fun selectPage(page: Int, participantCount: Int): Boolean {
+        val newPage = page.coerceIn(0, pageCount(participantCount) - 1)
+        if (newPage == currentPage) return false
+        prefetchPage = newPage + (newPage - currentPage).sign
+        currentPage = newPage
+        return true
+    }
+
+    /*
+     * Keeps the current page within bounds after participants left.
+     */
+    fun clampPage(participantCount: Int) {
+        val lastPage = pageCount(participantCount) - 1
+        if (currentPage > lastPage) selectPage(lastPage, participantCount)
+    }
+
+    fun updateTrackPriorities(participants: List<ParticipantViewState>) {
+        val remainingTracks = HashSet<RemoteVideoTrack>()
+        participants.forEachIndexed { position, participant ->
+            val videoTrack = participant.getRemoteVideoTrack() ?: return@forEachIndexed
+            remainingTracks.add(videoTrack)
+            val page = position / pageSize
+            if (page == currentPage || (isPrefetchEnabled && page == prefetchPage)) {
+                loweredTracks.restore(videoTrack)
+            } else {
+                loweredTracks.lower(videoTrack)
+            }
+        }
+        loweredTracks.retainAll(remainingTracks)
+    }
+}
+
+/*
+ * The participants of the visible grid page.
+ */
+data class GridPage(
+    val page: Int,
+    val pageCount: Int,
+    val participants: List<ParticipantViewState>
+)
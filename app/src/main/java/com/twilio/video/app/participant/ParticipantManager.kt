@@ -1,59 +1,150 @@
 package com.twilio.video.app.participant
 
 import com.twilio.video.NetworkQualityLevel
-import com.twilio.video.TrackPriority.HIGH
 import com.twilio.video.app.sdk.VideoTrackViewState
 import timber.log.Timber
 
-class ParticipantManager {
+/*
+ * Participants are kept in slots that are indexed by sid, so lookups and updates are O(1). The
+ * slot order is the order of the thumbnails and the pinned, dominant speaker and local slots are
+ * tracked separately so the primary participant can be determined without scanning the list.
+ *
+ * Every change to the thumbnail list is recorded so that takeThumbnailSnapshot can hand out the
+ * exact insertions, removals, moves and updates since the previous snapshot.
+ */
+class ParticipantManager(
+    private val gridPager: ParticipantGridPager? = null,
+    private val speakerPolicy: SpeakerRecencyPolicy? = null
+) {
 
-    private val mutableParticipants = mutableListOf<ParticipantViewState>()
-    val participantThumbnails: List<ParticipantViewState> get() = mutableParticipants.toList()
+    private val participantSlots = ArrayList<Slot>()
+    private val slotsBySid = HashMap<String, Slot>()
+    private var localSlot: Slot? = null
+    private var pinnedSlot: Slot? = null
+    private var dominantSpeakerSlot: Slot? = null
+    private var screenSharingCount = 0
+    private var snapshotVersion = 0L
+    private val pendingChanges = ArrayList<ParticipantChange>()
+    private var hasTooManyPendingChanges = false
+    private val primaryTrackPriority = PrimaryTrackPriority()
+    // The policies only run again once their inputs changed, not on every mute or quality update
+    private var isSpeakerPolicyStale = false
+    private var isGridPolicyStale = false
+    val participantThumbnails: List<ParticipantViewState>
+        get() = participantSlots.map { it.participant }
+    // Read-only view of the participants in thumbnail order that does not copy the slots
+    private val slotParticipants = object : AbstractList<ParticipantViewState>() {
+        override val size: Int get() = participantSlots.size
+        override fun get(index: Int) = participantSlots[index].participant
+    }
     var primaryParticipant: ParticipantViewState
         private set
 
     init {
         val localParticipant = ParticipantViewState(isLocalParticipant = true)
-        mutableParticipants.add(localParticipant)
+        insertSlot(localParticipant)
+        pendingChanges.clear()
         primaryParticipant = localParticipant
     }
 
+    fun takeThumbnailSnapshot(): ParticipantThumbnailSnapshot {
+        val changes = if (hasTooManyPendingChanges) null else pendingChanges.toList()
+        val snapshot = ParticipantThumbnailSnapshot(
+                snapshotVersion,
+                snapshotVersion + 1,
+                changes,
+                participantThumbnails)
+        snapshotVersion++
+        pendingChanges.clear()
+        hasTooManyPendingChanges = false
+        return snapshot
+    }
+
+    /*
+     * The visible page of the grid layout, or null if the grid layout is not used.
+     */
+    val gridPage: GridPage?
+        get() = gridPager?.let { gridPager ->
+            GridPage(gridPager.currentPage,
+                    gridPager.pageCount(participantSlots.size),
+                    gridPager.pageRange(participantSlots.size).map { participantSlots[it].participant })
+        }
+
+    fun selectGridPage(page: Int) {
+        gridPager?.let { gridPager ->
+            if (gridPager.selectPage(page, participantSlots.size)) {
+                Timber.d("Selected grid page %d", gridPager.currentPage)
+                gridPager.updateTrackPriorities(slotParticipants)
+                isGridPolicyStale = false
+            }
+        }
+    }
+
+    /*
+     * Limits the remote participants that render video, or lifts the limit if null. In grid mode
+     * only the current page keeps rendering video while there is a limit.
+     */
+    fun setMaxRemoteVideoTracks(maxRemoteVideoTracks: Int?) {
+        speakerPolicy?.videoTrackLimit = maxRemoteVideoTracks
+        gridPager?.isPrefetchEnabled = maxRemoteVideoTracks == null
+        markPoliciesStale()
+        updatePrimaryParticipant()
+    }
+
     fun addParticipant(participantViewState: ParticipantViewState) {
         Timber.d("Adding participant: %s", participantViewState)
-        mutableParticipants.add(participantViewState)
+        insertParticipant(participantViewState)
         updatePrimaryParticipant()
     }
 
-    fun updateLocalParticipantVideoTrack(videoTrack: VideoTrackViewState?) =
-            mutableParticipants.find { it.isLocalParticipant }?.copy(
-                    videoTrack = videoTrack)?.let { updateLocalParticipant(it) }
+    fun addParticipants(participantViewStates: Collection<ParticipantViewState>) {
+        Timber.d("Adding %d participants", participantViewStates.size)
+        participantSlots.ensureCapacity(participantSlots.size + participantViewStates.size)
+        participantViewStates.forEach { insertParticipant(it) }
+        updatePrimaryParticipant()
+    }
 
-    fun updateLocalParticipantSid(sid: String) =
-            mutableParticipants.find { it.isLocalParticipant }?.copy(
-                    sid = sid)?.let { updateLocalParticipant(it) }
+    fun updateLocalParticipantVideoTrack(videoTrack: VideoTrackViewState?) {
+        localSlot?.let { updateLocalParticipant(it.participant.copy(videoTrack = videoTrack)) }
+    }
 
-    fun updateParticipant(
-        participantViewState: ParticipantViewState,
-        participantMatchPredicate: (ParticipantViewState) -> Boolean = {
-            it.sid == participantViewState.sid }
-    ) {
+    fun updateLocalParticipantSid(sid: String) {
+        localSlot?.let { updateLocalParticipant(it.participant.copy(sid = sid)) }
+    }
 
-        mutableParticipants.indexOfFirst(participantMatchPredicate).let { index ->
-            if (index > -1) {
-                Timber.d("Updating participant: %s", participantViewState)
-                mutableParticipants[index] = participantViewState
-                updatePrimaryParticipant()
-            }
+    fun updateParticipant(participantViewState: ParticipantViewState) {
+        findSlot(participantViewState.sid)?.let { slot ->
+            Timber.d("Updating participant: %s", participantViewState)
+            writeSlot(slot, participantViewState)
+            updatePrimaryParticipant()
         }
     }
 
     fun removeParticipant(sid: String) {
         Timber.d("Removing participant: %s", sid)
-        mutableParticipants.removeAll { it.sid == sid }
+        slotsBySid[sid]?.let { removeSlot(it) }
+        speakerPolicy?.onParticipantRemoved(sid)
         updatePrimaryParticipant()
     }
 
-    fun getParticipant(sid: String): ParticipantViewState? = mutableParticipants.find { it.sid == sid }
+    fun removeParticipants(sids: Collection<String>) {
+        Timber.d("Removing participants: %s", sids)
+        val removedSlots = sids.mapNotNullTo(HashSet()) { slotsBySid[it] }
+        speakerPolicy?.let { speakerPolicy -> sids.forEach { speakerPolicy.onParticipantRemoved(it) } }
+        if (removedSlots.isNotEmpty()) {
+            participantSlots.removeAll(removedSlots)
+            // Record the removals from the back so each position is valid when applied in order
+            removedSlots.sortedByDescending { it.position }.forEach { slot ->
+                removeSlotIndex(slot)
+                recordChange(ParticipantChange.Removed(slot.position, 1))
+            }
+            updateSlotPositions(removedSlots.minOf { it.position })
+            markPoliciesStale()
+        }
+        updatePrimaryParticipant()
+    }
+
+    fun getParticipant(sid: String): ParticipantViewState? = slotsBySid[sid]?.participant
 
     fun updateNetworkQuality(sid: String, networkQualityLevel: NetworkQualityLevel) {
         getParticipant(sid)?.copy(networkQualityLevel = networkQualityLevel)?.let {
@@ -62,13 +153,11 @@ class ParticipantManager {
     }
 
     fun updateParticipantVideoTrack(sid: String, videoTrack: VideoTrackViewState?) {
-        mutableParticipants.find { it.sid == sid }?.copy(
-                videoTrack = videoTrack)?.let { updateParticipant(it) }
+        getParticipant(sid)?.copy(videoTrack = videoTrack)?.let { updateParticipant(it) }
     }
 
     fun updateParticipantScreenTrack(sid: String, screenTrack: VideoTrackViewState?) {
-        mutableParticipants.find { it.sid == sid }?.copy(
-                screenTrack = screenTrack)?.let { updateParticipant(it) }
+        getParticipant(sid)?.copy(screenTrack = screenTrack)?.let { updateParticipant(it) }
     }
 
     fun muteParticipant(sid: String, mute: Boolean) {
@@ -78,102 +167,235 @@ class ParticipantManager {
     }
 
     fun changePinnedParticipant(sid: String) {
-        val existingPin = mutableParticipants.find { it.isPinned }?.copy(
-            isPinned = false)
-        existingPin?.let { updateParticipant(it) }
+        val existingPinSlot = pinnedSlot
+        existingPinSlot?.let { writeSlot(it, it.participant.copy(isPinned = false)) }
 
-        getParticipant(sid)?.let { newPin ->
-            if (existingPin?.sid != newPin.sid) {
-                updateParticipant(newPin.copy(isPinned = true))
+        slotsBySid[sid]?.let { newPinSlot ->
+            if (existingPinSlot !== newPinSlot) {
+                writeSlot(newPinSlot, newPinSlot.participant.copy(isPinned = true))
             }
         }
+        updatePrimaryParticipant()
     }
 
     fun changeDominantSpeaker(newDominantSpeakerSid: String?) {
         Timber.d("new dominant speaker with sid: %s", newDominantSpeakerSid)
+        isSpeakerPolicyStale = true
+        clearDominantSpeaker()
         newDominantSpeakerSid?.let { sid ->
-            clearDominantSpeaker()
-
-            getParticipant(newDominantSpeakerSid)?.copy(
-                    isDominantSpeaker = true)?.let { moveDominantSpeakerToTop(it) }
-        } ?: run {
-            clearDominantSpeaker()
+            slotsBySid[sid]?.let { slot ->
+                speakerPolicy?.onDominantSpeaker(sid)
+                moveDominantSpeakerToTop(slot)
+            }
         }
+        updatePrimaryParticipant()
     }
 
-    internal fun updateLocalParticipant(participantViewState: ParticipantViewState) =
-            updateParticipant(participantViewState) { it.isLocalParticipant }
-
-    private fun moveDominantSpeakerToTop(newDominantSpeaker: ParticipantViewState) {
-        if (mutableParticipants.size > 1) {
-            mutableParticipants.removeAll { it.sid == newDominantSpeaker.sid }
-            mutableParticipants.add(1, newDominantSpeaker)
+    internal fun updateLocalParticipant(participantViewState: ParticipantViewState) {
+        localSlot?.let { slot ->
+            Timber.d("Updating local participant: %s", participantViewState)
+            writeSlot(slot, participantViewState)
             updatePrimaryParticipant()
         }
     }
 
+    private fun moveDominantSpeakerToTop(dominantSpeakerSlot: Slot) {
+        if (participantSlots.size > 1) {
+            writeSlot(dominantSpeakerSlot,
+                    dominantSpeakerSlot.participant.copy(isDominantSpeaker = true))
+            val fromPosition = dominantSpeakerSlot.position
+            if (fromPosition != 1) {
+                participantSlots.removeAt(fromPosition)
+                participantSlots.add(1, dominantSpeakerSlot)
+                recordChange(ParticipantChange.Moved(fromPosition, 1))
+                updateSlotPositions(minOf(fromPosition, 1), maxOf(fromPosition, 1))
+                markPoliciesStale()
+            }
+        }
+    }
+
     private fun clearDominantSpeaker() {
-        mutableParticipants.find { it.isDominantSpeaker }?.copy(
-                isDominantSpeaker = false)?.let { updateParticipant(it) }
+        dominantSpeakerSlot?.let { writeSlot(it, it.participant.copy(isDominantSpeaker = false)) }
     }
 
     fun clearRemoteParticipants() {
-        mutableParticipants.removeAll { !it.isLocalParticipant }
+        speakerPolicy?.clear()
+        var position = 0
+        val iterator = participantSlots.iterator()
+        while (iterator.hasNext()) {
+            val slot = iterator.next()
+            if (!slot.participant.isLocalParticipant) {
+                iterator.remove()
+                removeSlotIndex(slot)
+                recordChange(ParticipantChange.Removed(position, 1))
+            } else {
+                slot.position = position++
+            }
+        }
+        markPoliciesStale()
         updatePrimaryParticipant()
     }
 
+    private fun findSlot(sid: String?): Slot? =
+            if (sid != null) slotsBySid[sid] else participantSlots.find { it.participant.sid == null }
+
+    private fun insertParticipant(participantViewState: ParticipantViewState) {
+        participantViewState.sid?.let { slotsBySid[it] }?.let { existingSlot ->
+            writeSlot(existingSlot, participantViewState)
+        } ?: insertSlot(participantViewState)
+    }
+
+    private fun insertSlot(participantViewState: ParticipantViewState): Slot =
+            Slot(participantViewState, participantSlots.size).also {
+                participantSlots.add(it)
+                addSlotIndex(it)
+                recordChange(ParticipantChange.Inserted(it.position, 1))
+                markPoliciesStale()
+            }
+
+    private fun removeSlot(slot: Slot) {
+        participantSlots.removeAt(slot.position)
+        removeSlotIndex(slot)
+        recordChange(ParticipantChange.Removed(slot.position, 1))
+        updateSlotPositions(slot.position)
+        markPoliciesStale()
+    }
+
+    private fun writeSlot(slot: Slot, participantViewState: ParticipantViewState) {
+        val payloads = slot.participant.thumbnailPayloads(participantViewState)
+        // A new video track still has to be lowered or restored by the policies
+        if (slot.participant.videoTrack?.videoTrack !== participantViewState.videoTrack?.videoTrack) {
+            markPoliciesStale()
+        }
+        removeSlotIndex(slot)
+        slot.participant = participantViewState
+        addSlotIndex(slot)
+        if (payloads.isNotEmpty()) recordChange(ParticipantChange.Changed(slot.position, payloads))
+    }
+
+    private fun updateSlotPositions(startPosition: Int, endPosition: Int = participantSlots.lastIndex) {
+        for (position in startPosition..endPosition) participantSlots[position].position = position
+    }
+
+    private fun recordChange(change: ParticipantChange) {
+        if (hasTooManyPendingChanges) return
+        if (pendingChanges.size >= MAX_PENDING_CHANGES) {
+            Timber.d("Too many pending participant changes, falling back to a full diff")
+            hasTooManyPendingChanges = true
+            pendingChanges.clear()
+            return
+        }
+        val lastChange = pendingChanges.lastOrNull()
+        val mergedChange = when {
+            change is ParticipantChange.Inserted && lastChange is ParticipantChange.Inserted &&
+                    lastChange.position + lastChange.count == change.position ->
+                ParticipantChange.Inserted(lastChange.position, lastChange.count + change.count)
+            change is ParticipantChange.Removed && lastChange is ParticipantChange.Removed &&
+                    lastChange.position == change.position ->
+                ParticipantChange.Removed(lastChange.position, lastChange.count + change.count)
+            change is ParticipantChange.Removed && lastChange is ParticipantChange.Removed &&
+                    change.position + change.count == lastChange.position ->
+                ParticipantChange.Removed(change.position, lastChange.count + change.count)
+            else -> null
+        }
+        if (mergedChange != null) {
+            pendingChanges[pendingChanges.lastIndex] = mergedChange
+        } else {
+            pendingChanges.add(change)
+        }
+    }
+
+    private fun addSlotIndex(slot: Slot) {
+        slot.participant.run {
+            sid?.let { slotsBySid[it] = slot }
+            if (isScreenSharing) screenSharingCount++
+            if (isPinned) pinnedSlot = slot
+            if (isDominantSpeaker) dominantSpeakerSlot = slot
+            if (isLocalParticipant && localSlot == null) localSlot = slot
+        }
+    }
+
+    private fun removeSlotIndex(slot: Slot) {
+        slot.participant.run {
+            sid?.let { if (slotsBySid[it] === slot) slotsBySid.remove(it) }
+            if (isScreenSharing) screenSharingCount--
+        }
+        if (pinnedSlot === slot) pinnedSlot = null
+        if (dominantSpeakerSlot === slot) dominantSpeakerSlot = null
+        if (localSlot === slot) localSlot = null
+    }
+
     private fun updatePrimaryParticipant() {
-        primaryParticipant = retrievePrimaryParticipant()
-        Timber.d("Participant Cache: $mutableParticipants")
-        Timber.d("Primary Participant: $primaryParticipant")
+        val newPrimaryParticipant = retrievePrimaryParticipant()
+        if (newPrimaryParticipant.sid != primaryParticipant.sid) {
+            Timber.d("Primary Participant: %s", newPrimaryParticipant)
+            markPoliciesStale()
+        }
+        primaryParticipant = newPrimaryParticipant
+        if (speakerPolicy != null && isSpeakerPolicyStale) {
+            isSpeakerPolicyStale = false
+            updateHiddenVideos(speakerPolicy)
+        }
+        if (gridPager != null && isGridPolicyStale) {
+            isGridPolicyStale = false
+            gridPager.clampPage(participantSlots.size)
+            gridPager.updateTrackPriorities(slotParticipants)
+        }
+    }
+
+    private fun markPoliciesStale() {
+        isSpeakerPolicyStale = true
+        isGridPolicyStale = true
+    }
+
+    private fun updateHiddenVideos(speakerPolicy: SpeakerRecencyPolicy) {
+        val videoSids = speakerPolicy.videoSids(slotParticipants, primaryParticipant.sid)
+        participantSlots.forEach { slot ->
+            val participant = slot.participant
+            val isVideoHidden = !participant.isLocalParticipant && !videoSids.contains(participant.sid)
+            if (participant.isVideoHidden != isVideoHidden) {
+                writeSlot(slot, participant.copy(isVideoHidden = isVideoHidden))
+                if (participant === primaryParticipant) primaryParticipant = slot.participant
+            }
+        }
+        speakerPolicy.updateTrackPriorities(slotParticipants)
     }
 
     private fun retrievePrimaryParticipant(): ParticipantViewState =
-            determinePrimaryParticipant().apply { setTrackPriority(this) }
+            determinePrimaryParticipant().apply {
+                // The grid has no primary view, the grid pager owns the track priorities
+                if (gridPager == null) setTrackPriority(this) else primaryTrackPriority.clear()
+            }
 
     private fun determinePrimaryParticipant(): ParticipantViewState {
-        return mutableParticipants.find { it.isPinned }
-                ?: mutableParticipants.find { it.isScreenSharing }
-                ?: mutableParticipants.find { it.isDominantSpeaker }
-                ?: mutableParticipants.find { !it.isLocalParticipant }
-                ?: mutableParticipants[0] // local participant
+        return pinnedSlot?.participant
+                ?: findScreenSharingParticipant()
+                ?: dominantSpeakerSlot?.participant
+                ?: participantSlots.find { !it.participant.isLocalParticipant }?.participant
+                ?: participantSlots[0].participant // local participant
     }
 
+    private fun findScreenSharingParticipant(): ParticipantViewState? =
+            if (screenSharingCount > 0) {
+                participantSlots.find { it.participant.isScreenSharing }?.participant
+            } else null
+
     private fun setTrackPriority(participant: ParticipantViewState) {
-        if (participant.sid != primaryParticipant.sid) {
-            when {
-                participant.isScreenSharing -> {
-                    participant.getRemoteScreenTrack()?.let {
-                        it.priority = HIGH
-                        clearOldTrackPriorities()
-                        Timber.d("Setting screen track priority to high for participant with sid: ${participant.sid}")
-                    }
-                }
-                participant.isDominantSpeaker -> {
-                    participant.getRemoteVideoTrack()?.let {
-                        it.priority = null
-                        clearOldTrackPriorities()
-                        Timber.d("Clearing dominant speaker priority for participant with sid: ${participant.sid}")
-                    }
-                }
-                else -> {
-                    participant.getRemoteVideoTrack()?.let {
-                        it.priority = HIGH
-                        clearOldTrackPriorities()
-                        Timber.d("Setting video track priority to high for participant with sid: ${participant.sid}")
-                    }
-                }
-            }
+        when {
+            participant.isLocalParticipant -> primaryTrackPriority.clear()
+            participant.sid == primaryParticipant.sid -> return
+            participant.isScreenSharing ->
+                participant.getRemoteScreenTrack()?.let { primaryTrackPriority.raise(it) }
+            // The dominant speaker keeps the priority chosen by the SDK
+            participant.isDominantSpeaker ->
+                participant.getRemoteVideoTrack()?.let { primaryTrackPriority.clear() }
+            else -> participant.getRemoteVideoTrack()?.let { primaryTrackPriority.raise(it) }
         }
-
-        if (participant.isLocalParticipant) clearOldTrackPriorities()
     }
 
-    private fun clearOldTrackPriorities() {
-        primaryParticipant.run {
-            getRemoteVideoTrack()?.priority = null
-            getRemoteScreenTrack()?.priority = null
-            Timber.d("Clearing video and screen track priorities for participant with sid: $sid")
-        }
+    private class Slot(var participant: ParticipantViewState, var position: Int)
+
+    private companion object {
+        const val MAX_PENDING_CHANGES = 64
     }
 }
@@ -0,0 +1,41 @@
+package com.twilio.video.app.participant
+
+import java.util.EnumSet
+
+/*
+ * Fields of a ParticipantViewState that are rendered by a participant thumbnail. Used as change
+ * payloads so a thumbnail only rebinds the views that display the fields that changed.
+ */
+enum class ParticipantPayload {
+    IDENTITY,
+    MUTED,
+    PINNED,
+    NETWORK_QUALITY,
+    VIDEO_TRACK,
+    SWITCHED_OFF;
+
+    companion object {
+        val ALL: Set<ParticipantPayload> = EnumSet.allOf(ParticipantPayload::class.java)
+    }
+}
+
+fun ParticipantViewState.thumbnailPayloads(newState: ParticipantViewState): Set<ParticipantPayload> {
+    val payloads = EnumSet.noneOf(ParticipantPayload::class.java)
+    if (sid != newState.sid ||
+            identity != newState.identity ||
+            isLocalParticipant != newState.isLocalParticipant) {
+        payloads.add(ParticipantPayload.IDENTITY)
+    }
+    if (isMuted != newState.isMuted) payloads.add(ParticipantPayload.MUTED)
+    if (isPinned != newState.isPinned) payloads.add(ParticipantPayload.PINNED)
+    if (networkQualityLevel != newState.networkQualityLevel) {
+        payloads.add(ParticipantPayload.NETWORK_QUALITY)
+    }
+    if (videoTrack?.videoTrack !== newState.videoTrack?.videoTrack ||
+            isVideoHidden != newState.isVideoHidden) {
+        payloads.add(ParticipantPayload.VIDEO_TRACK)
+    } else if (videoTrack?.isSwitchedOff != newState.videoTrack?.isSwitchedOff) {
+        payloads.add(ParticipantPayload.SWITCHED_OFF)
+    }
+    return payloads
+}
@@ -0,0 +1,34 @@
+package com.twilio.video.app.participant
+
+/*
+ * Immutable list of participant thumbnails produced by the ParticipantManager. Besides the
+ * thumbnails, a snapshot carries the changes that transform the snapshot with baseVersion into
+ * this one, so consumers that rendered baseVersion can apply them directly instead of diffing
+ * the lists. A null change set means the changes were not tracked and the lists must be diffed.
+ *
+ * Equality only considers the thumbnails so a snapshot is interchangeable with any other list of
+ * the same participants.
+ */
+class ParticipantThumbnailSnapshot(
+    val baseVersion: Long,
+    val version: Long,
+    val changes: List<ParticipantChange>?,
+    private val thumbnails: List<ParticipantViewState>
+) : List<ParticipantViewState> by thumbnails {
+
+    override fun equals(other: Any?) = thumbnails == other
+
+    override fun hashCode() = thumbnails.hashCode()
+
+    override fun toString() = thumbnails.toString()
+}
+
+sealed class ParticipantChange {
+    data class Inserted(val position: Int, val count: Int) : ParticipantChange()
+    data class Removed(val position: Int, val count: Int) : ParticipantChange()
+    data class Moved(val fromPosition: Int, val toPosition: Int) : ParticipantChange()
+    data class Changed(
+        val position: Int,
+        val payloads: Set<ParticipantPayload>
+    ) : ParticipantChange()
+}
@@ -16,7 +16,9 @@ data class ParticipantViewState(
     val isPinned: Boolean = false,
     val isDominantSpeaker: Boolean = false,
     val isLocalParticipant: Boolean = false,
-    val networkQualityLevel: NetworkQualityLevel = NETWORK_QUALITY_LEVEL_UNKNOWN
+    val networkQualityLevel: NetworkQualityLevel = NETWORK_QUALITY_LEVEL_UNKNOWN,
+    /** Video is not rendered for this participant, see SpeakerRecencyPolicy. */
+    val isVideoHidden: Boolean = false
 ) {
     val isScreenSharing: Boolean get() = screenTrack != null
 
@@ -0,0 +1,35 @@
+package com.twilio.video.app.participant
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority.HIGH
+import timber.log.Timber
+
+/*
+ * Raises the video or screen track of the primary participant to HIGH. Only the track it raised
+ * is cleared again, and only if its priority is still HIGH, so a LOW set by
+ * LoweredTrackPriorities or a render hint set in the meantime is left alone.
+ */
+internal class PrimaryTrackPriority {
+
+    private var raisedTrack: RemoteVideoTrack? = null
+
+    fun raise(videoTrack: RemoteVideoTrack) {
+        if (raisedTrack === videoTrack) return
+        clear()
+        if (videoTrack.priority != HIGH) {
+            videoTrack.priority = HIGH
+            raisedTrack = videoTrack
+            Timber.d("Setting track priority to high for track with sid: %s", videoTrack.sid)
+        }
+    }
+
+    fun clear() {
+        raisedTrack?.let { raisedTrack ->
+            if (raisedTrack.priority == HIGH) {
+                raisedTrack.priority = null
+                Timber.d("Clearing track priority for track with sid: %s", raisedTrack.sid)
+            }
+        }
+        raisedTrack = null
+    }
+}
@@ -0,0 +1,73 @@
+package com.twilio.video.app.participant
+
+import com.twilio.video.RemoteVideoTrack
+
+/*
+ * Limits live video to the maxVideoTracks remote participants that spoke most recently. The
+ * primary participant always renders video and counts towards the limit. The remaining places go
+ * to the most recent dominant speakers and, while not enough participants have spoken yet, to
+ * the participants in thumbnail order. All other remote participants are shown as an avatar and
+ * their video track is lowered to LOW.
+ */
+class SpeakerRecencyPolicy(val maxVideoTracks: Int) {
+
+    /** Sids of the dominant speakers, least recent first. */
+    private val recentSpeakers = LinkedHashSet<String>()
+    private val loweredTracks = LoweredTrackPriorities()
+
+    /** Lowers maxVideoTracks further while set, e.g. while the device is hot. */
+    var videoTrackLimit: Int? = null
+
+    fun onDominantSpeaker(sid: String) {
+        recentSpeakers.remove(sid)
+        recentSpeakers.add(sid)
+    }
+
+    fun onParticipantRemoved(sid: String) {
+        recentSpeakers.remove(sid)
+    }
+
+    fun clear() {
+        recentSpeakers.clear()
+    }
+
+    /*
+     * The sids of the remote participants that may render video.
+     */
+    fun videoSids(participants: List<ParticipantViewState>, primarySid: String?): Set<String> {
+        val videoSids = LinkedHashSet<String>()
+        val maxVideoTracks = videoTrackLimit?.let { minOf(it, maxVideoTracks) } ?: maxVideoTracks
+        val remoteSids = participants.mapNotNullTo(HashSet()) { participant ->
+            participant.sid.takeUnless { participant.isLocalParticipant }
+        }
+        primarySid?.takeIf { remoteSids.contains(it) }?.let { videoSids.add(it) }
+        val speakers = recentSpeakers.reversed().iterator()
+        while (videoSids.size < maxVideoTracks && speakers.hasNext()) {
+            speakers.next().takeIf { remoteSids.contains(it) }?.let { videoSids.add(it) }
+        }
+        val participantIterator = participants.iterator()
+        while (videoSids.size < maxVideoTracks && participantIterator.hasNext()) {
+            val participant = participantIterator.next()
+            if (!participant.isLocalParticipant) participant.sid?.let { videoSids.add(it) }
+        }
+        return videoSids
+    }
+
+    /*
+     * Lowers the video tracks of the participants without video and restores the ones that
+     * regained it.
+     */
+    fun updateTrackPriorities(participants: List<ParticipantViewState>) {
+        val remainingTracks = HashSet<RemoteVideoTrack>()
+        participants.forEach { participant ->
+            val videoTrack = participant.getRemoteVideoTrack() ?: return@forEach
+            remainingTracks.add(videoTrack)
+            if (participant.isVideoHidden) {
+                loweredTracks.lower(videoTrack)
+            } else {
+                loweredTracks.restore(videoTrack)
+            }
+        }
+        loweredTracks.retainAll(remainingTracks)
+    }
+}
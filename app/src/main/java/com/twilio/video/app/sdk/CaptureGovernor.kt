@@ -0,0 +1,193 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.NetworkQualityLevel
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FIVE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FOUR
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_ONE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_TWO
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_UNKNOWN
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_ZERO
+import com.twilio.video.VideoDimensions
+import com.twilio.video.VideoFormat
+import com.twilio.video.app.data.Preferences.VIDEO_DIMENSIONS
+
+/*
+ * Frame rates the camera is captured at, highest first. The first tier is the frame rate of the
+ * capture resolution preference.
+ */
+val CAPTURE_FRAME_RATE_TIERS = intArrayOf(30, 24, 15)
+private const val BAD_PACKET_LOSS_PERCENT = 5f
+private const val GOOD_PACKET_LOSS_PERCENT = 1f
+private const val BAD_ROUND_TRIP_TIME_MILLIS = 500L
+private const val GOOD_ROUND_TRIP_TIME_MILLIS = 250L
+private const val MAX_UPGRADE_BACKOFF = 8
+
+data class CaptureLevel(val dimensionsIndex: Int, val framerate: Int) {
+
+    val dimensions: VideoDimensions get() = VIDEO_DIMENSIONS[dimensionsIndex]
+
+    fun toVideoFormat() = VideoFormat(dimensions, framerate)
+}
+
+/*
+ * One stats interval of the camera track as seen by the sender.
+ */
+data class CaptureSample(
+    val framerate: Int,
+    val roundTripTimeMillis: Long,
+    val packetLossPercent: Float,
+    val networkQualityLevel: NetworkQualityLevel?
+)
+
+enum class CaptureReason { PREFERENCE, CONGESTION, RECOVERY, DEVICE_LIMIT }
+
+data class CaptureDecision(
+    val level: CaptureLevel,
+    val reason: CaptureReason,
+    val step: Int,
+    val stepCount: Int
+)
+
+/*
+ * Steps the camera capture format down a ladder while the uplink is congested and back up once
+ * it recovered. The ladder starts at the capture resolution preference at the highest frame rate
+ * tier, then lowers the frame rate and the resolution in turns down to the lowest resolution at
+ * the lowest frame rate tier.
+ *
+ * A sample is bad when the network quality level is two or lower, packets are lost or delayed or
+ * the encoder sends less than half the captured frame rate. A sample is good when the network
+ * quality level is four or higher, or unknown, and loss and round trip time are low. The
+ * governor steps down after downgradeSamples consecutive bad samples and up after
+ * upgradeSamples consecutive good samples. An upgrade that is followed by a downgrade within
+ * upgradeSamples doubles the number of good samples the next upgrade requires. The first samples
+ * and the ones right after a change are ignored while the camera starts.
+ *
+ * setLimits caps the ladder independently of the uplink, e.g. while the device is hot. Once the
+ * limits are lifted the capture returns to the step the samples chose.
+ */
+class CaptureGovernor(
+    maxDimensionsIndex: Int,
+    private val downgradeSamples: Int = 2,
+    private val upgradeSamples: Int = 8,
+    private val settleSamples: Int = 2
+) {
+
+    val ladder: List<CaptureLevel> = captureLadder(maxDimensionsIndex)
+    @Volatile var decision = CaptureDecision(ladder.first(), CaptureReason.PREFERENCE, 0,
+            ladder.size)
+        private set
+    /** The step chosen by the samples. */
+    private var step = 0
+    /** The first step within the limits. */
+    private var minStep = 0
+    private val effectiveStep: Int get() = maxOf(step, minStep)
+    private var badSampleCount = 0
+    private var goodSampleCount = 0
+    private var remainingSettleSamples = settleSamples
+    private var samplesSinceUpgrade = Int.MAX_VALUE
+    private var upgradeBackoff = 1
+
+    /*
+     * Returns the level to capture at if it changed.
+     */
+    @Synchronized
+    fun onSample(sample: CaptureSample): CaptureLevel? {
+        if (samplesSinceUpgrade != Int.MAX_VALUE) samplesSinceUpgrade++
+        if (remainingSettleSamples > 0) {
+            remainingSettleSamples--
+            return null
+        }
+        when {
+            isBad(sample) -> {
+                badSampleCount++
+                goodSampleCount = 0
+            }
+            isGood(sample) -> {
+                goodSampleCount++
+                badSampleCount = 0
+            }
+            else -> {
+                badSampleCount = 0
+                goodSampleCount = 0
+            }
+        }
+
+        if (badSampleCount >= downgradeSamples && effectiveStep < ladder.lastIndex) {
+            if (samplesSinceUpgrade <= upgradeSamples) {
+                upgradeBackoff = minOf(upgradeBackoff * 2, MAX_UPGRADE_BACKOFF)
+            }
+            samplesSinceUpgrade = Int.MAX_VALUE
+            step = effectiveStep + 1
+            return onStepChanged(CaptureReason.CONGESTION)
+        }
+        if (goodSampleCount >= upgradeSamples * upgradeBackoff && effectiveStep > minStep) {
+            samplesSinceUpgrade = 0
+            step = effectiveStep - 1
+            return onStepChanged(CaptureReason.RECOVERY)
+        }
+        if (samplesSinceUpgrade != Int.MAX_VALUE && samplesSinceUpgrade > upgradeSamples) {
+            // The last upgrade held, so the next one is probed without backoff
+            upgradeBackoff = 1
+            samplesSinceUpgrade = Int.MAX_VALUE
+        }
+        return null
+    }
+
+    /*
+     * Caps the capture at the first step of the ladder within both limits. Returns the level to
+     * capture at if it changed.
+     */
+    @Synchronized
+    fun setLimits(maxDimensionsIndex: Int, maxFramerate: Int): CaptureLevel? {
+        val previousStep = effectiveStep
+        minStep = ladder.indexOfFirst {
+            it.dimensionsIndex <= maxDimensionsIndex && it.framerate <= maxFramerate
+        }.let { if (it < 0) ladder.lastIndex else it }
+        if (effectiveStep == previousStep) return null
+        return onStepChanged(if (minStep > step) CaptureReason.DEVICE_LIMIT else CaptureReason.RECOVERY)
+    }
+
+    private fun onStepChanged(reason: CaptureReason): CaptureLevel {
+        badSampleCount = 0
+        goodSampleCount = 0
+        remainingSettleSamples = settleSamples
+        val level = ladder[effectiveStep]
+        decision = CaptureDecision(level, reason, effectiveStep, ladder.size)
+        return level
+    }
+
+    private fun isBad(sample: CaptureSample) =
+            sample.networkQualityLevel.let {
+                it == NETWORK_QUALITY_LEVEL_ZERO || it == NETWORK_QUALITY_LEVEL_ONE ||
+                        it == NETWORK_QUALITY_LEVEL_TWO
+            } ||
+                    sample.packetLossPercent >= BAD_PACKET_LOSS_PERCENT ||
+                    sample.roundTripTimeMillis >= BAD_ROUND_TRIP_TIME_MILLIS ||
+                    sample.framerate < ladder[effectiveStep].framerate / 2
+
+    private fun isGood(sample: CaptureSample) =
+            sample.networkQualityLevel.let {
+                it == null || it == NETWORK_QUALITY_LEVEL_UNKNOWN ||
+                        it == NETWORK_QUALITY_LEVEL_FOUR || it == NETWORK_QUALITY_LEVEL_FIVE
+            } &&
+                    sample.packetLossPercent < GOOD_PACKET_LOSS_PERCENT &&
+                    sample.roundTripTimeMillis < GOOD_ROUND_TRIP_TIME_MILLIS
+}
+
+fun captureLadder(maxDimensionsIndex: Int): List<CaptureLevel> {
+    val ladder = mutableListOf<CaptureLevel>()
+    var dimensionsIndex = maxDimensionsIndex
+    var tier = 0
+    ladder.add(CaptureLevel(dimensionsIndex, CAPTURE_FRAME_RATE_TIERS[tier]))
+    while (dimensionsIndex > 0 || tier < CAPTURE_FRAME_RATE_TIERS.lastIndex) {
+        // The frame rate is lowered first and then alternates with the resolution
+        if (tier < CAPTURE_FRAME_RATE_TIERS.lastIndex &&
+                (ladder.size % 2 == 1 || dimensionsIndex == 0)) {
+            tier++
+        } else {
+            dimensionsIndex--
+        }
+        ladder.add(CaptureLevel(dimensionsIndex, CAPTURE_FRAME_RATE_TIERS[tier]))
+    }
+    return ladder
+}
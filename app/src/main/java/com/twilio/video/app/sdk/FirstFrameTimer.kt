@@ -0,0 +1,51 @@
+package com.twilio.video.app.sdk
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import timber.log.Timber
+import tvi.webrtc.VideoFrame
+import tvi.webrtc.VideoSink
+
+private const val NOT_STARTED = Long.MIN_VALUE
+
+enum class CameraStart { COLD, WARM }
+
+/*
+ * Measures the time from a camera start until the first local frame reaches the camera track.
+ * A cold start creates a new capturer and track, a warm start restarts the capture of the track
+ * that was kept across onPause. The sink stays attached to the camera track and only reads an
+ * atomic per frame while no start is being measured.
+ */
+class FirstFrameTimer(
+    private val nanoTime: () -> Long = System::nanoTime
+) : VideoSink {
+
+    private val startNanos = AtomicLong(NOT_STARTED)
+    @Volatile private var cameraStart = CameraStart.COLD
+    @Volatile var lastColdStartMillis: Long? = null
+        private set
+    @Volatile var lastWarmStartMillis: Long? = null
+        private set
+
+    fun start(cameraStart: CameraStart) {
+        this.cameraStart = cameraStart
+        startNanos.set(nanoTime())
+    }
+
+    fun cancel() {
+        startNanos.set(NOT_STARTED)
+    }
+
+    override fun onFrame(frame: VideoFrame) {
+        if (startNanos.get() == NOT_STARTED) return
+        val startNanos = startNanos.getAndSet(NOT_STARTED)
+        if (startNanos == NOT_STARTED) return
+
+        val elapsedMillis = TimeUnit.NANOSECONDS.toMillis(nanoTime() - startNanos)
+        when (cameraStart) {
+            CameraStart.COLD -> lastColdStartMillis = elapsedMillis
+            CameraStart.WARM -> lastWarmStartMillis = elapsedMillis
+        }
+        Timber.d("First local frame after a %s camera start: %d ms", cameraStart, elapsedMillis)
+    }
+}
@@ -0,0 +1,70 @@
+package com.twilio.video.app.sdk
+
+import kotlin.math.abs
+import tvi.webrtc.VideoFrame
+
+private const val DEFAULT_PIXEL_THRESHOLD = 4
+
+/*
+ * Detects frames whose content did not change since the last changed frame by comparing their
+ * luma planes pixel by pixel. A pixel changed if its luma differs by more than pixelThreshold,
+ * which absorbs dithering in the capture pipeline. Changes that only affect chroma are not
+ * detected.
+ */
+class FrameChangeDetector(private val pixelThreshold: Int = DEFAULT_PIXEL_THRESHOLD) {
+
+    private var reference = ByteArray(0)
+    private var referenceWidth = 0
+    private var referenceHeight = 0
+
+    /*
+     * Returns whether the buffer differs from the reference, in which case it becomes the new
+     * reference. The first buffer and buffers of another size are always changed.
+     */
+    fun isChanged(buffer: VideoFrame.I420Buffer): Boolean {
+        val width = buffer.width
+        val height = buffer.height
+        if (width != referenceWidth || height != referenceHeight || !matchesReference(buffer)) {
+            copyReference(buffer)
+            return true
+        }
+        return false
+    }
+
+    fun reset() {
+        reference = ByteArray(0)
+        referenceWidth = 0
+        referenceHeight = 0
+    }
+
+    private fun matchesReference(buffer: VideoFrame.I420Buffer): Boolean {
+        val dataY = buffer.dataY
+        val offset = dataY.position()
+        val stride = buffer.strideY
+        for (row in 0 until referenceHeight) {
+            val rowOffset = offset + row * stride
+            val referenceOffset = row * referenceWidth
+            for (column in 0 until referenceWidth) {
+                val luma = dataY.get(rowOffset + column).toInt() and 0xff
+                val referenceLuma = reference[referenceOffset + column].toInt() and 0xff
+                if (abs(luma - referenceLuma) > pixelThreshold) return false
+            }
+        }
+        return true
+    }
+
+    private fun copyReference(buffer: VideoFrame.I420Buffer) {
+        val width = buffer.width
+        val height = buffer.height
+        if (reference.size != width * height) reference = ByteArray(width * height)
+        referenceWidth = width
+        referenceHeight = height
+        val dataY = buffer.dataY.duplicate()
+        val offset = dataY.position()
+        val stride = buffer.strideY
+        for (row in 0 until height) {
+            dataY.position(offset + row * stride)
+            dataY.get(reference, row * width, width)
+        }
+    }
+}
@@ -7,13 +7,13 @@ import com.twilio.video.LocalAudioTrack
 import com.twilio.video.LocalParticipant
 import com.twilio.video.LocalTrackPublicationOptions
 import com.twilio.video.LocalVideoTrack
+import com.twilio.video.LocalVideoTrackStats
+import com.twilio.video.NetworkQualityLevel
 import com.twilio.video.ScreenCapturer
 import com.twilio.video.TrackPriority
-import com.twilio.video.VideoFormat
 import com.twilio.video.app.R
 import com.twilio.video.app.data.Preferences.VIDEO_CAPTURE_RESOLUTION
 import com.twilio.video.app.data.Preferences.VIDEO_CAPTURE_RESOLUTION_DEFAULT
-import com.twilio.video.app.data.Preferences.VIDEO_DIMENSIONS
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.AudioDisabled
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.AudioEnabled
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.AudioOff
@@ -23,6 +23,7 @@ import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.ScreenCaptur
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoDisabled
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoEnabled
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoTrackUpdated
+import com.twilio.video.app.util.CameraCapabilityCache
 import com.twilio.video.app.util.CameraCapturerCompat
 import com.twilio.video.app.util.get
 import com.twilio.video.ktx.createLocalAudioTrack
@@ -32,7 +33,8 @@ import timber.log.Timber
 class LocalParticipantManager(
     private val context: Context,
     private val roomManager: RoomManager,
-    private val sharedPreferences: SharedPreferences
+    private val sharedPreferences: SharedPreferences,
+    private val cameraCapabilityCache: CameraCapabilityCache = CameraCapabilityCache(context)
 ) {
 
     private var localAudioTrack: LocalAudioTrack? = null
@@ -46,7 +48,15 @@ class LocalParticipantManager(
             field = value
             roomManager.sendRoomEvent(VideoTrackUpdated(value))
         }
-    private var cameraCapturer: CameraCapturerCompat? = null
+    @Volatile private var cameraCapturer: CameraCapturerCompat? = null
+    @Volatile private var captureGovernor: CaptureGovernor? = null
+    @Volatile private var networkQualityLevel: NetworkQualityLevel? = null
+    private var maxCaptureDimensionsIndex = Int.MAX_VALUE
+    private var maxCaptureFramerate = Int.MAX_VALUE
+    private var isCameraTrackPaused = false
+    private var wasCameraTrackEnabled = true
+    private var cameraTrackDimensionsIndex = -1
+    internal val firstFrameTimer = FirstFrameTimer()
     private var screenCapturer: ScreenCapturer? = null
     private val screenCapturerListener: ScreenCapturer.Listener = object : ScreenCapturer.Listener {
         override fun onScreenCaptureError(errorDescription: String) {
@@ -67,11 +77,11 @@ class LocalParticipantManager(
 
     fun onResume() {
         if (!isAudioMuted) setupLocalAudioTrack()
-        if (!isVideoMuted) setupLocalVideoTrack()
+        if (!isVideoMuted && !resumeCameraTrack()) setupLocalVideoTrack()
     }
 
     fun onPause() {
-        removeCameraTrack()
+        pauseCameraTrack()
     }
 
     fun toggleLocalVideo() {
@@ -86,11 +96,13 @@ class LocalParticipantManager(
 
     fun enableLocalVideo() {
         cameraVideoTrack?.enable(true)
+        roomManager.updateCaptureGovernorConsumer()
         roomManager.sendRoomEvent(VideoEnabled)
     }
 
     fun disableLocalVideo() {
         cameraVideoTrack?.enable(false)
+        roomManager.updateCaptureGovernorConsumer()
         roomManager.sendRoomEvent(VideoDisabled)
     }
 
@@ -118,8 +130,10 @@ class LocalParticipantManager(
         screenCapturer = ScreenCapturer(context, captureResultCode, captureIntent,
                 screenCapturerListener)
         screenCapturer?.let { screenCapturer ->
-            screenVideoTrack = createLocalVideoTrack(context, true, screenCapturer,
-                    name = SCREEN_TRACK_NAME)
+            val displayMetrics = context.resources.displayMetrics
+            screenVideoTrack = createLocalVideoTrack(context, true, ScreenShareCapturer(screenCapturer),
+                    screenShareVideoFormat(displayMetrics.widthPixels, displayMetrics.heightPixels),
+                    SCREEN_TRACK_NAME)
             screenVideoTrack?.let { screenVideoTrack ->
                 localVideoTrackNames[screenVideoTrack.name] =
                         context.getString(R.string.screen_video_track)
@@ -134,6 +148,7 @@ class LocalParticipantManager(
             localParticipant?.unpublishTrack(screenVideoTrack)
             screenVideoTrack.release()
             localVideoTrackNames.remove(screenVideoTrack.name)
+            roomManager.trackSidIndex.removeLocalVideoTrack(screenVideoTrack.name)
             this.screenVideoTrack = null
         }
     }
@@ -145,6 +160,56 @@ class LocalParticipantManager(
 
     fun switchCamera() = cameraCapturer?.switchCamera()
 
+    /** Whether the camera track is enabled and the camera is capturing. */
+    val isCameraTrackCapturing: Boolean
+        get() = cameraCapturer?.isCapturing == true && cameraVideoTrack?.isEnabled == true
+
+    /** The capture format the governor chose for the camera track, if there is one. */
+    val captureDecision: CaptureDecision? get() = captureGovernor?.decision
+
+    /*
+     * Caps the camera capture format, e.g. while the device is hot, and restarts the capture if
+     * the current format exceeds the caps.
+     */
+    fun setCaptureLimits(maxDimensionsIndex: Int, maxFramerate: Int) {
+        maxCaptureDimensionsIndex = maxDimensionsIndex
+        maxCaptureFramerate = maxFramerate
+        captureGovernor?.setLimits(maxDimensionsIndex, maxFramerate)?.let { level ->
+            Timber.d("Limiting the camera capture format to %s", level)
+            cameraCapturer?.changeCaptureFormat(level.toVideoFormat())
+        }
+    }
+
+    fun onNetworkQualityLevelChanged(networkQualityLevel: NetworkQualityLevel) {
+        this.networkQualityLevel = networkQualityLevel
+    }
+
+    /*
+     * Feeds a stats interval of the camera track to the capture governor and restarts the capture
+     * if it chose another format. Called on the stats thread.
+     */
+    fun onCameraTrackStats(localVideoTrackStats: LocalVideoTrackStats, trackRates: TrackRates?) {
+        val captureGovernor = captureGovernor ?: return
+        val cameraCapturer = cameraCapturer ?: return
+        if (!cameraCapturer.isCapturing || cameraVideoTrack?.isEnabled != true) return
+
+        val sample = CaptureSample(localVideoTrackStats.frameRate,
+                localVideoTrackStats.roundTripTime, trackRates?.packetLossPercent ?: 0f,
+                networkQualityLevel)
+        captureGovernor.onSample(sample)?.let { level ->
+            Timber.d("Changing the camera capture format to %s", level)
+            cameraCapturer.changeCaptureFormat(level.toVideoFormat())
+        }
+    }
+
+    /*
+     * Reads or queries the camera capabilities so that creating the camera track does not have
+     * to. Blocks, call it off the main thread.
+     */
+    fun loadCameraCapabilities() {
+        cameraCapabilityCache.load()
+    }
+
     private fun setupLocalAudioTrack() {
         if (localAudioTrack == null && !isAudioMuted) {
             localAudioTrack = createLocalAudioTrack(context, true, MICROPHONE_TRACK_NAME)
@@ -175,11 +240,17 @@ class LocalParticipantManager(
             localAudioTrack?.let { localParticipant?.unpublishTrack(it) }
 
     private fun setupLocalVideoTrack() {
-        val dimensionsIndex = sharedPreferences.get(VIDEO_CAPTURE_RESOLUTION,
-                VIDEO_CAPTURE_RESOLUTION_DEFAULT).toInt()
-        val videoFormat = VideoFormat(VIDEO_DIMENSIONS[dimensionsIndex], 30)
+        val dimensionsIndex = getDimensionsIndex()
+        cameraTrackDimensionsIndex = dimensionsIndex
+        val captureGovernor = CaptureGovernor(dimensionsIndex).apply {
+            setLimits(maxCaptureDimensionsIndex, maxCaptureFramerate)
+        }
+        val videoFormat = captureGovernor.decision.level.toVideoFormat()
 
-        cameraCapturer = CameraCapturerCompat.newInstance(context)
+        // The capturer is kept for the lifetime of this manager so the cameras are only enumerated once
+        val cameraCapturer = cameraCapturer ?: CameraCapturerCompat.newInstance(context, cameraCapabilityCache)
+        this.cameraCapturer = cameraCapturer
+        firstFrameTimer.start(CameraStart.COLD)
         cameraVideoTrack = cameraCapturer?.let { cameraCapturer ->
             LocalVideoTrack.create(
                     context,
@@ -189,19 +260,74 @@ class LocalParticipantManager(
                     CAMERA_TRACK_NAME)
         }
         cameraVideoTrack?.let { cameraVideoTrack ->
+            this.captureGovernor = captureGovernor
+            cameraVideoTrack.addSink(firstFrameTimer)
             localVideoTrackNames[cameraVideoTrack.name] = context.getString(R.string.camera_video_track)
             publishCameraTrack(cameraVideoTrack)
         } ?: run {
+            firstFrameTimer.cancel()
             Timber.e(RuntimeException(), "Failed to create the local camera video track")
         }
     }
 
+    /*
+     * Keeps the camera track published but disabled while the activity is paused, and only closes
+     * the camera. Resuming then restarts the capture and re-enables the track instead of creating
+     * and republishing a new one.
+     */
+    private fun pauseCameraTrack() {
+        val cameraVideoTrack = cameraVideoTrack ?: return
+        val cameraCapturer = cameraCapturer
+        if (cameraCapturer == null || !cameraCapturer.isCapturing) {
+            removeCameraTrack()
+            return
+        }
+        wasCameraTrackEnabled = cameraVideoTrack.isEnabled
+        cameraVideoTrack.enable(false)
+        cameraCapturer.pauseCapture()
+        isCameraTrackPaused = true
+        roomManager.updateCaptureGovernorConsumer()
+    }
+
+    /*
+     * Returns false if there is no paused camera track to resume. A paused track that no longer
+     * matches the capture resolution preference is removed so that it is created again.
+     */
+    private fun resumeCameraTrack(): Boolean {
+        if (!isCameraTrackPaused) return false
+        isCameraTrackPaused = false
+        val cameraVideoTrack = cameraVideoTrack ?: return false
+        val cameraCapturer = cameraCapturer
+        if (cameraCapturer == null || cameraTrackDimensionsIndex != getDimensionsIndex()) {
+            removeCameraTrack()
+            return false
+        }
+
+        firstFrameTimer.start(CameraStart.WARM)
+        if (!cameraCapturer.resumeCapture()) {
+            firstFrameTimer.cancel()
+            removeCameraTrack()
+            return false
+        }
+        cameraVideoTrack.enable(wasCameraTrackEnabled)
+        roomManager.updateCaptureGovernorConsumer()
+        return true
+    }
+
+    private fun getDimensionsIndex() = sharedPreferences.get(VIDEO_CAPTURE_RESOLUTION,
+            VIDEO_CAPTURE_RESOLUTION_DEFAULT).toInt()
+
     private fun removeCameraTrack() {
+        isCameraTrackPaused = false
+        captureGovernor = null
         cameraVideoTrack?.let { cameraVideoTrack ->
+            cameraVideoTrack.removeSink(firstFrameTimer)
             unpublishTrack(cameraVideoTrack)
             localVideoTrackNames.remove(cameraVideoTrack.name)
+            roomManager.trackSidIndex.removeLocalVideoTrack(cameraVideoTrack.name)
             cameraVideoTrack.release()
             this.cameraVideoTrack = null
+            roomManager.updateCaptureGovernorConsumer()
         }
     }
 
@@ -0,0 +1,148 @@
+package com.twilio.video.app.sdk
+
+import android.os.PowerManager.THERMAL_STATUS_CRITICAL
+import android.os.PowerManager.THERMAL_STATUS_LIGHT
+import android.os.PowerManager.THERMAL_STATUS_MODERATE
+import android.os.PowerManager.THERMAL_STATUS_SEVERE
+import com.twilio.video.app.ui.room.DelayScheduler
+import com.twilio.video.app.ui.room.THUMBNAIL_MAX_FRAMES_PER_SECOND
+import java.util.concurrent.TimeUnit
+import timber.log.Timber
+
+private const val NO_BATTERY_LIMIT = -1
+private val DEFAULT_COOL_DOWN_MILLIS = TimeUnit.SECONDS.toMillis(60)
+
+/*
+ * The thermal status is one of the PowerManager.THERMAL_STATUS_* constants.
+ */
+data class DeviceCondition(
+    val thermalStatus: Int,
+    val batteryPercent: Int,
+    val isCharging: Boolean
+)
+
+/*
+ * Caps on the media work of a call. A null maxRemoteVideoTracks leaves the remote video tracks to
+ * the bandwidth profile.
+ */
+data class MediaBudget(
+    val maxCaptureDimensionsIndex: Int = Int.MAX_VALUE,
+    val maxCaptureFramerate: Int = Int.MAX_VALUE,
+    val maxThumbnailFramesPerSecond: Int = THUMBNAIL_MAX_FRAMES_PER_SECOND,
+    val maxRemoteVideoTracks: Int? = null
+) {
+    companion object {
+        val UNRESTRICTED = MediaBudget()
+    }
+}
+
+/*
+ * A rule applies once the thermal status reaches minThermalStatus, or once the battery is not
+ * charging and at or below maxBatteryPercent.
+ */
+data class MediaBudgetRule(
+    val minThermalStatus: Int,
+    val maxBatteryPercent: Int,
+    val budget: MediaBudget
+) {
+    fun matches(condition: DeviceCondition) = condition.thermalStatus >= minThermalStatus ||
+            (!condition.isCharging && condition.batteryPercent in 0..maxBatteryPercent)
+}
+
+/*
+ * Rules from the most to the least restrictive. The first rule that matches the device condition
+ * sets the budget.
+ */
+val MEDIA_BUDGET_TABLE = listOf(
+        MediaBudgetRule(THERMAL_STATUS_CRITICAL, 5, MediaBudget(
+                maxCaptureDimensionsIndex = 0,
+                maxCaptureFramerate = 15,
+                maxThumbnailFramesPerSecond = 5,
+                maxRemoteVideoTracks = 1)),
+        MediaBudgetRule(THERMAL_STATUS_SEVERE, 10, MediaBudget(
+                maxCaptureDimensionsIndex = 1,
+                maxCaptureFramerate = 15,
+                maxThumbnailFramesPerSecond = 8,
+                maxRemoteVideoTracks = 2)),
+        MediaBudgetRule(THERMAL_STATUS_MODERATE, 20, MediaBudget(
+                maxCaptureFramerate = 24,
+                maxThumbnailFramesPerSecond = 10)),
+        MediaBudgetRule(THERMAL_STATUS_LIGHT, NO_BATTERY_LIMIT, MediaBudget(
+                maxThumbnailFramesPerSecond = 10)))
+
+/*
+ * Applies the budget of the device condition reported by the thermal source. A more restrictive
+ * budget applies right away. A less restrictive one only applies once the device condition
+ * stayed below the current rule for coolDownMillis, so a device that hovers around a thermal
+ * threshold does not toggle its media quality. Runs on the main thread.
+ */
+class MediaGovernor(
+    private val thermalSource: ThermalSource,
+    private val delayScheduler: DelayScheduler,
+    private val table: List<MediaBudgetRule> = MEDIA_BUDGET_TABLE,
+    private val coolDownMillis: Long = DEFAULT_COOL_DOWN_MILLIS,
+    private val onBudgetChanged: (MediaBudget) -> Unit
+) {
+
+    /** Index of the rule in the table, or the table size while no rule applies. */
+    private var ruleIndex = table.size
+    private var condition: DeviceCondition? = null
+    private var isCoolingDown = false
+    private val coolDown = Runnable {
+        isCoolingDown = false
+        condition?.let { condition ->
+            val targetIndex = ruleIndexFor(condition)
+            if (targetIndex > ruleIndex) applyRule(targetIndex)
+        }
+    }
+
+    val budget: MediaBudget get() = table.getOrNull(ruleIndex)?.budget ?: MediaBudget.UNRESTRICTED
+
+    fun start() {
+        thermalSource.start { onDeviceCondition(it) }
+    }
+
+    /*
+     * Stops observing the device and restores the unrestricted budget.
+     */
+    fun stop() {
+        thermalSource.stop()
+        cancelCoolDown()
+        condition = null
+        if (ruleIndex != table.size) applyRule(table.size)
+    }
+
+    fun onDeviceCondition(condition: DeviceCondition) {
+        this.condition = condition
+        val targetIndex = ruleIndexFor(condition)
+        when {
+            targetIndex < ruleIndex -> {
+                cancelCoolDown()
+                applyRule(targetIndex)
+            }
+            targetIndex > ruleIndex -> {
+                if (!isCoolingDown) {
+                    isCoolingDown = true
+                    delayScheduler.postDelayed(coolDown, coolDownMillis)
+                }
+            }
+            else -> cancelCoolDown()
+        }
+    }
+
+    private fun ruleIndexFor(condition: DeviceCondition) =
+            table.indexOfFirst { it.matches(condition) }.let { if (it < 0) table.size else it }
+
+    private fun applyRule(ruleIndex: Int) {
+        this.ruleIndex = ruleIndex
+        Timber.i("Media budget changed to %s for %s", budget, condition)
+        onBudgetChanged(budget)
+    }
+
+    private fun cancelCoolDown() {
+        if (isCoolingDown) {
+            isCoolingDown = false
+            delayScheduler.removeCallbacks(coolDown)
+        }
+    }
+}
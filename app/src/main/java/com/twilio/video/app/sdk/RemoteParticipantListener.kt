@@ -38,6 +38,8 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteVideoTrack subscribed for RemoteParticipant sid: %s, RemoteVideoTrack sid: %s",
                 remoteParticipant.sid, remoteVideoTrack.sid)
 
+        roomManager.trackSidIndex.addRemoteTrack(remoteParticipant,
+                remoteVideoTrackPublication.trackSid, isAudioTrack = false)
         if (remoteVideoTrack.name.contains(SCREEN_TRACK_NAME))
             roomManager.sendRoomEvent(ScreenTrackUpdated(remoteParticipant.sid, remoteVideoTrack))
         else
@@ -48,6 +50,8 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteVideoTrack unsubscribed for RemoteParticipant sid: %s, RemoteVideoTrack sid: %s",
                 remoteParticipant.sid, remoteVideoTrack.sid)
 
+        roomManager.trackSidIndex.removeRemoteTrack(remoteParticipant,
+                remoteVideoTrackPublication.trackSid)
         if (remoteVideoTrack.name.contains(SCREEN_TRACK_NAME))
             roomManager.sendRoomEvent(ScreenTrackUpdated(remoteParticipant.sid, null))
         else
@@ -66,6 +70,8 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteParticipant AudioTrack subscribed for RemoteParticipant sid: %s, RemoteAudioTrack sid: %s",
                 remoteParticipant.sid, remoteAudioTrack.sid)
 
+        roomManager.trackSidIndex.addRemoteTrack(remoteParticipant,
+                remoteAudioTrackPublication.trackSid, isAudioTrack = true)
         roomManager.sendRoomEvent(MuteRemoteParticipant(remoteParticipant.sid, false))
     }
 
@@ -73,6 +79,8 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
         Timber.i("RemoteParticipant AudioTrack unsubscribed for RemoteParticipant sid: %s, RemoteAudioTrack sid: %s",
                 remoteParticipant.sid, remoteAudioTrack.sid)
 
+        roomManager.trackSidIndex.removeRemoteTrack(remoteParticipant,
+                remoteAudioTrackPublication.trackSid)
         roomManager.sendRoomEvent(MuteRemoteParticipant(remoteParticipant.sid, true))
     }
 
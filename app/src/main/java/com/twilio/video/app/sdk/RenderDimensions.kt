@@ -0,0 +1,48 @@
+package com.twilio.video.app.sdk
+
+import android.content.SharedPreferences
+import com.twilio.video.TrackPriority
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.data.Preferences
+import com.twilio.video.app.util.get
+
+/*
+ * Reads the bandwidth profile render dimensions of every track priority from the preferences.
+ * Priorities that use the server default are left out of the returned map.
+ */
+fun SharedPreferences.getRenderDimensions(): Map<TrackPriority, VideoDimensions> {
+    val renderDimensions = mutableMapOf<TrackPriority, VideoDimensions>()
+    setTrackPriorityRenderDimensions(renderDimensions,
+            TrackPriority.LOW,
+            Preferences.BANDWIDTH_PROFILE_LOW_TRACK_PRIORITY_RENDER_DIMENSIONS,
+            Preferences.BANDWIDTH_PROFILE_LOW_TRACK_PRIORITY_RENDER_DIMENSIONS_DEFAULT)
+    setTrackPriorityRenderDimensions(renderDimensions,
+            TrackPriority.STANDARD,
+            Preferences.BANDWIDTH_PROFILE_STANDARD_TRACK_PRIORITY_RENDER_DIMENSIONS,
+            Preferences.BANDWIDTH_PROFILE_STANDARD_TRACK_PRIORITY_RENDER_DIMENSIONS_DEFAULT)
+    setTrackPriorityRenderDimensions(renderDimensions,
+            TrackPriority.HIGH,
+            Preferences.BANDWIDTH_PROFILE_HIGH_TRACK_PRIORITY_RENDER_DIMENSIONS,
+            Preferences.BANDWIDTH_PROFILE_HIGH_TRACK_PRIORITY_RENDER_DIMENSIONS_DEFAULT)
+    return renderDimensions
+}
+
+/*
+ * Utility method that extracts the VideoDimensions from a preference string in the format
+ * NxN. The resolution will be extracted and set to the render dimensions of the specified
+ * track priority. If the preference value does match the NxN format, then no render
+ * dimenions will be set for the track priority.
+ */
+private fun SharedPreferences.setTrackPriorityRenderDimensions(
+    renderDimensions: MutableMap<TrackPriority, VideoDimensions>,
+    trackPriority: TrackPriority,
+    preferenceKey: String,
+    preferenceDefaultValue: String
+) {
+    get(preferenceKey, preferenceDefaultValue).let {
+        Regex("(\\d+)x(\\d+)").find(it)?.let { match ->
+            val (width, height) = match.destructured
+            renderDimensions[trackPriority] = VideoDimensions(width.toInt(), height.toInt())
+        }
+    }
+}
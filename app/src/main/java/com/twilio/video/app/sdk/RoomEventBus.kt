@@ -0,0 +1,96 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.ui.room.RoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.DominantSpeakerChanged
+import com.twilio.video.app.ui.room.RoomEvent.MediaBudgetChanged
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import java.util.ArrayDeque
+import kotlinx.coroutines.channels.Channel
+
+/*
+ * Single ordered queue between the SDK callbacks and the RoomViewModel. Events are enqueued
+ * without launching a coroutine and are received in the order they were sent. High frequency
+ * events where only the latest value matters are conflated: a newer event replaces the pending
+ * one with the same conflation key and takes its place at the tail of the queue, so it is still
+ * delivered after any lifecycle event that was sent before it.
+ */
+class RoomEventBus {
+
+    private val lock = Any()
+    private val queue = ArrayDeque<Slot>()
+    private val pendingConflatedSlots = HashMap<String, Slot>()
+    private val signal = Channel<Unit>(Channel.CONFLATED)
+
+    private var mutableQueueDepth = 0
+    private var mutableMaxQueueDepth = 0
+    private var mutableSentCount = 0L
+    private var mutableDroppedCount = 0L
+
+    /** Number of events waiting to be received. */
+    val queueDepth: Int get() = synchronized(lock) { mutableQueueDepth }
+
+    /** Highest number of events that have been waiting at the same time. */
+    val maxQueueDepth: Int get() = synchronized(lock) { mutableMaxQueueDepth }
+
+    /** Total number of events sent to the bus. */
+    val sentCount: Long get() = synchronized(lock) { mutableSentCount }
+
+    /** Number of events that were superseded by a newer conflated event before being received. */
+    val droppedCount: Long get() = synchronized(lock) { mutableDroppedCount }
+
+    fun send(roomEvent: RoomEvent) {
+        synchronized(lock) {
+            mutableSentCount++
+            val slot = Slot(roomEvent)
+            conflationKey(roomEvent)?.let { key ->
+                pendingConflatedSlots.put(key, slot)?.let { supersededSlot ->
+                    supersededSlot.roomEvent = null
+                    mutableQueueDepth--
+                    mutableDroppedCount++
+                }
+                slot.key = key
+            }
+            queue.addLast(slot)
+            mutableQueueDepth++
+            if (mutableQueueDepth > mutableMaxQueueDepth) mutableMaxQueueDepth = mutableQueueDepth
+        }
+        signal.offer(Unit)
+    }
+
+    suspend fun receive(): RoomEvent {
+        while (true) {
+            poll()?.let { return it }
+            signal.receive()
+        }
+    }
+
+    fun poll(): RoomEvent? =
+            synchronized(lock) {
+                var slot = queue.pollFirst()
+                // Skip the slots of events that were superseded by a newer conflated event
+                while (slot != null && slot.roomEvent == null) slot = queue.pollFirst()
+                slot?.let {
+                    it.key?.let { key -> pendingConflatedSlots.remove(key) }
+                    mutableQueueDepth--
+                    it.roomEvent
+                }
+            }
+
+    private fun conflationKey(roomEvent: RoomEvent): String? =
+            when (roomEvent) {
+                is NetworkQualityLevelChange -> "$NETWORK_QUALITY_KEY_PREFIX${roomEvent.sid}"
+                is DominantSpeakerChanged -> DOMINANT_SPEAKER_KEY
+                is MediaBudgetChanged -> MEDIA_BUDGET_KEY
+                else -> null
+            }
+
+    private class Slot(var roomEvent: RoomEvent?) {
+        var key: String? = null
+    }
+
+    private companion object {
+        const val NETWORK_QUALITY_KEY_PREFIX = "network_quality:"
+        const val DOMINANT_SPEAKER_KEY = "dominant_speaker"
+        const val MEDIA_BUDGET_KEY = "media_budget"
+    }
+}
@@ -3,16 +3,22 @@ package com.twilio.video.app.sdk
 import android.content.Context
 import android.content.Intent
 import android.content.SharedPreferences
+import android.os.SystemClock
 import androidx.annotation.VisibleForTesting
 import androidx.annotation.VisibleForTesting.PRIVATE
+import com.twilio.video.LocalParticipant
+import com.twilio.video.LocalVideoTrackPublication
+import com.twilio.video.NetworkQualityLevel
 import com.twilio.video.Participant
 import com.twilio.video.RemoteParticipant
 import com.twilio.video.Room
 import com.twilio.video.StatsReport
 import com.twilio.video.TwilioException
 import com.twilio.video.TwilioException.ROOM_MAX_PARTICIPANTS_EXCEEDED_EXCEPTION
+import com.twilio.video.app.data.Preferences
 import com.twilio.video.app.data.api.AuthServiceError
 import com.twilio.video.app.data.api.AuthServiceException
+import com.twilio.video.app.ui.room.HandlerDelayScheduler
 import com.twilio.video.app.ui.room.RoomEvent
 import com.twilio.video.app.ui.room.RoomEvent.ConnectFailure
 import com.twilio.video.app.ui.room.RoomEvent.Connected
@@ -20,52 +26,63 @@ import com.twilio.video.app.ui.room.RoomEvent.Connecting
 import com.twilio.video.app.ui.room.RoomEvent.Disconnected
 import com.twilio.video.app.ui.room.RoomEvent.DominantSpeakerChanged
 import com.twilio.video.app.ui.room.RoomEvent.MaxParticipantFailure
+import com.twilio.video.app.ui.room.RoomEvent.MediaBudgetChanged
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStopped
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantConnected
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantDisconnected
-import com.twilio.video.app.ui.room.RoomEvent.StatsUpdate
 import com.twilio.video.app.ui.room.VideoService.Companion.startService
 import com.twilio.video.app.ui.room.VideoService.Companion.stopService
+import java.util.concurrent.ConcurrentHashMap
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.channels.Channel
-import kotlinx.coroutines.channels.ReceiveChannel
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.launch
 import timber.log.Timber
 
 const val MICROPHONE_TRACK_NAME = "microphone"
 const val CAMERA_TRACK_NAME = "camera"
 const val SCREEN_TRACK_NAME = "screen"
+private const val STATS_RECORDER_CONSUMER = "stats_recorder"
+private const val CAPTURE_GOVERNOR_CONSUMER = "capture_governor"
 
 class RoomManager(
     private val context: Context,
     private val videoClient: VideoClient,
-    sharedPreferences: SharedPreferences,
-    coroutineDispatcher: CoroutineDispatcher = Dispatchers.IO
+    private val sharedPreferences: SharedPreferences,
+    coroutineDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    statsTimer: StatsTimer = HandlerThreadStatsTimer()
 ) {
 
-    private var statsScheduler: StatsScheduler? = null
+    @VisibleForTesting(otherwise = PRIVATE)
+    internal val statsScheduler = StatsScheduler({ sendStatsUpdate(it) }, statsTimer = statsTimer)
+    private val statsTimeSeriesStore = StatsTimeSeriesStore()
+    @Volatile private var statsRecorder: StatsRecorder? = null
+    private val statsListeners = ConcurrentHashMap<String, (RoomStats) -> Unit>()
     private val roomListener = RoomListener()
     @VisibleForTesting(otherwise = PRIVATE)
     internal var roomScope = CoroutineScope(coroutineDispatcher)
-    /*
-     * TODO Use SharedFlow instead once it becomes stable for automatic cancellation
-     */
-    private val roomChannel: Channel<RoomEvent> = Channel(Channel.BUFFERED)
-    val roomReceiveChannel: ReceiveChannel<RoomEvent> = roomChannel
+    val roomEventBus = RoomEventBus()
+    val trackSidIndex = TrackSidIndex()
     @VisibleForTesting(otherwise = PRIVATE)
     internal var localParticipantManager: LocalParticipantManager =
             LocalParticipantManager(context, this, sharedPreferences)
     var room: Room? = null
+    private val mediaGovernor by lazy {
+        MediaGovernor(PowerManagerThermalSource(context), HandlerDelayScheduler()) {
+            onMediaBudgetChanged(it)
+        }
+    }
 
     fun disconnect() {
         room?.disconnect()
     }
 
     suspend fun connect(identity: String, roomName: String) {
-        sendToChannel(Connecting)
+        sendRoomEvent(Connecting)
         connectToRoom(identity, roomName)
     }
 
@@ -81,20 +98,20 @@ class RoomManager(
         }
     }
 
-    private fun sendToChannel(roomEvent: RoomEvent) {
-        roomScope.launch { roomChannel.send(roomEvent) }
-    }
-
     fun sendRoomEvent(roomEvent: RoomEvent) {
-        sendToChannel(roomEvent)
+        roomEventBus.send(roomEvent)
     }
 
     private fun handleTokenException(e: Exception, error: AuthServiceError? = null): Room? {
         Timber.e(e, "Failed to retrieve token")
-        sendToChannel(RoomEvent.TokenError(serviceError = error))
+        sendRoomEvent(RoomEvent.TokenError(serviceError = error))
         return null
     }
 
+    fun prefetchCameraCapabilities() {
+        roomScope.launch { localParticipantManager.loadCameraCapabilities() }
+    }
+
     fun onResume() {
         localParticipantManager.onResume()
     }
@@ -121,14 +138,85 @@ class RoomManager(
 
     fun switchCamera() = localParticipantManager.switchCamera()
 
+    fun addStatsConsumer(consumer: String) = statsScheduler.addConsumer(consumer)
+
+    fun removeStatsConsumer(consumer: String) = statsScheduler.removeConsumer(consumer)
+
+    /*
+     * Stats of the connected room, polled while the flow is collected. The stats are emitted on
+     * the thread of the collector and a collector that is slower than the polling interval only
+     * receives the latest stats.
+     */
+    fun roomStats(consumer: String): Flow<RoomStats> = flow {
+        val channel = Channel<RoomStats>(Channel.CONFLATED)
+        statsListeners[consumer] = { channel.offer(it) }
+        statsScheduler.addConsumer(consumer)
+        try {
+            for (roomStats in channel) emit(roomStats)
+        } finally {
+            statsScheduler.removeConsumer(consumer)
+            statsListeners.remove(consumer)
+        }
+    }
+
     fun sendStatsUpdate(statsReports: List<StatsReport>) {
         room?.let { room ->
-            val roomStats = RoomStats(
-                    room.remoteParticipants,
-                    localParticipantManager.localVideoTrackNames,
-                    statsReports
-            )
-            sendRoomEvent(StatsUpdate(roomStats))
+            val timestampMillis = SystemClock.elapsedRealtime()
+            statsRecorder?.record(statsReports, timestampMillis)
+            val trackRates = statsTimeSeriesStore.record(statsReports, timestampMillis)
+            val captureDecisions = updateCaptureGovernor(statsReports, trackRates)
+            if (statsListeners.isNotEmpty()) {
+                val roomStats = RoomStats(trackSidIndex, statsReports, trackRates, captureDecisions)
+                statsListeners.values.forEach { it(roomStats) }
+            }
+        }
+    }
+
+    private fun onMediaBudgetChanged(mediaBudget: MediaBudget) {
+        localParticipantManager.setCaptureLimits(mediaBudget.maxCaptureDimensionsIndex,
+                mediaBudget.maxCaptureFramerate)
+        sendRoomEvent(MediaBudgetChanged(mediaBudget))
+    }
+
+    fun onLocalNetworkQualityLevelChanged(networkQualityLevel: NetworkQualityLevel) {
+        localParticipantManager.onNetworkQualityLevelChanged(networkQualityLevel)
+    }
+
+    private fun updateCaptureGovernor(
+        statsReports: List<StatsReport>,
+        trackRates: Map<String, TrackRates>
+    ): Map<String, CaptureDecision> {
+        val cameraTrackSid = trackSidIndex.localTrackSid(CAMERA_TRACK_NAME) ?: return emptyMap()
+        val cameraTrackStats = statsReports.asSequence()
+                .flatMap { it.localVideoTrackStats.asSequence() }
+                .find { it.trackSid == cameraTrackSid } ?: return emptyMap()
+        localParticipantManager.onCameraTrackStats(cameraTrackStats, trackRates[cameraTrackSid])
+        return localParticipantManager.captureDecision?.let { mapOf(cameraTrackSid to it) }
+                ?: emptyMap()
+    }
+
+    fun onLocalVideoTrackPublished(
+        localParticipant: LocalParticipant,
+        localVideoTrackPublication: LocalVideoTrackPublication
+    ) {
+        val trackName = localVideoTrackPublication.localVideoTrack.name
+        localParticipantManager.localVideoTrackNames[trackName]?.let { label ->
+            trackSidIndex.addLocalVideoTrack(localParticipant.sid,
+                    localVideoTrackPublication.trackSid, trackName, label)
+        }
+        if (trackName == CAMERA_TRACK_NAME) updateCaptureGovernorConsumer()
+    }
+
+    /*
+     * The capture governor only needs stats while the camera track is published and capturing,
+     * so it does not keep polling alive while the camera is off or the app is in the background.
+     */
+    fun updateCaptureGovernorConsumer() {
+        if (trackSidIndex.localTrackSid(CAMERA_TRACK_NAME) != null &&
+                localParticipantManager.isCameraTrackCapturing) {
+            statsScheduler.addConsumer(CAPTURE_GOVERNOR_CONSUMER)
+        } else {
+            statsScheduler.removeConsumer(CAPTURE_GOVERNOR_CONSUMER)
         }
     }
 
@@ -149,7 +237,9 @@ class RoomManager(
 
             setupParticipants(room)
 
-            statsScheduler = StatsScheduler(this@RoomManager, room).apply { start() }
+            startStatsRecorder()
+            statsScheduler.attach(room)
+            mediaGovernor.start()
         }
 
         override fun onDisconnected(room: Room, twilioException: TwilioException?) {
@@ -158,12 +248,16 @@ class RoomManager(
 
             stopService(context)
 
-            sendToChannel(Disconnected)
+            sendRoomEvent(Disconnected)
 
             localParticipantManager.localParticipant = null
+            trackSidIndex.clear()
 
-            statsScheduler?.stop()
-            statsScheduler = null
+            mediaGovernor.stop()
+            statsScheduler.removeConsumer(CAPTURE_GOVERNOR_CONSUMER)
+            statsScheduler.detach()
+            statsTimeSeriesStore.clear()
+            stopStatsRecorder()
         }
 
         override fun onConnectFailure(room: Room, twilioException: TwilioException) {
@@ -186,6 +280,7 @@ class RoomManager(
                     room.sid, remoteParticipant.sid)
 
             remoteParticipant.setListener(RemoteParticipantListener(this@RoomManager))
+            trackSidIndex.addRemoteParticipant(remoteParticipant)
             sendRoomEvent(RemoteParticipantConnected(remoteParticipant))
         }
 
@@ -193,6 +288,7 @@ class RoomManager(
             Timber.i("RemoteParticipant disconnected -> room sid: %s, remoteParticipant: %s",
                     room.sid, remoteParticipant.sid)
 
+            trackSidIndex.removeRemoteParticipant(remoteParticipant.sid)
             sendRoomEvent(RemoteParticipantDisconnected(remoteParticipant.sid))
         }
 
@@ -200,12 +296,12 @@ class RoomManager(
             Timber.i("DominantSpeakerChanged -> room sid: %s, remoteParticipant: %s",
                     room.sid, remoteParticipant?.sid)
 
-            sendToChannel(DominantSpeakerChanged(remoteParticipant?.sid))
+            sendRoomEvent(DominantSpeakerChanged(remoteParticipant?.sid))
         }
 
-        override fun onRecordingStarted(room: Room) = sendToChannel(RecordingStarted)
+        override fun onRecordingStarted(room: Room) = sendRoomEvent(RecordingStarted)
 
-        override fun onRecordingStopped(room: Room) = sendToChannel(RecordingStopped)
+        override fun onRecordingStopped(room: Room) = sendRoomEvent(RecordingStopped)
 
         override fun onReconnected(room: Room) {
             Timber.i("onReconnected: %s", room.name)
@@ -215,6 +311,22 @@ class RoomManager(
             Timber.i("onReconnecting: %s", room.name)
         }
 
+        private fun startStatsRecorder() {
+            if (sharedPreferences.getBoolean(Preferences.RECORD_CALL_STATS,
+                            Preferences.RECORD_CALL_STATS_DEFAULT)) {
+                statsRecorder = StatsRecorder(StatsRecording.file(context)).apply { start() }
+                statsScheduler.addConsumer(STATS_RECORDER_CONSUMER)
+            }
+        }
+
+        private fun stopStatsRecorder() {
+            statsRecorder?.let { statsRecorder ->
+                statsScheduler.removeConsumer(STATS_RECORDER_CONSUMER)
+                statsRecorder.stop()
+                this@RoomManager.statsRecorder = null
+            }
+        }
+
         private fun setupParticipants(room: Room) {
             room.localParticipant?.let { localParticipant ->
                 localParticipantManager.localParticipant = localParticipant
@@ -224,10 +336,11 @@ class RoomManager(
 
                 room.remoteParticipants.forEach {
                     it.setListener(RemoteParticipantListener(this@RoomManager))
+                    trackSidIndex.addRemoteParticipant(it)
                     participants.add(it)
                 }
 
-                sendToChannel(Connected(participants, room, room.name))
+                sendRoomEvent(Connected(participants, room, room.name))
                 localParticipantManager.publishLocalTracks()
             }
         }
@@ -0,0 +1,227 @@
+package com.twilio.video.app.sdk
+
+import android.content.Context
+import com.twilio.video.VideoCapturer
+import com.twilio.video.VideoDimensions
+import com.twilio.video.VideoFormat
+import com.twilio.video.app.ui.room.DelayScheduler
+import com.twilio.video.app.ui.room.HandlerDelayScheduler
+import java.util.concurrent.TimeUnit
+import kotlin.math.ceil
+import timber.log.Timber
+import tvi.webrtc.CapturerObserver
+import tvi.webrtc.SurfaceTextureHelper
+import tvi.webrtc.VideoFrame
+
+const val SCREEN_SHARE_STATIC_FRAMES_PER_SECOND = 5
+const val SCREEN_SHARE_MOTION_FRAMES_PER_SECOND = 15
+private const val SCREEN_SHARE_MAX_DIMENSION = 1920
+private const val ANALYSIS_MAX_WIDTH = 640
+private const val NO_FRAME = Long.MIN_VALUE
+private val NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1)
+private const val DEFAULT_MOTION_WINDOW_MILLIS = 500L
+private const val DEFAULT_MOTION_BOOST_MILLIS = 2000L
+private const val DEFAULT_REFRESH_INTERVAL_MILLIS = 1000L
+
+/*
+ * Captures the screen at its own resolution, scaled down to at most SCREEN_SHARE_MAX_DIMENSION
+ * on the longer side, and at the motion frame rate. ScreenShareFrameFilter lowers the frame rate
+ * while the screen does not move.
+ */
+fun screenShareVideoFormat(screenWidth: Int, screenHeight: Int): VideoFormat {
+    val scale = maxOf(1.0, maxOf(screenWidth, screenHeight) / SCREEN_SHARE_MAX_DIMENSION.toDouble())
+    // Encoders require even dimensions
+    val width = (screenWidth / scale).toInt() and 1.inv()
+    val height = (screenHeight / scale).toInt() and 1.inv()
+    return VideoFormat(VideoDimensions(width, height), SCREEN_SHARE_MOTION_FRAMES_PER_SECOND)
+}
+
+/*
+ * Wraps a screen capturer so that its frames pass through a ScreenShareFrameFilter before they
+ * reach the video source. The filter runs on the thread of the SurfaceTextureHelper that
+ * delivers the frames and asks it to deliver the current screen again when a frame was held
+ * back.
+ */
+class ScreenShareCapturer(private val delegate: VideoCapturer) : VideoCapturer {
+
+    @Volatile private var frameFilter: ScreenShareFrameFilter? = null
+
+    override fun initialize(
+        surfaceTextureHelper: SurfaceTextureHelper,
+        context: Context,
+        capturerObserver: CapturerObserver
+    ) {
+        val frameFilter = ScreenShareFrameFilter(capturerObserver,
+                HandlerDelayScheduler(surfaceTextureHelper.handler),
+                surfaceTextureHelper::forceFrame)
+        this.frameFilter = frameFilter
+        delegate.initialize(surfaceTextureHelper, context, frameFilter)
+    }
+
+    override fun startCapture(width: Int, height: Int, framerate: Int) {
+        delegate.startCapture(width, height, framerate)
+    }
+
+    override fun stopCapture() {
+        delegate.stopCapture()
+        frameFilter?.let { frameFilter ->
+            frameFilter.cancelForcedFrame()
+            Timber.d("Screen share skipped %d unchanged frames and held back %d frames",
+                    frameFilter.unchangedFrameCount, frameFilter.heldBackFrameCount)
+        }
+    }
+
+    override fun changeCaptureFormat(width: Int, height: Int, framerate: Int) {
+        delegate.changeCaptureFormat(width, height, framerate)
+    }
+
+    override fun dispose() {
+        frameFilter?.cancelForcedFrame()
+        delegate.dispose()
+    }
+
+    override fun isScreencast() = delegate.isScreencast
+}
+
+/*
+ * Skips screen frames whose content did not change and limits the frame rate to
+ * staticFramesPerSecond, which keeps slides and documents at full resolution for a fraction of
+ * the encoding cost. Two changes within motionWindowMillis, e.g. scrolling or a video, raise the
+ * limit to motionFramesPerSecond until motionBoostMillis after the last change.
+ *
+ * Screens only deliver frames when they are redrawn, so a frame that is held back by the limit
+ * is not dropped for good. Instead the filter forces the current screen to be delivered again
+ * once the limit allows it. An unchanged frame is still forwarded every refreshIntervalMillis,
+ * so the encoder refines static content, receivers do not treat the track as frozen and changes
+ * below the detection threshold arrive eventually. Forced frames repeat the timestamp of the
+ * original frame, so they are stamped with the time they were forwarded at instead.
+ *
+ * Frames are analyzed at no more than ANALYSIS_MAX_WIDTH so that comparing them stays cheap.
+ */
+class ScreenShareFrameFilter(
+    private val capturerObserver: CapturerObserver,
+    private val delayScheduler: DelayScheduler,
+    private val forceFrame: () -> Unit,
+    private val staticFramesPerSecond: Int = SCREEN_SHARE_STATIC_FRAMES_PER_SECOND,
+    private val motionFramesPerSecond: Int = SCREEN_SHARE_MOTION_FRAMES_PER_SECOND,
+    motionWindowMillis: Long = DEFAULT_MOTION_WINDOW_MILLIS,
+    motionBoostMillis: Long = DEFAULT_MOTION_BOOST_MILLIS,
+    refreshIntervalMillis: Long = DEFAULT_REFRESH_INTERVAL_MILLIS,
+    private val changeDetector: FrameChangeDetector = FrameChangeDetector(),
+    private val nanoTime: () -> Long = System::nanoTime
+) : CapturerObserver {
+
+    private val motionWindowNanos = TimeUnit.MILLISECONDS.toNanos(motionWindowMillis)
+    private val motionBoostNanos = TimeUnit.MILLISECONDS.toNanos(motionBoostMillis)
+    private val refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis)
+    private var lastForwardedNanos = NO_FRAME
+    private var lastForwardedTimestampNs = NO_FRAME
+    private var lastChangeNanos = NO_FRAME
+    private var motionBoostUntilNanos = NO_FRAME
+    @Volatile private var isForcedFramePending = false
+    private var isForcedFrameExpected = false
+    private val forcedFrame = Runnable {
+        isForcedFramePending = false
+        isForcedFrameExpected = true
+        forceFrame()
+    }
+
+    @Volatile var unchangedFrameCount = 0L
+        private set
+    @Volatile var heldBackFrameCount = 0L
+        private set
+
+    override fun onCapturerStarted(success: Boolean) {
+        capturerObserver.onCapturerStarted(success)
+    }
+
+    override fun onCapturerStopped() {
+        cancelForcedFrame()
+        changeDetector.reset()
+        lastForwardedNanos = NO_FRAME
+        lastChangeNanos = NO_FRAME
+        motionBoostUntilNanos = NO_FRAME
+        capturerObserver.onCapturerStopped()
+    }
+
+    override fun onFrameCaptured(frame: VideoFrame) {
+        val nowNanos = nanoTime()
+        val isForcedFrame = isForcedFrameExpected
+        isForcedFrameExpected = false
+        cancelForcedFrame()
+        if (lastForwardedNanos != NO_FRAME) {
+            val frameIntervalNanos = frameIntervalNanos(nowNanos)
+            val nextFrameNanos = lastForwardedNanos + frameIntervalNanos - frameIntervalNanos / 8
+            if (nowNanos < nextFrameNanos) {
+                heldBackFrameCount++
+                scheduleForcedFrame(nextFrameNanos - nowNanos)
+                return
+            }
+        }
+        if (isChanged(frame)) {
+            if (lastChangeNanos != NO_FRAME && nowNanos - lastChangeNanos <= motionWindowNanos) {
+                motionBoostUntilNanos = nowNanos + motionBoostNanos
+            }
+            lastChangeNanos = nowNanos
+        } else if (lastForwardedNanos != NO_FRAME &&
+                nowNanos - lastForwardedNanos < refreshIntervalNanos) {
+            unchangedFrameCount++
+            scheduleForcedFrame(lastForwardedNanos + refreshIntervalNanos - nowNanos)
+            return
+        }
+        forward(frame, nowNanos, isForcedFrame)
+        scheduleForcedFrame(refreshIntervalNanos)
+    }
+
+    fun cancelForcedFrame() {
+        if (isForcedFramePending) {
+            isForcedFramePending = false
+            delayScheduler.removeCallbacks(forcedFrame)
+        }
+    }
+
+    private fun frameIntervalNanos(nowNanos: Long) = TimeUnit.SECONDS.toNanos(1) /
+            if (nowNanos < motionBoostUntilNanos) motionFramesPerSecond else staticFramesPerSecond
+
+    private fun isChanged(frame: VideoFrame): Boolean {
+        val buffer = frame.buffer
+        val scale = ceil(buffer.width / ANALYSIS_MAX_WIDTH.toDouble()).toInt()
+        val analysisBuffer: VideoFrame.I420Buffer? = if (scale <= 1) {
+            buffer.toI420()
+        } else {
+            val scaledBuffer = buffer.cropAndScale(0, 0, buffer.width, buffer.height,
+                    buffer.width / scale, buffer.height / scale)
+            try {
+                scaledBuffer.toI420()
+            } finally {
+                scaledBuffer.release()
+            }
+        }
+        // A frame that cannot be read is treated as changed so it is never skipped
+        analysisBuffer ?: return true
+        return try {
+            changeDetector.isChanged(analysisBuffer)
+        } finally {
+            analysisBuffer.release()
+        }
+    }
+
+    private fun forward(frame: VideoFrame, nowNanos: Long, isForcedFrame: Boolean) {
+        lastForwardedNanos = nowNanos
+        if (!isForcedFrame && frame.timestampNs > lastForwardedTimestampNs) {
+            lastForwardedTimestampNs = frame.timestampNs
+            capturerObserver.onFrameCaptured(frame)
+        } else {
+            lastForwardedTimestampNs = maxOf(nowNanos, lastForwardedTimestampNs + 1)
+            capturerObserver.onFrameCaptured(
+                    VideoFrame(frame.buffer, frame.rotation, lastForwardedTimestampNs))
+        }
+    }
+
+    private fun scheduleForcedFrame(delayNanos: Long) {
+        // Rounded up so the forced frame never arrives before the limit allows it
+        val delayMillis = TimeUnit.NANOSECONDS.toMillis(delayNanos + NANOS_PER_MILLI - 1)
+        isForcedFramePending = true
+        delayScheduler.postDelayed(forcedFrame, maxOf(1L, delayMillis))
+    }
+}
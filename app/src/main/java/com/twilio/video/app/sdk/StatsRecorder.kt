@@ -0,0 +1,208 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.StatsReport
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import timber.log.Timber
+
+const val DEFAULT_MAX_STATS_RECORDS = 64 * 1024
+
+/*
+ * Records every stats sample of a call into a fixed size memory mapped file so a bad call can be
+ * analyzed afterwards. Samples are written on a dedicated thread, the stats thread only hands
+ * over the reports. Once maxRecords samples have been written the oldest ones are overwritten,
+ * so the file never grows past StatsRecordingFormat.fileSize(maxRecords).
+ * See StatsRecording for reading a recording back.
+ */
+class StatsRecorder(
+    val file: File,
+    private val maxRecords: Int = DEFAULT_MAX_STATS_RECORDS,
+    private val executor: ExecutorService =
+            Executors.newSingleThreadExecutor { Thread(it, "StatsRecorderThread") }
+) {
+
+    private var buffer: MappedByteBuffer? = null
+    private val trackIndexes = HashMap<String, Int>()
+    private var recordCount = 0L
+
+    /** Samples that were not recorded because the track table was full. */
+    @Volatile var droppedSampleCount = 0L
+        private set
+
+    fun start() {
+        executor.execute {
+            RandomAccessFile(file, "rw").use { randomAccessFile ->
+                val fileSize = StatsRecordingFormat.fileSize(maxRecords)
+                randomAccessFile.setLength(fileSize)
+                buffer = randomAccessFile.channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize)
+            }
+            trackIndexes.clear()
+            recordCount = 0
+            buffer?.run {
+                putInt(StatsRecordingFormat.MAGIC_OFFSET, StatsRecordingFormat.MAGIC)
+                putInt(StatsRecordingFormat.VERSION_OFFSET, StatsRecordingFormat.VERSION)
+                putInt(StatsRecordingFormat.RECORD_CAPACITY_OFFSET, maxRecords)
+                putInt(StatsRecordingFormat.TRACK_COUNT_OFFSET, 0)
+                putLong(StatsRecordingFormat.RECORD_COUNT_OFFSET, 0)
+            }
+            Timber.d("Recording stats to %s", file)
+        }
+    }
+
+    fun record(statsReports: List<StatsReport>, timestampMillis: Long) {
+        executeIfRecording { writeReports(statsReports, timestampMillis) }
+    }
+
+    /*
+     * Flushes the recording to disk. The recorder can not be restarted afterwards.
+     */
+    fun stop() {
+        executor.execute {
+            buffer?.force()
+            buffer = null
+            Timber.d("Stopped recording stats, %d samples recorded", recordCount)
+        }
+        executor.shutdown()
+    }
+
+    private fun executeIfRecording(block: () -> Unit) {
+        try {
+            executor.execute(block)
+        } catch (e: RejectedExecutionException) {
+            // Reports that arrive after the recorder was stopped are dropped
+            Timber.d("Stats recorder stopped, dropping report")
+        }
+    }
+
+    private fun writeReports(statsReports: List<StatsReport>, timestampMillis: Long) {
+        val buffer = buffer ?: return
+        statsReports.forEach { report ->
+            report.localAudioTrackStats.forEach {
+                writeRecord(buffer, it.trackSid, StatsRecordingFormat.LOCAL_AUDIO,
+                        timestampMillis, it.bytesSent, it.packetsSent, it.packetsLost,
+                        it.roundTripTime, it.jitter, it.audioLevel, 0, 0, 0)
+            }
+            report.localVideoTrackStats.forEach {
+                writeRecord(buffer, it.trackSid, StatsRecordingFormat.LOCAL_VIDEO,
+                        timestampMillis, it.bytesSent, it.packetsSent, it.packetsLost,
+                        it.roundTripTime, 0, 0, it.frameRate, it.dimensions.width,
+                        it.dimensions.height)
+            }
+            report.remoteAudioTrackStats.forEach {
+                writeRecord(buffer, it.trackSid, StatsRecordingFormat.REMOTE_AUDIO,
+                        timestampMillis, it.bytesReceived, it.packetsReceived, it.packetsLost,
+                        0, it.jitter, it.audioLevel, 0, 0, 0)
+            }
+            report.remoteVideoTrackStats.forEach {
+                writeRecord(buffer, it.trackSid, StatsRecordingFormat.REMOTE_VIDEO,
+                        timestampMillis, it.bytesReceived, it.packetsReceived, it.packetsLost,
+                        0, 0, 0, it.frameRate, it.dimensions.width, it.dimensions.height)
+            }
+        }
+        buffer.putLong(StatsRecordingFormat.RECORD_COUNT_OFFSET, recordCount)
+    }
+
+    private fun writeRecord(
+        buffer: MappedByteBuffer,
+        trackSid: String,
+        trackKind: Int,
+        timestampMillis: Long,
+        bytes: Long,
+        packets: Int,
+        packetsLost: Int,
+        roundTripTime: Long,
+        jitter: Int,
+        audioLevel: Int,
+        frameRate: Int,
+        width: Int,
+        height: Int
+    ) {
+        val trackIndex = trackIndexFor(buffer, trackSid, trackKind)
+        if (trackIndex == NO_TRACK_INDEX) {
+            droppedSampleCount++
+            return
+        }
+        val offset = StatsRecordingFormat.recordOffset((recordCount % maxRecords).toInt())
+        buffer.putLong(offset + StatsRecordingFormat.TIMESTAMP_OFFSET, timestampMillis)
+        buffer.putShort(offset + StatsRecordingFormat.TRACK_INDEX_OFFSET, trackIndex.toShort())
+        buffer.putInt(offset + StatsRecordingFormat.PACKETS_OFFSET, packets)
+        buffer.putLong(offset + StatsRecordingFormat.BYTES_OFFSET, bytes)
+        buffer.putInt(offset + StatsRecordingFormat.PACKETS_LOST_OFFSET, packetsLost)
+        buffer.putInt(offset + StatsRecordingFormat.JITTER_OFFSET, jitter)
+        buffer.putLong(offset + StatsRecordingFormat.RTT_OFFSET, roundTripTime)
+        buffer.putInt(offset + StatsRecordingFormat.AUDIO_LEVEL_OFFSET, audioLevel)
+        buffer.putInt(offset + StatsRecordingFormat.FRAME_RATE_OFFSET, frameRate)
+        buffer.putInt(offset + StatsRecordingFormat.WIDTH_OFFSET, width)
+        buffer.putInt(offset + StatsRecordingFormat.HEIGHT_OFFSET, height)
+        recordCount++
+    }
+
+    private fun trackIndexFor(buffer: MappedByteBuffer, trackSid: String, trackKind: Int): Int {
+        trackIndexes[trackSid]?.let { return it }
+        val trackIndex = trackIndexes.size
+        if (trackIndex >= StatsRecordingFormat.MAX_TRACKS) return NO_TRACK_INDEX
+        val offset = StatsRecordingFormat.trackOffset(trackIndex)
+        val length = minOf(trackSid.length, StatsRecordingFormat.MAX_TRACK_SID_LENGTH)
+        buffer.put(offset, trackKind.toByte())
+        buffer.put(offset + 1, length.toByte())
+        for (i in 0 until length) buffer.put(offset + 2 + i, trackSid[i].toByte())
+        trackIndexes[trackSid] = trackIndex
+        buffer.putInt(StatsRecordingFormat.TRACK_COUNT_OFFSET, trackIndexes.size)
+        return trackIndex
+    }
+
+    private companion object {
+        const val NO_TRACK_INDEX = -1
+    }
+}
+
+/*
+ * Layout of a stats recording. The header holds the record capacity, the total number of
+ * records written and a table of the recorded track sids. It is followed by a ring of fixed
+ * size records that reference a track by its position in the table.
+ */
+internal object StatsRecordingFormat {
+    const val MAGIC = 0x54535453
+    const val VERSION = 1
+
+    const val MAGIC_OFFSET = 0
+    const val VERSION_OFFSET = 4
+    const val RECORD_CAPACITY_OFFSET = 8
+    const val TRACK_COUNT_OFFSET = 12
+    const val RECORD_COUNT_OFFSET = 16
+    private const val TRACK_TABLE_OFFSET = 24
+
+    const val MAX_TRACKS = 128
+    const val MAX_TRACK_SID_LENGTH = 46
+    private const val TRACK_ENTRY_SIZE = 48
+    private const val RECORDS_OFFSET = TRACK_TABLE_OFFSET + MAX_TRACKS * TRACK_ENTRY_SIZE
+
+    const val LOCAL_AUDIO = 0
+    const val LOCAL_VIDEO = 1
+    const val REMOTE_AUDIO = 2
+    const val REMOTE_VIDEO = 3
+
+    const val RECORD_SIZE = 64
+    const val TIMESTAMP_OFFSET = 0
+    const val TRACK_INDEX_OFFSET = 8
+    const val PACKETS_OFFSET = 12
+    const val BYTES_OFFSET = 16
+    const val PACKETS_LOST_OFFSET = 24
+    const val JITTER_OFFSET = 28
+    const val RTT_OFFSET = 32
+    const val AUDIO_LEVEL_OFFSET = 40
+    const val FRAME_RATE_OFFSET = 44
+    const val WIDTH_OFFSET = 48
+    const val HEIGHT_OFFSET = 52
+
+    fun fileSize(maxRecords: Int) = RECORDS_OFFSET + maxRecords.toLong() * RECORD_SIZE
+
+    fun trackOffset(trackIndex: Int) = TRACK_TABLE_OFFSET + trackIndex * TRACK_ENTRY_SIZE
+
+    fun recordOffset(recordIndex: Int) = RECORDS_OFFSET + recordIndex * RECORD_SIZE
+}
@@ -0,0 +1,125 @@
+package com.twilio.video.app.sdk
+
+import android.content.Context
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.io.Writer
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+
+/*
+ * Reads a recording written by StatsRecorder and exports its samples, oldest first. The
+ * recording of the current or last call is kept in file(context) until the next call starts.
+ */
+class StatsRecording(file: File) {
+
+    private val buffer: ByteBuffer = RandomAccessFile(file, "r").use { randomAccessFile ->
+        randomAccessFile.channel.map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length())
+    }
+    private val trackSids: List<String>
+    private val trackKinds: IntArray
+
+    val recordCapacity: Int
+    val recordCount: Long
+    val sampleCount: Int get() = minOf(recordCount, recordCapacity.toLong()).toInt()
+
+    init {
+        if (buffer.getInt(StatsRecordingFormat.MAGIC_OFFSET) != StatsRecordingFormat.MAGIC ||
+                buffer.getInt(StatsRecordingFormat.VERSION_OFFSET) != StatsRecordingFormat.VERSION) {
+            throw IOException("$file is not a stats recording")
+        }
+        recordCapacity = buffer.getInt(StatsRecordingFormat.RECORD_CAPACITY_OFFSET)
+        recordCount = buffer.getLong(StatsRecordingFormat.RECORD_COUNT_OFFSET)
+        val trackCount = buffer.getInt(StatsRecordingFormat.TRACK_COUNT_OFFSET)
+        trackKinds = IntArray(trackCount)
+        trackSids = (0 until trackCount).map { trackIndex ->
+            val offset = StatsRecordingFormat.trackOffset(trackIndex)
+            trackKinds[trackIndex] = buffer.get(offset).toInt()
+            val length = buffer.get(offset + 1).toInt()
+            String(CharArray(length) { buffer.get(offset + 2 + it).toChar() })
+        }
+    }
+
+    fun forEachSample(action: (StatsSample) -> Unit) {
+        val firstRecord = recordCount - sampleCount
+        for (record in firstRecord until recordCount) {
+            val offset = StatsRecordingFormat.recordOffset((record % recordCapacity).toInt())
+            val trackIndex = buffer.getShort(offset + StatsRecordingFormat.TRACK_INDEX_OFFSET).toInt()
+            action(StatsSample(
+                    buffer.getLong(offset + StatsRecordingFormat.TIMESTAMP_OFFSET),
+                    trackSids[trackIndex],
+                    trackKindName(trackKinds[trackIndex]),
+                    buffer.getLong(offset + StatsRecordingFormat.BYTES_OFFSET),
+                    buffer.getInt(offset + StatsRecordingFormat.PACKETS_OFFSET),
+                    buffer.getInt(offset + StatsRecordingFormat.PACKETS_LOST_OFFSET),
+                    buffer.getLong(offset + StatsRecordingFormat.RTT_OFFSET),
+                    buffer.getInt(offset + StatsRecordingFormat.JITTER_OFFSET),
+                    buffer.getInt(offset + StatsRecordingFormat.AUDIO_LEVEL_OFFSET),
+                    buffer.getInt(offset + StatsRecordingFormat.FRAME_RATE_OFFSET),
+                    buffer.getInt(offset + StatsRecordingFormat.WIDTH_OFFSET),
+                    buffer.getInt(offset + StatsRecordingFormat.HEIGHT_OFFSET)))
+        }
+    }
+
+    fun exportCsv(writer: Writer) {
+        writer.write(CSV_HEADER)
+        writer.write("\n")
+        forEachSample { sample ->
+            sample.run {
+                writer.write("$timestampMillis,$trackSid,$trackKind,$bytes,$packets,$packetsLost," +
+                        "$roundTripTime,$jitter,$audioLevel,$frameRate,$width,$height\n")
+            }
+        }
+        writer.flush()
+    }
+
+    fun exportJson(writer: Writer) {
+        writer.write("[")
+        var isFirstSample = true
+        forEachSample { sample ->
+            if (!isFirstSample) writer.write(",")
+            isFirstSample = false
+            sample.run {
+                writer.write("\n{\"timestamp\":$timestampMillis,\"trackSid\":\"$trackSid\"," +
+                        "\"trackKind\":\"$trackKind\",\"bytes\":$bytes,\"packets\":$packets," +
+                        "\"packetsLost\":$packetsLost,\"roundTripTime\":$roundTripTime," +
+                        "\"jitter\":$jitter,\"audioLevel\":$audioLevel,\"frameRate\":$frameRate," +
+                        "\"width\":$width,\"height\":$height}")
+            }
+        }
+        writer.write("\n]\n")
+        writer.flush()
+    }
+
+    private fun trackKindName(trackKind: Int) =
+            when (trackKind) {
+                StatsRecordingFormat.LOCAL_AUDIO -> "local_audio"
+                StatsRecordingFormat.LOCAL_VIDEO -> "local_video"
+                StatsRecordingFormat.REMOTE_AUDIO -> "remote_audio"
+                else -> "remote_video"
+            }
+
+    data class StatsSample(
+        val timestampMillis: Long,
+        val trackSid: String,
+        val trackKind: String,
+        val bytes: Long,
+        val packets: Int,
+        val packetsLost: Int,
+        val roundTripTime: Long,
+        val jitter: Int,
+        val audioLevel: Int,
+        val frameRate: Int,
+        val width: Int,
+        val height: Int
+    )
+
+    companion object {
+        private const val FILE_NAME = "call_stats.bin"
+        private const val CSV_HEADER = "timestamp,track_sid,track_kind,bytes,packets,packets_lost," +
+                "round_trip_time,jitter,audio_level,frame_rate,width,height"
+
+        fun file(context: Context) = File(context.filesDir, FILE_NAME)
+    }
+}
@@ -15,48 +15,143 @@
  */
 package com.twilio.video.app.sdk
 
-import android.os.Handler
-import android.os.HandlerThread
 import com.twilio.video.Room
 import com.twilio.video.StatsListener
+import com.twilio.video.StatsReport
 import timber.log.Timber
 
-class StatsScheduler(private val roomManager: RoomManager, private val room: Room) {
-    private var handlerThread: HandlerThread? = null
-    private var handler: Handler? = null
-    private val statsListener: StatsListener = StatsListener { statsReports ->
-        roomManager.sendStatsUpdate(statsReports)
+const val DEFAULT_STATS_INTERVAL_MILLIS = 1000L
+const val MAX_STATS_INTERVAL_MILLIS = 8000L
+
+/*
+ * Polls Room.getStats only while the room is connected and at least one consumer, e.g. the
+ * stats pane, needs reports. Only one request is in flight at a time; a tick that finds the
+ * previous request still pending is skipped. When reports take longer than half the interval
+ * the interval doubles up to maxIntervalMillis, and it recovers once reports are fast again.
+ */
+class StatsScheduler(
+    private val onStatsReports: (List<StatsReport>) -> Unit,
+    private val intervalMillis: Long = DEFAULT_STATS_INTERVAL_MILLIS,
+    private val maxIntervalMillis: Long = MAX_STATS_INTERVAL_MILLIS,
+    private val statsTimer: StatsTimer = HandlerThreadStatsTimer()
+) {
+    private val lock = Any()
+    private val consumers = HashSet<String>()
+    private var room: Room? = null
+    private var isTickScheduled = false
+    private var tickGeneration = 0
+    private var requestStartTime = NO_REQUEST
+    private var requestGeneration = 0
+
+    /** Interval currently used between polls, including any backoff. */
+    @Volatile var currentIntervalMillis = intervalMillis
+        private set
+
+    /** Number of completed getStats requests. */
+    @Volatile var pollCount = 0L
+        private set
+
+    /** Number of ticks skipped because the previous getStats request had not returned. */
+    @Volatile var skippedTickCount = 0L
+        private set
+
+    @Volatile var lastPollLatencyMillis = 0L
+        private set
+
+    @Volatile var maxPollLatencyMillis = 0L
+        private set
+
+    val isPolling: Boolean get() = synchronized(lock) { shouldPoll() }
+
+    fun attach(room: Room) = synchronized(lock) {
+        this.room = room
+        // A request to a previous room may never return, so it should not block polling
+        requestStartTime = NO_REQUEST
+        requestGeneration++
+        currentIntervalMillis = intervalMillis
+        updatePolling()
     }
-    private val isRunning: Boolean
-        get() = handlerThread?.isAlive ?: false
 
-    fun start() {
-        if (isRunning) {
-            stop()
+    fun detach() = synchronized(lock) {
+        room = null
+        updatePolling()
+    }
+
+    fun addConsumer(consumer: String) = synchronized(lock) {
+        if (consumers.add(consumer)) updatePolling()
+    }
+
+    fun removeConsumer(consumer: String) = synchronized(lock) {
+        if (consumers.remove(consumer)) updatePolling()
+    }
+
+    private fun shouldPoll() = room != null && consumers.isNotEmpty()
+
+    private fun updatePolling() {
+        if (shouldPoll()) {
+            if (!isTickScheduled) {
+                statsTimer.start()
+                scheduleTick(0)
+                Timber.d("Stats polling started for consumers %s", consumers)
+            }
+        } else if (isTickScheduled) {
+            isTickScheduled = false
+            tickGeneration++
+            // The callback of a request in flight may never run once the timer thread stopped
+            requestStartTime = NO_REQUEST
+            requestGeneration++
+            statsTimer.stop()
+            Timber.d("Stats polling stopped")
         }
-        val handlerThread = HandlerThread("StatsSchedulerThread")
-        this.handlerThread = handlerThread
-        handlerThread.start()
-        val handler = Handler(handlerThread.looper)
-        this.handler = handler
-        val statsRunner: Runnable = object : Runnable {
-            override fun run() {
-                room.getStats(statsListener)
-                handler.postDelayed(this, 1000)
+    }
+
+    private fun scheduleTick(delayMillis: Long) {
+        isTickScheduled = true
+        val generation = tickGeneration
+        statsTimer.postDelayed(delayMillis) { tick(generation) }
+    }
+
+    private fun tick(generation: Int) {
+        synchronized(lock) {
+            // Ticks posted before polling was stopped are ignored
+            if (generation != tickGeneration) return
+            val room = room
+            if (room == null || consumers.isEmpty()) {
+                updatePolling()
+                return
             }
+            if (requestStartTime != NO_REQUEST) {
+                skippedTickCount++
+            } else {
+                requestStartTime = statsTimer.now()
+                val generation = requestGeneration
+                room.getStats(StatsListener { statsReports -> onStats(generation, statsReports) })
+            }
+            scheduleTick(currentIntervalMillis)
         }
-        handler.post(statsRunner)
-        Timber.d("Stats scheduler thread started")
     }
 
-    fun stop() {
-        if (isRunning) {
-            handlerThread?.let { handlerThread ->
-                handlerThread.quit()
-                this.handlerThread = null
-                handler = null
-                Timber.d("Stats scheduler thread closed")
+    private fun onStats(generation: Int, statsReports: List<StatsReport>) {
+        synchronized(lock) {
+            if (generation != requestGeneration || requestStartTime == NO_REQUEST) return
+            val latency = statsTimer.now() - requestStartTime
+            requestStartTime = NO_REQUEST
+            pollCount++
+            lastPollLatencyMillis = latency
+            if (latency > maxPollLatencyMillis) maxPollLatencyMillis = latency
+            currentIntervalMillis = when {
+                latency > currentIntervalMillis / 2 ->
+                    (currentIntervalMillis * 2).coerceAtMost(maxIntervalMillis)
+                latency < currentIntervalMillis / 4 ->
+                    (currentIntervalMillis / 2).coerceAtLeast(intervalMillis)
+                else -> currentIntervalMillis
             }
+            if (!shouldPoll()) return
         }
+        onStatsReports(statsReports)
+    }
+
+    private companion object {
+        const val NO_REQUEST = -1L
     }
 }
@@ -0,0 +1,77 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.StatsReport
+import java.util.concurrent.TimeUnit
+
+private val DEFAULT_RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(5)
+private const val DEFAULT_RATE_WINDOW_MILLIS = 5000L
+
+data class TrackRates(val bitrateKbps: Int, val packetLossPercent: Float)
+
+/*
+ * Keeps a TrackStatsTimeSeries per track sid for the tracks in the latest stats reports and
+ * derives windowed rates from them. Samples are recorded on the stats thread, so the rates are
+ * computed before the reports reach the main thread.
+ */
+class StatsTimeSeriesStore(
+    retentionMillis: Long = DEFAULT_RETENTION_MILLIS,
+    sampleIntervalMillis: Long = DEFAULT_STATS_INTERVAL_MILLIS,
+    private val rateWindowMillis: Long = DEFAULT_RATE_WINDOW_MILLIS
+) {
+
+    private val capacity = (retentionMillis / sampleIntervalMillis).toInt().coerceAtLeast(2)
+    private val timeSeries = HashMap<String, TrackStatsTimeSeries>()
+    private val recordedTrackSids = HashSet<String>()
+
+    @Synchronized
+    operator fun get(trackSid: String): TrackStatsTimeSeries? = timeSeries[trackSid]
+
+    /*
+     * Tracks that are missing from the reports are dropped along with their history.
+     */
+    @Synchronized
+    fun record(statsReports: List<StatsReport>, timestampMillis: Long): Map<String, TrackRates> {
+        recordedTrackSids.clear()
+        statsReports.forEach { report ->
+            report.localAudioTrackStats.forEach {
+                seriesFor(it.trackSid, isSent = true).add(timestampMillis, it.bytesSent, it.packetsSent,
+                        it.packetsLost, roundTripTime = it.roundTripTime, jitter = it.jitter,
+                        audioLevel = it.audioLevel)
+            }
+            report.localVideoTrackStats.forEach {
+                seriesFor(it.trackSid, isSent = true).add(timestampMillis, it.bytesSent, it.packetsSent,
+                        it.packetsLost, roundTripTime = it.roundTripTime,
+                        frameRate = it.frameRate, width = it.dimensions.width,
+                        height = it.dimensions.height)
+            }
+            report.remoteAudioTrackStats.forEach {
+                seriesFor(it.trackSid, isSent = false).add(timestampMillis, it.bytesReceived,
+                        it.packetsReceived, it.packetsLost, jitter = it.jitter,
+                        audioLevel = it.audioLevel)
+            }
+            report.remoteVideoTrackStats.forEach {
+                seriesFor(it.trackSid, isSent = false).add(timestampMillis, it.bytesReceived,
+                        it.packetsReceived, it.packetsLost, frameRate = it.frameRate,
+                        width = it.dimensions.width, height = it.dimensions.height)
+            }
+        }
+        timeSeries.keys.retainAll(recordedTrackSids)
+
+        val trackRates = HashMap<String, TrackRates>(timeSeries.size)
+        timeSeries.forEach { (trackSid, series) ->
+            trackRates[trackSid] = TrackRates(series.bitrateKbps(rateWindowMillis),
+                    series.packetLossPercent(rateWindowMillis))
+        }
+        return trackRates
+    }
+
+    @Synchronized
+    fun clear() {
+        timeSeries.clear()
+    }
+
+    private fun seriesFor(trackSid: String, isSent: Boolean): TrackStatsTimeSeries {
+        recordedTrackSids.add(trackSid)
+        return timeSeries.getOrPut(trackSid) { TrackStatsTimeSeries(capacity, isSent) }
+    }
+}
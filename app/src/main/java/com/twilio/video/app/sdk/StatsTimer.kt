@@ -0,0 +1,45 @@
+package com.twilio.video.app.sdk
+
+import android.os.Handler
+import android.os.HandlerThread
+import android.os.SystemClock
+import timber.log.Timber
+
+/*
+ * Thread the StatsScheduler runs its ticks on. Only alive while stats have consumers.
+ */
+interface StatsTimer {
+    fun now(): Long
+    fun start()
+    fun postDelayed(delayMillis: Long, action: () -> Unit)
+    fun stop()
+}
+
+class HandlerThreadStatsTimer : StatsTimer {
+    private var handlerThread: HandlerThread? = null
+    private var handler: Handler? = null
+
+    override fun now() = SystemClock.elapsedRealtime()
+
+    override fun start() {
+        if (handlerThread?.isAlive == true) return
+        val handlerThread = HandlerThread("StatsSchedulerThread")
+        this.handlerThread = handlerThread
+        handlerThread.start()
+        handler = Handler(handlerThread.looper)
+        Timber.d("Stats scheduler thread started")
+    }
+
+    override fun postDelayed(delayMillis: Long, action: () -> Unit) {
+        handler?.postDelayed(action, delayMillis)
+    }
+
+    override fun stop() {
+        handlerThread?.let { handlerThread ->
+            handlerThread.quit()
+            this.handlerThread = null
+            handler = null
+            Timber.d("Stats scheduler thread closed")
+        }
+    }
+}
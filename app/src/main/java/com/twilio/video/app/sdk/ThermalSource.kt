@@ -0,0 +1,92 @@
+package com.twilio.video.app.sdk
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.os.BatteryManager
+import android.os.Build
+import android.os.PowerManager
+import androidx.annotation.RequiresApi
+
+private const val UNKNOWN_BATTERY_PERCENT = -1
+
+/*
+ * Reports the thermal status and battery level of the device on the main thread.
+ */
+interface ThermalSource {
+    fun start(listener: (DeviceCondition) -> Unit)
+    fun stop()
+}
+
+/*
+ * Observes the thermal status on Android Q and later, where older devices always report
+ * THERMAL_STATUS_NONE, and the battery level through the sticky ACTION_BATTERY_CHANGED broadcast.
+ */
+class PowerManagerThermalSource(context: Context) : ThermalSource {
+
+    private val context = context.applicationContext
+    private var listener: ((DeviceCondition) -> Unit)? = null
+    private var thermalStatus = PowerManager.THERMAL_STATUS_NONE
+    private var batteryPercent = UNKNOWN_BATTERY_PERCENT
+    private var isCharging = false
+    private val batteryReceiver = object : BroadcastReceiver() {
+        override fun onReceive(context: Context, intent: Intent) = onBatteryChanged(intent)
+    }
+    private var thermalStatusListener: Any? = null
+
+    override fun start(listener: (DeviceCondition) -> Unit) {
+        if (this.listener != null) return
+        this.listener = listener
+        context.registerReceiver(batteryReceiver, IntentFilter(Intent.ACTION_BATTERY_CHANGED))
+                ?.let { onBatteryChanged(it) }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) addThermalStatusListener()
+        notifyListener()
+    }
+
+    override fun stop() {
+        if (listener == null) return
+        listener = null
+        context.unregisterReceiver(batteryReceiver)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) removeThermalStatusListener()
+    }
+
+    private fun onBatteryChanged(intent: Intent) {
+        val level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1)
+        val scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1)
+        val status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1)
+        val batteryPercent = if (level >= 0 && scale > 0) level * 100 / scale else UNKNOWN_BATTERY_PERCENT
+        val isCharging = status == BatteryManager.BATTERY_STATUS_CHARGING ||
+                status == BatteryManager.BATTERY_STATUS_FULL
+        if (batteryPercent != this.batteryPercent || isCharging != this.isCharging) {
+            this.batteryPercent = batteryPercent
+            this.isCharging = isCharging
+            notifyListener()
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private fun addThermalStatusListener() {
+        val powerManager = context.getSystemService(Context.POWER_SERVICE) as PowerManager
+        thermalStatus = powerManager.currentThermalStatus
+        val thermalStatusListener = PowerManager.OnThermalStatusChangedListener { status ->
+            thermalStatus = status
+            notifyListener()
+        }
+        this.thermalStatusListener = thermalStatusListener
+        powerManager.addThermalStatusListener(thermalStatusListener)
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private fun removeThermalStatusListener() {
+        val powerManager = context.getSystemService(Context.POWER_SERVICE) as PowerManager
+        (thermalStatusListener as? PowerManager.OnThermalStatusChangedListener)?.let {
+            powerManager.removeThermalStatusListener(it)
+        }
+        thermalStatusListener = null
+    }
+
+    private fun notifyListener() {
+        listener?.invoke(DeviceCondition(thermalStatus, batteryPercent, isCharging))
+    }
+}
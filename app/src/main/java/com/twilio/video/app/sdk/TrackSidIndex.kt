@@ -0,0 +1,90 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteParticipant
+import java.util.concurrent.ConcurrentHashMap
+
+/*
+ * Index from track sid to the participant name or local track label used to label stats rows.
+ * It is maintained incrementally from the track subscription and publication callbacks so a
+ * stats report can be labeled without walking every participant and publication.
+ * Writes happen on the SDK callback thread while lookups happen on the main thread.
+ */
+class TrackSidIndex {
+
+    private val lock = Any()
+    private val tracks = ConcurrentHashMap<String, IndexedTrack>()
+    private val remoteTrackSids = HashMap<String, HashSet<String>>()
+    private val localTrackSids = HashMap<String, String>()
+
+    val size: Int get() = tracks.size
+
+    operator fun get(trackSid: String): IndexedTrack? = tracks[trackSid]
+
+    fun addRemoteParticipant(remoteParticipant: RemoteParticipant) {
+        remoteParticipant.remoteAudioTracks.forEach { publication ->
+            if (publication.isTrackSubscribed) {
+                addRemoteTrack(remoteParticipant, publication.trackSid, isAudioTrack = true)
+            }
+        }
+        remoteParticipant.remoteVideoTracks.forEach { publication ->
+            if (publication.isTrackSubscribed) {
+                addRemoteTrack(remoteParticipant, publication.trackSid, isAudioTrack = false)
+            }
+        }
+    }
+
+    fun addRemoteTrack(remoteParticipant: RemoteParticipant, trackSid: String, isAudioTrack: Boolean) {
+        synchronized(lock) {
+            remoteTrackSids.getOrPut(remoteParticipant.sid) { HashSet() }.add(trackSid)
+            tracks[trackSid] = IndexedTrack(remoteParticipant.sid, remoteParticipant.identity,
+                    isAudioTrack, isLocalTrack = false)
+        }
+    }
+
+    fun removeRemoteTrack(remoteParticipant: RemoteParticipant, trackSid: String) {
+        synchronized(lock) {
+            remoteTrackSids[remoteParticipant.sid]?.remove(trackSid)
+            tracks.remove(trackSid)
+        }
+    }
+
+    fun removeRemoteParticipant(participantSid: String) {
+        synchronized(lock) {
+            remoteTrackSids.remove(participantSid)?.forEach { tracks.remove(it) }
+        }
+    }
+
+    fun addLocalVideoTrack(participantSid: String, trackSid: String, trackName: String, label: String) {
+        synchronized(lock) {
+            localTrackSids.put(trackName, trackSid)?.let { tracks.remove(it) }
+            tracks[trackSid] = IndexedTrack(participantSid, label, isAudioTrack = false,
+                    isLocalTrack = true)
+        }
+    }
+
+    fun localTrackSid(trackName: String): String? = synchronized(lock) { localTrackSids[trackName] }
+
+    fun removeLocalVideoTrack(trackName: String) {
+        synchronized(lock) {
+            localTrackSids.remove(trackName)?.let { tracks.remove(it) }
+        }
+    }
+
+    fun clear() {
+        synchronized(lock) {
+            tracks.clear()
+            remoteTrackSids.clear()
+            localTrackSids.clear()
+        }
+    }
+
+    /*
+     * The name is the identity of a remote participant or the label of a local track.
+     */
+    data class IndexedTrack(
+        val participantSid: String,
+        val name: String,
+        val isAudioTrack: Boolean,
+        val isLocalTrack: Boolean
+    )
+}
@@ -0,0 +1,139 @@
+package com.twilio.video.app.sdk
+
+/*
+ * Fixed capacity ring buffer of the stats samples of one track. Every field is stored in its
+ * own primitive array so adding a sample neither boxes nor allocates. Once full, the oldest
+ * sample is overwritten. Not thread safe, samples are added and read on the stats thread.
+ * isSent tells whether the track is sent by the local participant or received from a remote one.
+ */
+class TrackStatsTimeSeries(val capacity: Int, val isSent: Boolean) {
+
+    private val timestamps = LongArray(capacity)
+    private val bytes = LongArray(capacity)
+    private val packets = IntArray(capacity)
+    private val packetsLost = IntArray(capacity)
+    private val roundTripTimes = LongArray(capacity)
+    private val jitters = IntArray(capacity)
+    private val audioLevels = IntArray(capacity)
+    private val frameRates = IntArray(capacity)
+    private val widths = IntArray(capacity)
+    private val heights = IntArray(capacity)
+    private var nextIndex = 0
+
+    var size = 0
+        private set
+
+    init {
+        require(capacity >= 2) { "A time series needs at least two samples to compute rates" }
+    }
+
+    /*
+     * Bytes and packets are the cumulative counters reported by the SDK, either sent or received
+     * depending on the direction of the track.
+     */
+    fun add(
+        timestampMillis: Long,
+        bytes: Long,
+        packets: Int,
+        packetsLost: Int,
+        roundTripTime: Long = 0,
+        jitter: Int = 0,
+        audioLevel: Int = 0,
+        frameRate: Int = 0,
+        width: Int = 0,
+        height: Int = 0
+    ) {
+        val index = nextIndex
+        timestamps[index] = timestampMillis
+        this.bytes[index] = bytes
+        this.packets[index] = packets
+        this.packetsLost[index] = packetsLost
+        roundTripTimes[index] = roundTripTime
+        jitters[index] = jitter
+        audioLevels[index] = audioLevel
+        frameRates[index] = frameRate
+        widths[index] = width
+        heights[index] = height
+        nextIndex = (index + 1) % capacity
+        if (size < capacity) size++
+    }
+
+    fun clear() {
+        nextIndex = 0
+        size = 0
+    }
+
+    /*
+     * Samples are addressed by age, 0 being the newest sample.
+     */
+    fun timestampAt(age: Int) = timestamps[indexOf(age)]
+
+    fun bytesAt(age: Int) = bytes[indexOf(age)]
+
+    fun packetsLostAt(age: Int) = packetsLost[indexOf(age)]
+
+    fun roundTripTimeAt(age: Int) = roundTripTimes[indexOf(age)]
+
+    fun jitterAt(age: Int) = jitters[indexOf(age)]
+
+    fun audioLevelAt(age: Int) = audioLevels[indexOf(age)]
+
+    fun frameRateAt(age: Int) = frameRates[indexOf(age)]
+
+    fun widthAt(age: Int) = widths[indexOf(age)]
+
+    fun heightAt(age: Int) = heights[indexOf(age)]
+
+    /** Average bitrate in kilobits per second over the samples within the window. */
+    fun bitrateKbps(windowMillis: Long): Int {
+        val oldestAge = oldestAgeInWindow(windowMillis)
+        if (oldestAge == NO_SAMPLE) return 0
+        val newest = indexOf(0)
+        val oldest = indexOf(oldestAge)
+        val elapsedMillis = timestamps[newest] - timestamps[oldest]
+        val byteDelta = bytes[newest] - bytes[oldest]
+        if (elapsedMillis <= 0 || byteDelta < 0) return 0
+        // bits per millisecond are kilobits per second
+        return (byteDelta * 8 / elapsedMillis).toInt()
+    }
+
+    /*
+     * Share of the packets within the window that were lost, from 0 to 100. The sent packet count
+     * already includes the packets that were lost, the received packet count does not.
+     */
+    fun packetLossPercent(windowMillis: Long): Float {
+        val oldestAge = oldestAgeInWindow(windowMillis)
+        if (oldestAge == NO_SAMPLE) return 0f
+        val newest = indexOf(0)
+        val oldest = indexOf(oldestAge)
+        val lostDelta = packetsLost[newest] - packetsLost[oldest]
+        val packetDelta = packets[newest] - packets[oldest]
+        if (lostDelta <= 0 || packetDelta < 0) return 0f
+        return if (isSent) {
+            if (packetDelta == 0) 0f else minOf(lostDelta * 100f / packetDelta, 100f)
+        } else {
+            lostDelta * 100f / (lostDelta + packetDelta)
+        }
+    }
+
+    /*
+     * Returns the age of the oldest sample that is at most windowMillis older than the newest
+     * sample, or NO_SAMPLE if fewer than two samples are within the window.
+     */
+    private fun oldestAgeInWindow(windowMillis: Long): Int {
+        if (size < 2) return NO_SAMPLE
+        val windowStart = timestamps[indexOf(0)] - windowMillis
+        var age = 0
+        while (age + 1 < size && timestamps[indexOf(age + 1)] >= windowStart) age++
+        return if (age == 0) NO_SAMPLE else age
+    }
+
+    private fun indexOf(age: Int): Int {
+        require(age in 0 until size) { "No sample with age $age" }
+        return (nextIndex - 1 - age + capacity) % capacity
+    }
+
+    private companion object {
+        const val NO_SAMPLE = -1
+    }
+}
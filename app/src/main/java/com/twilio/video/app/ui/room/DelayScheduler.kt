@@ -0,0 +1,23 @@
+package com.twilio.video.app.ui.room
+
+import android.os.Handler
+import android.os.Looper
+
+/*
+ * Abstraction over delayed main thread callbacks so that debounced work can be driven manually
+ * in unit tests.
+ */
+interface DelayScheduler {
+    fun postDelayed(action: Runnable, delayMillis: Long)
+    fun removeCallbacks(action: Runnable)
+}
+
+class HandlerDelayScheduler(
+    private val handler: Handler = Handler(Looper.getMainLooper())
+) : DelayScheduler {
+    override fun postDelayed(action: Runnable, delayMillis: Long) {
+        handler.postDelayed(action, delayMillis)
+    }
+
+    override fun removeCallbacks(action: Runnable) = handler.removeCallbacks(action)
+}
@@ -0,0 +1,30 @@
+package com.twilio.video.app.ui.room
+
+/*
+ * Coalesces all invalidations that happen before the next display frame into a single
+ * invocation of onFrame. Must only be used from the thread that owns the FrameClock.
+ */
+internal class FrameBatcher(
+    private val frameClock: FrameClock,
+    private val onFrame: () -> Unit
+) {
+
+    private var isFrameScheduled = false
+    private val frameCallback: () -> Unit = {
+        isFrameScheduled = false
+        pendingInvalidations = 0
+        onFrame()
+    }
+
+    /** Number of invalidations that will be applied on the next frame. */
+    var pendingInvalidations = 0
+        private set
+
+    fun invalidate() {
+        pendingInvalidations++
+        if (!isFrameScheduled) {
+            isFrameScheduled = true
+            frameClock.postFrameCallback(frameCallback)
+        }
+    }
+}
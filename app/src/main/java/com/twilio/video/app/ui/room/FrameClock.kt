@@ -0,0 +1,16 @@
+package com.twilio.video.app.ui.room
+
+import android.view.Choreographer
+
+/*
+ * Abstraction over the display frame callbacks so that work can be aligned to frames in
+ * production and driven manually in unit tests.
+ */
+interface FrameClock {
+    fun postFrameCallback(callback: () -> Unit)
+}
+
+class ChoreographerFrameClock : FrameClock {
+    override fun postFrameCallback(callback: () -> Unit) =
+            Choreographer.getInstance().postFrameCallback { callback() }
+}
@@ -0,0 +1,56 @@
+package com.twilio.video.app.ui.room
+
+import java.util.concurrent.TimeUnit
+import tvi.webrtc.VideoFrame
+import tvi.webrtc.VideoSink
+
+const val THUMBNAIL_MAX_FRAMES_PER_SECOND = 15
+const val PRIMARY_MAX_FRAMES_PER_SECOND = 30
+private const val NO_FRAME = Long.MIN_VALUE
+
+/*
+ * Forwards frames to the delegate at no more than maxFramesPerSecond and drops the rest, based
+ * on the frame timestamps. A frame may arrive up to an eighth of the frame interval early so
+ * that a 30 fps track is evenly halved by a 15 fps budget. Frames are only delivered from the
+ * render thread, so no locking or allocation happens per frame.
+ */
+class FrameRateLimitedSink(
+    val delegate: VideoSink,
+    maxFramesPerSecond: Int
+) : VideoSink {
+
+    @Volatile private var minFrameIntervalNanos = frameIntervalNanos(maxFramesPerSecond)
+    @Volatile private var lastFrameNanos = NO_FRAME
+
+    @Volatile var droppedFrameCount = 0L
+        private set
+
+    var maxFramesPerSecond = maxFramesPerSecond
+        set(value) {
+            field = value
+            minFrameIntervalNanos = frameIntervalNanos(value)
+        }
+
+    override fun onFrame(frame: VideoFrame) {
+        val frameNanos = frame.timestampNs
+        val lastFrameNanos = lastFrameNanos
+        val minFrameIntervalNanos = minFrameIntervalNanos
+        if (lastFrameNanos == NO_FRAME || frameNanos < lastFrameNanos ||
+                frameNanos - lastFrameNanos >= minFrameIntervalNanos - minFrameIntervalNanos / 8) {
+            this.lastFrameNanos = frameNanos
+            delegate.onFrame(frame)
+        } else {
+            droppedFrameCount++
+        }
+    }
+
+    /*
+     * Forgets the last forwarded frame, e.g. when the sink is moved to another track.
+     */
+    fun reset() {
+        lastFrameNanos = NO_FRAME
+    }
+
+    private fun frameIntervalNanos(maxFramesPerSecond: Int) =
+            if (maxFramesPerSecond > 0) TimeUnit.SECONDS.toNanos(1) / maxFramesPerSecond else 0L
+}
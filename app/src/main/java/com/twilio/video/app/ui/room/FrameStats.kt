@@ -0,0 +1,109 @@
+package com.twilio.video.app.ui.room
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import kotlin.math.roundToInt
+
+/*
+ * Upper bounds of the frame interval histogram buckets. The last bucket holds all longer
+ * intervals.
+ */
+private val INTERVAL_BUCKET_LIMITS_NANOS = longArrayOf(
+        TimeUnit.MILLISECONDS.toNanos(20),
+        TimeUnit.MILLISECONDS.toNanos(40),
+        TimeUnit.MILLISECONDS.toNanos(70),
+        TimeUnit.MILLISECONDS.toNanos(100),
+        TimeUnit.MILLISECONDS.toNanos(200),
+        TimeUnit.MILLISECONDS.toNanos(500))
+val INTERVAL_BUCKET_COUNT = INTERVAL_BUCKET_LIMITS_NANOS.size + 1
+private val FROZEN_FRAME_MIN_EXTRA_NANOS = TimeUnit.MILLISECONDS.toNanos(150)
+private val STALE_FRAME_RATE_NANOS = TimeUnit.SECONDS.toNanos(1)
+private const val NO_FRAME = Long.MIN_VALUE
+
+/*
+ * Lock-free counters of the frames a participant view renders. Frames are only counted from the
+ * render thread and without allocating, snapshots can be taken from any thread. Like WebRTC, a
+ * frame is considered frozen when it arrives more than three times the average frame interval,
+ * and at least 150 ms more than it, after the previous frame.
+ */
+class FrameStats {
+
+    private val frameCount = AtomicLong()
+    private val frozenFrameCount = AtomicLong()
+    private val frozenDurationNanos = AtomicLong()
+    private val intervalHistogram = AtomicLongArray(INTERVAL_BUCKET_COUNT)
+    @Volatile private var lastFrameNanos = NO_FRAME
+    @Volatile private var averageIntervalNanos = 0L
+    @Volatile private var dimensions = 0L
+
+    fun onFrame(frameNanos: Long, width: Int, height: Int) {
+        val previousFrameNanos = lastFrameNanos
+        lastFrameNanos = frameNanos
+        dimensions = (width.toLong() shl 32) or (height.toLong() and 0xffffffffL)
+        frameCount.incrementAndGet()
+        if (previousFrameNanos == NO_FRAME) return
+
+        val intervalNanos = frameNanos - previousFrameNanos
+        intervalHistogram.incrementAndGet(bucketFor(intervalNanos))
+        val averageIntervalNanos = averageIntervalNanos
+        if (averageIntervalNanos > 0 && intervalNanos > maxOf(3 * averageIntervalNanos,
+                        averageIntervalNanos + FROZEN_FRAME_MIN_EXTRA_NANOS)) {
+            frozenFrameCount.incrementAndGet()
+            frozenDurationNanos.addAndGet(intervalNanos)
+        } else {
+            // Freezes are left out of the average so they do not hide the next freeze
+            this.averageIntervalNanos = if (averageIntervalNanos == 0L) intervalNanos
+                    else averageIntervalNanos + (intervalNanos - averageIntervalNanos) / 8
+        }
+    }
+
+    /*
+     * Starts counting from scratch, e.g. when the view renders another track. A frame that is
+     * counted concurrently may be attributed to either side of the reset.
+     */
+    fun reset() {
+        lastFrameNanos = NO_FRAME
+        averageIntervalNanos = 0
+        dimensions = 0
+        frameCount.set(0)
+        frozenFrameCount.set(0)
+        frozenDurationNanos.set(0)
+        for (bucket in 0 until INTERVAL_BUCKET_COUNT) intervalHistogram.set(bucket, 0)
+    }
+
+    fun snapshot(nowNanos: Long = System.nanoTime()): FrameStatsSnapshot {
+        val lastFrameNanos = lastFrameNanos
+        val averageIntervalNanos = averageIntervalNanos
+        val isRendering = lastFrameNanos != NO_FRAME &&
+                nowNanos - lastFrameNanos < STALE_FRAME_RATE_NANOS
+        val framesPerSecond = if (isRendering && averageIntervalNanos > 0)
+            (TimeUnit.SECONDS.toNanos(1).toDouble() / averageIntervalNanos).roundToInt() else 0
+        val dimensions = dimensions
+        return FrameStatsSnapshot(
+                frameCount.get(),
+                frozenFrameCount.get(),
+                TimeUnit.NANOSECONDS.toMillis(frozenDurationNanos.get()),
+                List(INTERVAL_BUCKET_COUNT) { intervalHistogram.get(it) },
+                framesPerSecond,
+                (dimensions ushr 32).toInt(),
+                dimensions.toInt())
+    }
+
+    private fun bucketFor(intervalNanos: Long): Int {
+        for (bucket in INTERVAL_BUCKET_LIMITS_NANOS.indices) {
+            if (intervalNanos <= INTERVAL_BUCKET_LIMITS_NANOS[bucket]) return bucket
+        }
+        return INTERVAL_BUCKET_LIMITS_NANOS.size
+    }
+}
+
+data class FrameStatsSnapshot(
+    val frameCount: Long,
+    val frozenFrameCount: Long,
+    val frozenDurationMillis: Long,
+    val intervalHistogram: List<Long>,
+    val framesPerSecond: Int,
+    val width: Int,
+    val height: Int
+)
@@ -1,23 +1,167 @@
 package com.twilio.video.app.ui.room
 
+import android.os.Looper
 import android.view.ViewGroup
+import android.view.ViewGroup.LayoutParams.MATCH_PARENT
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.recyclerview.widget.DiffUtil
-import androidx.recyclerview.widget.ListAdapter
+import androidx.recyclerview.widget.RecyclerView
+import com.twilio.video.app.R
+import com.twilio.video.app.participant.ParticipantChange
+import com.twilio.video.app.participant.ParticipantPayload
+import com.twilio.video.app.participant.ParticipantThumbnailSnapshot
 import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.participant.thumbnailPayloads
+import java.util.EnumSet
 
-internal class ParticipantAdapter : ListAdapter<ParticipantViewState, ParticipantViewHolder>(
-        ParticipantDiffCallback()) {
+/*
+ * Applies the change sets of consecutive ParticipantThumbnailSnapshots directly to the
+ * RecyclerView. DiffUtil is only used when a snapshot version was skipped, the change set was
+ * not tracked or a plain list is submitted.
+ *
+ * With gridRows set the thumbnails fill the width of their column and gridRows thumbnails fill
+ * the height of the RecyclerView, so one page of the participant grid is shown without scrolling.
+ */
+internal class ParticipantAdapter(
+    val videoSinkRegistry: VideoSinkRegistry = VideoSinkRegistry(),
+    private val renderHintController: RenderHintController = RenderHintController(),
+    private val gridRows: Int = 0
+) : RecyclerView.Adapter<ParticipantViewHolder>() {
 
     private val mutableViewHolderEvents = MutableLiveData<RoomViewEvent>()
     val viewHolderEvents: LiveData<RoomViewEvent> = mutableViewHolderEvents
+    private var participants: List<ParticipantViewState> = emptyList()
+    private var version = NO_VERSION
+    private var recyclerView: RecyclerView? = null
 
-    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ParticipantViewHolder =
-            ParticipantViewHolder(ParticipantThumbView(parent.context))
+    /** Frame rate budget of each thumbnail, lowered while the device is hot. */
+    var thumbnailMaxFramesPerSecond = THUMBNAIL_MAX_FRAMES_PER_SECOND
+        set(value) {
+            if (field == value) return
+            field = value
+            recyclerView?.let { recyclerView ->
+                for (index in 0 until recyclerView.childCount) {
+                    (recyclerView.getChildViewHolder(recyclerView.getChildAt(index))
+                            as? ParticipantViewHolder)?.videoSink?.maxFramesPerSecond = value
+                }
+            }
+        }
+
+    fun submitList(newParticipants: List<ParticipantViewState>?) {
+        val snapshot = newParticipants as? ParticipantThumbnailSnapshot
+        if (newParticipants === participants || snapshot?.version == version) return
+
+        val oldParticipants = participants
+        participants = newParticipants ?: emptyList()
+        val changes = snapshot?.takeIf { it.baseVersion == version }?.changes
+        version = snapshot?.version ?: NO_VERSION
+
+        if (changes != null) {
+            changes.forEach { applyChange(it) }
+        } else {
+            DiffUtil.calculateDiff(ParticipantListDiffCallback(oldParticipants, participants))
+                    .dispatchUpdatesTo(this)
+        }
+    }
+
+    override fun getItemCount() = participants.size
+
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ParticipantViewHolder {
+        val thumb = ParticipantThumbView(parent.context)
+        val resources = parent.resources
+        if (gridRows > 0) {
+            thumb.layoutParams = RecyclerView.LayoutParams(MATCH_PARENT, gridTileHeight(parent))
+            return ParticipantViewHolder(thumb, videoSinkRegistry, renderHintController)
+        }
+        thumb.layoutParams = RecyclerView.LayoutParams(
+                resources.getDimensionPixelSize(R.dimen.participant_thumbnail_width),
+                resources.getDimensionPixelSize(R.dimen.participant_thumbnail_height)).apply {
+            val margin = resources.getDimensionPixelSize(R.dimen.participant_thumbnail_margin)
+            setMargins(margin, 0, margin, 0)
+        }
+        return ParticipantViewHolder(thumb, videoSinkRegistry, renderHintController)
+    }
+
+    /*
+     * Creates thumbnails ahead of time while the main thread is idle, so that a burst of joining
+     * participants is bound to pooled view holders instead of inflating them during layout. The
+     * count is clamped to MIN_THUMBNAIL_POOL_SIZE..MAX_THUMBNAIL_POOL_SIZE.
+     */
+    fun prewarmViewPool(recyclerView: RecyclerView, count: Int) {
+        Looper.myQueue().addIdleHandler {
+            fillViewPool(recyclerView, count)
+            false
+        }
+    }
+
+    fun fillViewPool(recyclerView: RecyclerView, count: Int) {
+        val poolSize = count.coerceIn(MIN_THUMBNAIL_POOL_SIZE, MAX_THUMBNAIL_POOL_SIZE)
+        val recycledViewPool = recyclerView.recycledViewPool
+        recycledViewPool.setMaxRecycledViews(THUMBNAIL_VIEW_TYPE, poolSize)
+        val missingCount = poolSize - recycledViewPool.getRecycledViewCount(THUMBNAIL_VIEW_TYPE)
+        repeat(missingCount) {
+            recycledViewPool.putRecycledView(createViewHolder(recyclerView, THUMBNAIL_VIEW_TYPE))
+        }
+    }
+
+    override fun onAttachedToRecyclerView(recyclerView: RecyclerView) {
+        this.recyclerView = recyclerView
+    }
+
+    override fun onDetachedFromRecyclerView(recyclerView: RecyclerView) {
+        this.recyclerView = null
+    }
+
+    override fun onViewAttachedToWindow(holder: ParticipantViewHolder) = holder.onAttached()
 
-    override fun onBindViewHolder(holder: ParticipantViewHolder, position: Int) =
-            holder.bind(getItem(position)) { mutableViewHolderEvents.value = it }
+    override fun onViewDetachedFromWindow(holder: ParticipantViewHolder) = holder.onDetached()
+
+    override fun onViewRecycled(holder: ParticipantViewHolder) = holder.onRecycled()
+
+    override fun onBindViewHolder(holder: ParticipantViewHolder, position: Int) {
+        if (gridRows > 0) {
+            // The RecyclerView may have been resized since the view holder was created
+            recyclerView?.let { parent ->
+                val layoutParams = holder.itemView.layoutParams
+                val tileHeight = gridTileHeight(parent)
+                if (layoutParams.height != tileHeight) {
+                    layoutParams.height = tileHeight
+                    holder.itemView.layoutParams = layoutParams
+                }
+            }
+        }
+        holder.videoSink.maxFramesPerSecond = thumbnailMaxFramesPerSecond
+        holder.bind(participants[position]) { mutableViewHolderEvents.value = it }
+    }
+
+    override fun onBindViewHolder(
+        holder: ParticipantViewHolder,
+        position: Int,
+        payloads: MutableList<Any>
+    ) {
+        if (payloads.isEmpty() || payloads.any { it !is Set<*> }) {
+            onBindViewHolder(holder, position)
+            return
+        }
+        val changedFields = EnumSet.noneOf(ParticipantPayload::class.java)
+        payloads.forEach { payload ->
+            (payload as Set<*>).forEach { if (it is ParticipantPayload) changedFields.add(it) }
+        }
+        holder.bind(participants[position], changedFields) { mutableViewHolderEvents.value = it }
+    }
+
+    private fun gridTileHeight(parent: ViewGroup) =
+            maxOf(0, parent.height - parent.paddingTop - parent.paddingBottom) / gridRows
+
+    private fun applyChange(change: ParticipantChange) {
+        when (change) {
+            is ParticipantChange.Inserted -> notifyItemRangeInserted(change.position, change.count)
+            is ParticipantChange.Removed -> notifyItemRangeRemoved(change.position, change.count)
+            is ParticipantChange.Moved -> notifyItemMoved(change.fromPosition, change.toPosition)
+            is ParticipantChange.Changed -> notifyItemChanged(change.position, change.payloads)
+        }
+    }
 
     class ParticipantDiffCallback : DiffUtil.ItemCallback<ParticipantViewState>() {
         override fun areItemsTheSame(
@@ -33,7 +177,38 @@ internal class ParticipantAdapter : ListAdapter<ParticipantViewState, Participan
                 oldItem == newItem
 
         override fun getChangePayload(oldItem: ParticipantViewState, newItem: ParticipantViewState): Any? {
-            return newItem
+            return oldItem.thumbnailPayloads(newItem)
         }
     }
+
+    private class ParticipantListDiffCallback(
+        private val oldParticipants: List<ParticipantViewState>,
+        private val newParticipants: List<ParticipantViewState>,
+        private val itemCallback: ParticipantDiffCallback = ParticipantDiffCallback()
+    ) : DiffUtil.Callback() {
+
+        override fun getOldListSize() = oldParticipants.size
+
+        override fun getNewListSize() = newParticipants.size
+
+        override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                itemCallback.areItemsTheSame(
+                        oldParticipants[oldItemPosition], newParticipants[newItemPosition])
+
+        override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int) =
+                itemCallback.areContentsTheSame(
+                        oldParticipants[oldItemPosition], newParticipants[newItemPosition])
+
+        override fun getChangePayload(oldItemPosition: Int, newItemPosition: Int) =
+                itemCallback.getChangePayload(
+                        oldParticipants[oldItemPosition], newParticipants[newItemPosition])
+    }
+
+    private companion object {
+        const val NO_VERSION = -1L
+        const val THUMBNAIL_VIEW_TYPE = 0
+        /** RecyclerView's default pool size, kept so recycling still works with a low limit. */
+        const val MIN_THUMBNAIL_POOL_SIZE = 5
+        const val MAX_THUMBNAIL_POOL_SIZE = 16
+    }
 }
@@ -18,6 +18,8 @@ package com.twilio.video.app.ui.room;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
@@ -26,8 +28,16 @@ import androidx.core.content.ContextCompat;
 import com.twilio.video.app.R;
 import com.twilio.video.app.databinding.ParticipantViewBinding;
 
+/*
+ * Thumbnail tile that lays out its video, identity and indicator views directly, without
+ * intermediate containers. The tile background of every state and the stroke are drawn by the
+ * view itself from drawables that are only loaded once.
+ */
 public class ParticipantThumbView extends ParticipantView {
     private ParticipantViewBinding binding;
+    private Drawable videoBackground;
+    private Drawable noVideoBackground;
+    private Drawable selectedBackground;
 
     public ParticipantThumbView(Context context) {
         super(context);
@@ -52,13 +62,19 @@ public class ParticipantThumbView extends ParticipantView {
     }
 
     private void init(Context context) {
-        binding = ParticipantViewBinding.inflate(LayoutInflater.from(context), this, true);
-        videoLayout = binding.videoLayout;
+        videoBackground =
+                new ColorDrawable(
+                        ContextCompat.getColor(context, R.color.participantSelectedBackground));
+        noVideoBackground = ContextCompat.getDrawable(context, R.drawable.participant_background);
+        selectedBackground =
+                ContextCompat.getDrawable(context, R.drawable.participant_selected_background);
+        setForeground(ContextCompat.getDrawable(context, R.drawable.participant_stroke));
+
+        binding = ParticipantViewBinding.inflate(LayoutInflater.from(context), this);
         videoIdentity = binding.videoIdentity;
         videoView = binding.video;
-        selectedLayout = binding.selectedLayout;
-        stubImage = binding.stub;
         networkQualityLevelImg = binding.networkQuality;
+        stubImage = binding.stub;
         selectedIdentity = binding.selectedIdentity;
         audioToggle = binding.audioToggle;
         pinImage = binding.pin;
@@ -72,17 +88,17 @@ public class ParticipantThumbView extends ParticipantView {
     public void setState(int state) {
         super.setState(state);
 
-        binding.participantTrackSwitchOffBackground.setVisibility(isSwitchOffViewVisible(state));
-        binding.participantTrackSwitchOffIcon.setVisibility(isSwitchOffViewVisible(state));
+        binding.participantTrackSwitchOff.setVisibility(
+                state == State.SWITCHED_OFF ? View.VISIBLE : View.GONE);
 
-        int resId = R.drawable.participant_background;
+        Drawable background;
         if (state == State.SELECTED) {
-            resId = R.drawable.participant_selected_background;
+            background = selectedBackground;
+        } else if (state == State.NO_VIDEO) {
+            background = noVideoBackground;
+        } else {
+            background = videoBackground;
         }
-        selectedLayout.setBackground(ContextCompat.getDrawable(getContext(), resId));
-    }
-
-    private int isSwitchOffViewVisible(int state) {
-        return state == State.SWITCHED_OFF ? View.VISIBLE : View.GONE;
+        if (getBackground() != background) setBackground(background);
     }
 }
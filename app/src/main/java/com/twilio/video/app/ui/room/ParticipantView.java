@@ -21,16 +21,15 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.os.Build;
 import android.util.AttributeSet;
+import android.view.View;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
-import android.widget.RelativeLayout;
 import android.widget.TextView;
 import androidx.annotation.AttrRes;
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.StyleRes;
-import androidx.constraintlayout.widget.ConstraintLayout;
 import com.twilio.video.VideoScaleType;
 import com.twilio.video.VideoTextureView;
 import com.twilio.video.VideoTrack;
@@ -50,15 +49,16 @@ abstract class ParticipantView extends FrameLayout implements VideoSink {
     int scaleType = DEFAULT_VIDEO_SCALE_TYPE.ordinal();
 
     VideoTrack videoTrack;
-    ConstraintLayout videoLayout;
+    @Nullable View videoLayout;
     TextView videoIdentity;
     VideoTextureView videoView;
-    RelativeLayout selectedLayout;
-    ImageView stubImage;
+    @Nullable View selectedLayout;
+    @Nullable ImageView stubImage;
     @Nullable ImageView networkQualityLevelImg;
     TextView selectedIdentity;
     @Nullable ImageView audioToggle;
     @Nullable ImageView pinImage;
+    private final FrameStats frameStats = new FrameStats();
 
     public ParticipantView(@NonNull Context context) {
         super(context);
@@ -101,12 +101,12 @@ abstract class ParticipantView extends FrameLayout implements VideoSink {
                 break;
             case State.NO_VIDEO:
             case State.SELECTED:
-                videoLayout.setVisibility(GONE);
+                setVisibilityIfPresent(videoLayout, GONE);
                 videoIdentity.setVisibility(GONE);
                 videoView.setVisibility(GONE);
 
-                selectedLayout.setVisibility(VISIBLE);
-                stubImage.setVisibility(VISIBLE);
+                setVisibilityIfPresent(selectedLayout, VISIBLE);
+                setVisibilityIfPresent(stubImage, VISIBLE);
                 selectedIdentity.setVisibility(VISIBLE);
                 break;
             default:
@@ -115,15 +115,23 @@ abstract class ParticipantView extends FrameLayout implements VideoSink {
     }
 
     private void videoState() {
-        selectedLayout.setVisibility(GONE);
-        stubImage.setVisibility(GONE);
+        setVisibilityIfPresent(selectedLayout, GONE);
+        setVisibilityIfPresent(stubImage, GONE);
         selectedIdentity.setVisibility(GONE);
 
-        videoLayout.setVisibility(VISIBLE);
+        setVisibilityIfPresent(videoLayout, VISIBLE);
         videoIdentity.setVisibility(VISIBLE);
         videoView.setVisibility(VISIBLE);
     }
 
+    /*
+     * Flat layouts like the thumbnail have no separate container views for the video and the
+     * no video state.
+     */
+    private static void setVisibilityIfPresent(@Nullable View view, int visibility) {
+        if (view != null) view.setVisibility(visibility);
+    }
+
     public void setMirror(boolean mirror) {
         this.mirror = mirror;
         videoView.setMirror(this.mirror);
@@ -142,8 +150,17 @@ abstract class ParticipantView extends FrameLayout implements VideoSink {
         if (pinImage != null) pinImage.setVisibility(pinned ? VISIBLE : GONE);
     }
 
+    /*
+     * Counters of the frames this view rendered since it was given its current track.
+     */
+    FrameStats getFrameStats() {
+        return frameStats;
+    }
+
     @Override
     public void onFrame(VideoFrame videoFrame) {
+        frameStats.onFrame(
+                System.nanoTime(), videoFrame.getRotatedWidth(), videoFrame.getRotatedHeight());
         videoView.onFrame(videoFrame);
     }
 
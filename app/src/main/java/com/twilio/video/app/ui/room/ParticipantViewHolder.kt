@@ -12,36 +12,95 @@ import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_TWO
 import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_ZERO
 import com.twilio.video.VideoTrack
 import com.twilio.video.app.R
+import com.twilio.video.app.participant.ParticipantPayload
+import com.twilio.video.app.participant.ParticipantPayload.IDENTITY
+import com.twilio.video.app.participant.ParticipantPayload.MUTED
+import com.twilio.video.app.participant.ParticipantPayload.NETWORK_QUALITY
+import com.twilio.video.app.participant.ParticipantPayload.PINNED
+import com.twilio.video.app.participant.ParticipantPayload.SWITCHED_OFF
+import com.twilio.video.app.participant.ParticipantPayload.VIDEO_TRACK
 import com.twilio.video.app.participant.ParticipantViewState
 import com.twilio.video.app.sdk.VideoTrackViewState
 import com.twilio.video.app.ui.room.RoomViewEvent.PinParticipant
 import timber.log.Timber
 
-internal class ParticipantViewHolder(private val thumb: ParticipantThumbView) :
-        RecyclerView.ViewHolder(thumb) {
+internal class ParticipantViewHolder(
+    private val thumb: ParticipantThumbView,
+    private val videoSinkRegistry: VideoSinkRegistry = VideoSinkRegistry(),
+    private val renderHintController: RenderHintController = RenderHintController()
+) : RecyclerView.ViewHolder(thumb) {
 
     private val localParticipantIdentity = thumb.context.getString(R.string.you)
+    private var boundNetworkQualityImage: Int? = null
+    private var isVisible = false
+    val videoSink = FrameRateLimitedSink(thumb, THUMBNAIL_MAX_FRAMES_PER_SECOND)
+
+    init {
+        thumb.addOnLayoutChangeListener { _, _, _, _, _, _, _, _, _ -> updateRenderHint() }
+    }
+
+    /*
+     * The thumbnail only renders frames while it is attached to the window. A thumbnail that is
+     * scrolled off-screen stops receiving frames and hints a size of zero for its remote track.
+     */
+    fun onAttached() {
+        isVisible = true
+        thumb.videoTrack?.let { addSink(it) }
+        updateRenderHint()
+    }
+
+    fun onDetached() {
+        isVisible = false
+        thumb.videoTrack?.let { videoSinkRegistry.removeSink(it, videoSink) }
+        updateRenderHint()
+    }
+
+    fun onRecycled() {
+        thumb.videoTrack?.let { videoSinkRegistry.removeSink(it, videoSink) }
+        thumb.videoTrack = null
+        renderHintController.remove(thumb)
+    }
 
     fun bind(participantViewState: ParticipantViewState, viewEventAction: (RoomViewEvent) -> Unit) {
         Timber.d("bind ParticipantViewHolder with data item: %s", participantViewState)
         Timber.d("thumb: %s", thumb)
 
+        bind(participantViewState, ParticipantPayload.ALL, viewEventAction)
+    }
+
+    /*
+     * Only rebinds the views that display the changed fields, e.g. a network quality change only
+     * touches the network quality ImageView.
+     */
+    fun bind(
+        participantViewState: ParticipantViewState,
+        payloads: Set<ParticipantPayload>,
+        viewEventAction: (RoomViewEvent) -> Unit
+    ) {
         thumb.run {
-            participantViewState.sid?.let { sid ->
-                setOnClickListener {
-                    viewEventAction(PinParticipant(sid))
+            if (payloads.contains(IDENTITY)) {
+                participantViewState.sid?.let { sid ->
+                    setOnClickListener {
+                        viewEventAction(PinParticipant(sid))
+                    }
                 }
+                val identity = if (participantViewState.isLocalParticipant)
+                    localParticipantIdentity else participantViewState.identity
+                setIdentity(identity)
             }
-            val identity = if (participantViewState.isLocalParticipant)
-                localParticipantIdentity else participantViewState.identity
-            setIdentity(identity)
-            setMuted(participantViewState.isMuted)
-            setPinned(participantViewState.isPinned)
+            if (payloads.contains(MUTED)) setMuted(participantViewState.isMuted)
+            if (payloads.contains(PINNED)) setPinned(participantViewState.isPinned)
 
-            updateVideoTrack(participantViewState)
+            if (payloads.contains(VIDEO_TRACK)) {
+                updateVideoTrack(participantViewState)
+            } else if (payloads.contains(SWITCHED_OFF) && !participantViewState.isVideoHidden) {
+                setVideoState(participantViewState.videoTrack)
+            }
 
-            networkQualityLevelImg?.let {
-                setNetworkQualityLevelImage(it, participantViewState.networkQualityLevel)
+            if (payloads.contains(NETWORK_QUALITY)) {
+                networkQualityLevelImg?.let {
+                    setNetworkQualityLevelImage(it, participantViewState.networkQualityLevel)
+                }
             }
         }
     }
@@ -49,14 +108,18 @@ internal class ParticipantViewHolder(private val thumb: ParticipantThumbView) :
     private fun updateVideoTrack(participantViewState: ParticipantViewState) {
         thumb.run {
             val videoTrackViewState = participantViewState.videoTrack
+                    .takeUnless { participantViewState.isVideoHidden }
             val newVideoTrack = videoTrackViewState?.let { it.videoTrack }
             if (videoTrack !== newVideoTrack) {
-                removeRender(videoTrack, this)
+                videoTrack?.let { videoSinkRegistry.removeSink(it, videoSink) }
                 videoTrack = newVideoTrack
+                frameStats.reset()
+                videoSink.reset()
                 videoTrack?.let { videoTrack ->
                     setVideoState(videoTrackViewState)
-                    if (videoTrack.isEnabled) videoTrack.addSink(this)
+                    if (isVisible) addSink(videoTrack)
                 } ?: setState(ParticipantView.State.NO_VIDEO)
+                updateRenderHint()
             } else {
                 setVideoState(videoTrackViewState)
             }
@@ -72,9 +135,16 @@ internal class ParticipantViewHolder(private val thumb: ParticipantThumbView) :
         }
     }
 
-    private fun removeRender(videoTrack: VideoTrack?, view: ParticipantView) {
-        if (videoTrack == null || !videoTrack.sinks.contains(view)) return
-        videoTrack.removeSink(view)
+    private fun addSink(videoTrack: VideoTrack) {
+        if (videoTrack.isEnabled) videoSinkRegistry.addSink(videoTrack, videoSink)
+    }
+
+    private fun updateRenderHint() {
+        if (isVisible) {
+            renderHintController.update(thumb, thumb.videoTrack, thumb.width, thumb.height)
+        } else {
+            renderHintController.update(thumb, thumb.videoTrack, 0, 0)
+        }
     }
 
     private fun setNetworkQualityLevelImage(
@@ -91,7 +161,10 @@ internal class ParticipantViewHolder(private val thumb: ParticipantThumbView) :
             else -> null
         }?.let { image ->
             networkQualityImage.visibility = View.VISIBLE
-            networkQualityImage.setImageResource(image)
+            if (boundNetworkQualityImage != image) {
+                networkQualityImage.setImageResource(image)
+                boundNetworkQualityImage = image
+            }
         } ?: run { networkQualityImage.visibility = View.GONE }
     }
 }
@@ -18,10 +18,21 @@ package com.twilio.video.app.ui.room
 import com.twilio.video.VideoTrack
 import com.twilio.video.app.sdk.VideoTrackViewState
 
+/*
+ * Renders the primary participant. Every render is diffed against the previous Item so only the
+ * changed views are touched, and the sink only moves when the primary track changes.
+ */
 internal class PrimaryParticipantController(
-    private val primaryView: ParticipantPrimaryView
+    private val primaryView: ParticipantPrimaryView,
+    private val renderHintController: RenderHintController = RenderHintController(),
+    private val videoSinkRegistry: VideoSinkRegistry = VideoSinkRegistry()
 ) {
     private var primaryItem: Item? = null
+    private val primarySink = FrameRateLimitedSink(primaryView, PRIMARY_MAX_FRAMES_PER_SECOND)
+
+    init {
+        primaryView.addOnLayoutChangeListener { _, _, _, _, _, _, _, _, _ -> updateRenderHint() }
+    }
 
     fun renderAsPrimary(
         identity: String?,
@@ -30,34 +41,34 @@ internal class PrimaryParticipantController(
         muted: Boolean,
         mirror: Boolean
     ) {
-
         val old = primaryItem
-        val selectedTrack = screenTrack?.videoTrack ?: videoTrack?.videoTrack
-        val newItem = Item(identity, selectedTrack, muted, mirror)
-
-        // clean old primary video renderings
-        old?.let { removeRender(it.videoTrack, primaryView) }
-
+        val newItem = Item(identity, screenTrack?.videoTrack ?: videoTrack?.videoTrack, muted, mirror)
         primaryItem = newItem
-        primaryView.setIdentity(newItem.identity)
-        primaryView.showIdentityBadge(true)
-        primaryView.setMuted(newItem.muted)
-        primaryView.setMirror(newItem.mirror)
-        newItem.videoTrack?.let { newVideoTrack ->
-            if (newVideoTrack.isEnabled) newVideoTrack.addSink(primaryView)
-            primaryView.setState(ParticipantView.State.VIDEO)
-        } ?: primaryView.setState(ParticipantView.State.NO_VIDEO)
+
+        if (old == null || old.identity != newItem.identity) primaryView.setIdentity(newItem.identity)
+        if (old == null || old.muted != newItem.muted) primaryView.setMuted(newItem.muted)
+        if (old == null || old.mirror != newItem.mirror) primaryView.setMirror(newItem.mirror)
+        if (old == null || old.videoTrack !== newItem.videoTrack) {
+            old?.videoTrack?.let { videoSinkRegistry.removeSink(it, primarySink) }
+            primaryView.frameStats.reset()
+            primarySink.reset()
+            primaryView.setState(if (newItem.videoTrack != null)
+                ParticipantView.State.VIDEO else ParticipantView.State.NO_VIDEO)
+            updateRenderHint()
+        }
+        // A track that was disabled when it became primary gets its sink once it is enabled
+        newItem.videoTrack?.let { if (it.isEnabled) videoSinkRegistry.addSink(it, primarySink) }
     }
 
-    private fun removeRender(videoTrack: VideoTrack?, view: ParticipantView) {
-        if (videoTrack == null || !videoTrack.sinks.contains(view)) return
-        videoTrack.removeSink(view)
+    private fun updateRenderHint() {
+        renderHintController.update(primaryView, primaryItem?.videoTrack,
+                primaryView.width, primaryView.height)
     }
 
-    internal class Item(
-        var identity: String?,
-        var videoTrack: VideoTrack?,
-        var muted: Boolean,
-        var mirror: Boolean
+    internal data class Item(
+        val identity: String?,
+        val videoTrack: VideoTrack?,
+        val muted: Boolean,
+        val mirror: Boolean
     )
 }
@@ -0,0 +1,129 @@
+package com.twilio.video.app.ui.room
+
+import android.view.View
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority
+import com.twilio.video.TrackPriority.HIGH
+import com.twilio.video.TrackPriority.LOW
+import com.twilio.video.TrackPriority.STANDARD
+import com.twilio.video.VideoDimensions
+import com.twilio.video.VideoTrack
+import com.twilio.video.app.participant.LoweredTrackPriorities
+import timber.log.Timber
+
+const val DEFAULT_RENDER_HINT_DEBOUNCE_MILLIS = 300L
+
+/*
+ * Render dimensions that are assumed for priorities that use the server default.
+ */
+private val DEFAULT_RENDER_DIMENSIONS = mapOf(
+        LOW to VideoDimensions(176, 144),
+        STANDARD to VideoDimensions(640, 480),
+        HIGH to VideoDimensions(1280, 720))
+private val PRIORITIES = listOf(LOW, STANDARD, HIGH)
+
+/*
+ * Hints the server about the size remote video tracks are actually rendered at. The bandwidth
+ * profile render dimensions can only be set per track priority when connecting, so every
+ * remote video track is given the lowest priority whose render dimensions still cover the
+ * largest view that renders it. Views that are not visible report a size of zero and lower
+ * their track to LOW.
+ *
+ * A HIGH priority that was not set by a hint, e.g. the pinned primary participant, is never
+ * lowered, and only priorities that were set by a hint are cleared again. Tracks that a
+ * participant policy lowered are left to LoweredTrackPriorities until it restores them. Size
+ * updates are debounced so that layout passes do not thrash track priorities. Only used on the
+ * main thread.
+ */
+internal class RenderHintController(
+    private val renderDimensions: Map<TrackPriority, VideoDimensions> = emptyMap(),
+    private val delayScheduler: DelayScheduler = HandlerDelayScheduler(),
+    private val debounceMillis: Long = DEFAULT_RENDER_HINT_DEBOUNCE_MILLIS
+) {
+
+    private val viewHints = HashMap<View, ViewHint>()
+    private val hintedPriorities = HashMap<RemoteVideoTrack, TrackPriority>()
+    private val applyHints = Runnable { applyHints() }
+
+    /** Number of times pending hints were applied to the tracks. */
+    var applyCount = 0
+        private set
+
+    fun update(view: View, videoTrack: VideoTrack?, width: Int, height: Int) {
+        val viewHint = ViewHint(videoTrack as? RemoteVideoTrack, width, height)
+        if (viewHints.put(view, viewHint) != viewHint) schedule()
+    }
+
+    fun remove(view: View) {
+        if (viewHints.remove(view) != null) schedule()
+    }
+
+    fun release() {
+        delayScheduler.removeCallbacks(applyHints)
+        viewHints.clear()
+        hintedPriorities.clear()
+    }
+
+    fun priorityFor(width: Int, height: Int): TrackPriority {
+        if (width <= 0 || height <= 0) return LOW
+        val longSide = maxOf(width, height)
+        val shortSide = minOf(width, height)
+        return PRIORITIES.firstOrNull { priority ->
+            val dimensions = renderDimensions[priority] ?: DEFAULT_RENDER_DIMENSIONS.getValue(priority)
+            longSide <= maxOf(dimensions.width, dimensions.height) &&
+                    shortSide <= minOf(dimensions.width, dimensions.height)
+        } ?: HIGH
+    }
+
+    private fun schedule() {
+        delayScheduler.removeCallbacks(applyHints)
+        delayScheduler.postDelayed(applyHints, debounceMillis)
+    }
+
+    private fun applyHints() {
+        applyCount++
+        val trackPriorities = HashMap<RemoteVideoTrack, TrackPriority>()
+        viewHints.values.forEach { viewHint ->
+            val videoTrack = viewHint.videoTrack ?: return@forEach
+            val priority = priorityFor(viewHint.width, viewHint.height)
+            val currentHint = trackPriorities[videoTrack]
+            if (currentHint == null || PRIORITIES.indexOf(priority) > PRIORITIES.indexOf(currentHint)) {
+                trackPriorities[videoTrack] = priority
+            }
+        }
+        trackPriorities.forEach { (videoTrack, priority) ->
+            if (LoweredTrackPriorities.isLowered(videoTrack)) {
+                hintedPriorities.remove(videoTrack)
+            } else {
+                applyPriority(videoTrack, priority)
+            }
+        }
+
+        val iterator = hintedPriorities.entries.iterator()
+        while (iterator.hasNext()) {
+            val (videoTrack, hintedPriority) = iterator.next()
+            if (trackPriorities.containsKey(videoTrack)) continue
+            if (videoTrack.priority == hintedPriority && !LoweredTrackPriorities.isLowered(videoTrack)) {
+                videoTrack.priority = null
+            }
+            iterator.remove()
+        }
+    }
+
+    private fun applyPriority(videoTrack: RemoteVideoTrack, priority: TrackPriority) {
+        val currentPriority = videoTrack.priority
+        if (currentPriority != priority &&
+                (currentPriority != HIGH || hintedPriorities[videoTrack] == HIGH)) {
+            Timber.d("Render hint changes track %s priority from %s to %s",
+                    videoTrack.sid, currentPriority, priority)
+            videoTrack.priority = priority
+            hintedPriorities[videoTrack] = priority
+        }
+    }
+
+    private data class ViewHint(
+        val videoTrack: RemoteVideoTrack?,
+        val width: Int,
+        val height: Int
+    )
+}
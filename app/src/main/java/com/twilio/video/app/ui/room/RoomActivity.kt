@@ -33,21 +33,30 @@ import android.net.Uri
 import android.os.Build
 import android.os.Bundle
 import android.text.TextUtils
+import android.view.GestureDetector
 import android.view.Menu
 import android.view.MenuItem
+import android.view.MotionEvent
 import android.view.View
 import android.view.WindowManager
+import android.widget.FrameLayout
 import androidx.core.content.ContextCompat
+import androidx.core.view.GravityCompat
 import androidx.core.widget.doOnTextChanged
+import androidx.drawerlayout.widget.DrawerLayout
+import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.ViewModelProvider
+import androidx.recyclerview.widget.GridLayoutManager
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
 import com.google.android.material.snackbar.BaseTransientBottomBar
 import com.google.android.material.snackbar.Snackbar
-import com.twilio.audioswitch.AudioDevice
 import com.twilio.audioswitch.AudioDevice.BluetoothHeadset
 import com.twilio.audioswitch.AudioDevice.Speakerphone
 import com.twilio.audioswitch.AudioDevice.WiredHeadset
 import com.twilio.audioswitch.AudioSwitch
+import com.twilio.video.BandwidthProfileMode
+import com.twilio.video.RemoteVideoTrack
 import com.twilio.video.app.R
 import com.twilio.video.app.adapter.StatsListAdapter
 import com.twilio.video.app.base.BaseActivity
@@ -55,8 +64,15 @@ import com.twilio.video.app.data.Preferences
 import com.twilio.video.app.data.api.AuthServiceError
 import com.twilio.video.app.data.api.TokenService
 import com.twilio.video.app.databinding.RoomActivityBinding
+import com.twilio.video.app.participant.DEFAULT_GRID_PAGE_SIZE
+import com.twilio.video.app.participant.GRID_COLUMNS
+import com.twilio.video.app.participant.GridPage
+import com.twilio.video.app.participant.ParticipantGridPager
+import com.twilio.video.app.participant.ParticipantManager
 import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.participant.SpeakerRecencyPolicy
 import com.twilio.video.app.sdk.RoomManager
+import com.twilio.video.app.sdk.getRenderDimensions
 import com.twilio.video.app.ui.room.RoomViewConfiguration.Connecting
 import com.twilio.video.app.ui.room.RoomViewConfiguration.Lobby
 import com.twilio.video.app.ui.room.RoomViewEffect.Connected
@@ -76,6 +92,7 @@ import com.twilio.video.app.ui.room.RoomViewEvent.EnableLocalVideo
 import com.twilio.video.app.ui.room.RoomViewEvent.OnPause
 import com.twilio.video.app.ui.room.RoomViewEvent.OnResume
 import com.twilio.video.app.ui.room.RoomViewEvent.SelectAudioDevice
+import com.twilio.video.app.ui.room.RoomViewEvent.SelectGridPage
 import com.twilio.video.app.ui.room.RoomViewEvent.StartScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.StopScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.SwitchCamera
@@ -85,9 +102,19 @@ import com.twilio.video.app.ui.room.RoomViewModel.RoomViewModelFactory
 import com.twilio.video.app.ui.settings.SettingsActivity
 import com.twilio.video.app.util.InputUtils
 import com.twilio.video.app.util.PermissionUtil
+import com.twilio.video.app.util.get
 import io.uniflow.androidx.flow.onEvents
 import io.uniflow.androidx.flow.onStates
 import javax.inject.Inject
+import kotlin.math.abs
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.MainScope
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
 import timber.log.Timber
 
 class RoomActivity : BaseActivity() {
@@ -102,6 +129,13 @@ class RoomActivity : BaseActivity() {
     private var displayName: String? = null
     private var localParticipantSid = LOCAL_PARTICIPANT_STUB_SID
     private lateinit var statsListAdapter: StatsListAdapter
+    private var isActivityResumed = false
+    private var isStatsPaneVisible = false
+    private val statsScope = MainScope()
+    private var statsJob: Job? = null
+    private var gridPage: GridPage? = null
+    private val roomViewStates = MutableLiveData<RoomViewState>()
+    private var roomViewStateSlices: RoomViewStateSlices? = null
 
     @Inject
     lateinit var tokenService: TokenService
@@ -118,6 +152,18 @@ class RoomActivity : BaseActivity() {
     /** Coordinates participant thumbs and primary participant rendering.  */
     private lateinit var primaryParticipantController: PrimaryParticipantController
     private lateinit var participantAdapter: ParticipantAdapter
+    private val renderHintController by lazy {
+        RenderHintController(sharedPreferences.getRenderDimensions())
+    }
+    /** Participants are shown as pages of a grid instead of a primary view and thumbnails. */
+    private val isGridMode by lazy {
+        sharedPreferences.get(Preferences.BANDWIDTH_PROFILE_MODE,
+                Preferences.BANDWIDTH_PROFILE_MODE_DEFAULT) == BandwidthProfileMode.GRID.name
+    }
+    private val maxVideoTracks by lazy {
+        sharedPreferences.get(Preferences.BANDWIDTH_PROFILE_MAX_VIDEO_TRACKS,
+                Preferences.BANDWIDTH_PROFILE_MAX_VIDEO_TRACKS_DEFAULT)
+    }
     private lateinit var roomViewModel: RoomViewModel
     private lateinit var recordingAnimation: ObjectAnimator
 
@@ -132,7 +178,13 @@ class RoomActivity : BaseActivity() {
         binding.disconnect.setOnClickListener { disconnectButtonClick() }
         binding.localVideo.setOnClickListener { toggleLocalVideo() }
         binding.localAudio.setOnClickListener { toggleLocalAudio() }
-        val factory = RoomViewModelFactory(roomManager, audioSwitch, PermissionUtil(this))
+        val participantManager = if (isGridMode) {
+            ParticipantManager(gridPager = ParticipantGridPager())
+        } else {
+            ParticipantManager(speakerPolicy = SpeakerRecencyPolicy(maxVideoTracks))
+        }
+        val factory = RoomViewModelFactory(roomManager, audioSwitch, PermissionUtil(this),
+                participantManager)
         roomViewModel = ViewModelProvider(this, factory).get(RoomViewModel::class.java)
 
         // So calls can be answered when screen is locked
@@ -142,6 +194,12 @@ class RoomActivity : BaseActivity() {
 
         // Grab views
         setupThumbnailRecyclerView()
+        setupStatsRecyclerView()
+        binding.navigationDrawer.addDrawerListener(object : DrawerLayout.SimpleDrawerListener() {
+            override fun onDrawerOpened(drawerView: View) = updateStatsPaneVisibility()
+
+            override fun onDrawerClosed(drawerView: View) = updateStatsPaneVisibility()
+        })
 
         // Setup toolbar
         setSupportActionBar(binding.toolbar)
@@ -150,7 +208,8 @@ class RoomActivity : BaseActivity() {
         savedVolumeControlStream = volumeControlStream
 
         // Setup participant controller
-        primaryParticipantController = PrimaryParticipantController(binding.room.primaryVideo)
+        primaryParticipantController = PrimaryParticipantController(binding.room.primaryVideo,
+                renderHintController, participantAdapter.videoSinkRegistry)
 
         setupRecordingAnimation()
     }
@@ -158,6 +217,8 @@ class RoomActivity : BaseActivity() {
     override fun onDestroy() {
         super.onDestroy()
         recordingAnimation.cancel()
+        statsScope.cancel()
+        renderHintController.release()
     }
 
     override fun onStart() {
@@ -168,13 +229,21 @@ class RoomActivity : BaseActivity() {
     override fun onResume() {
         super.onResume()
         displayName = sharedPreferences.getString(Preferences.DISPLAY_NAME, null)
-        setTitle(displayName)
+        roomViewStateSlices?.let { slices ->
+            // The display name and the stats setting may have changed while paused
+            slices.layout.value?.let { updateLayout(it) }
+            slices.stats.value?.let { updateStatsUI(it) }
+        } ?: setTitle(displayName)
         roomViewModel.processInput(OnResume)
+        isActivityResumed = true
+        updateStatsPaneVisibility()
     }
 
     override fun onPause() {
         super.onPause()
         roomViewModel.processInput(OnPause)
+        isActivityResumed = false
+        updateStatsPaneVisibility()
     }
 
     public override fun onSaveInstanceState(outState: Bundle) {
@@ -207,8 +276,9 @@ class RoomActivity : BaseActivity() {
         deviceMenuItem = menu.findItem(R.id.device_menu_item)
 
         onStates(roomViewModel) { state ->
-            if (state is RoomViewState) bindRoomViewState(state)
+            if (state is RoomViewState) roomViewStates.value = state
         }
+        if (roomViewStateSlices == null) observeRoomViewStateSlices()
         onEvents(roomViewModel) { eventWrapper ->
             eventWrapper.take()?.let { event ->
                 if (event is RoomViewEffect) bindRoomViewEffects(event)
@@ -306,13 +376,94 @@ class RoomActivity : BaseActivity() {
     }
 
     private fun setupThumbnailRecyclerView() {
+        if (isGridMode) {
+            setupGridRecyclerView()
+            return
+        }
         val layoutManager = LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false)
         binding.room.remoteVideoThumbnails.layoutManager = layoutManager
-        participantAdapter = ParticipantAdapter()
+        participantAdapter = ParticipantAdapter(renderHintController = renderHintController)
         participantAdapter
                 .viewHolderEvents
                 .observe(this, { viewEvent: RoomViewEvent -> roomViewModel.processInput(viewEvent) })
         binding.room.remoteVideoThumbnails.adapter = participantAdapter
+        participantAdapter.prewarmViewPool(binding.room.remoteVideoThumbnails, maxVideoTracks)
+    }
+
+    /*
+     * The grid fills the room view and shows one page of participants at a time. A horizontal
+     * fling switches to the next or previous page.
+     */
+    private fun setupGridRecyclerView() {
+        val recyclerView = binding.room.remoteVideoThumbnails
+        recyclerView.layoutParams = (recyclerView.layoutParams as FrameLayout.LayoutParams).apply {
+            height = FrameLayout.LayoutParams.MATCH_PARENT
+            setMargins(0, 0, 0, 0)
+        }
+        recyclerView.isHorizontalScrollBarEnabled = false
+        recyclerView.layoutManager = GridLayoutManager(this, GRID_COLUMNS)
+        participantAdapter = ParticipantAdapter(renderHintController = renderHintController,
+                gridRows = DEFAULT_GRID_PAGE_SIZE / GRID_COLUMNS)
+        participantAdapter
+                .viewHolderEvents
+                .observe(this, { viewEvent: RoomViewEvent -> roomViewModel.processInput(viewEvent) })
+        recyclerView.adapter = participantAdapter
+        val gestureDetector = GestureDetector(this, object : GestureDetector.SimpleOnGestureListener() {
+            override fun onFling(
+                e1: MotionEvent?,
+                e2: MotionEvent?,
+                velocityX: Float,
+                velocityY: Float
+            ): Boolean {
+                val page = gridPage?.page ?: return false
+                if (abs(velocityX) <= abs(velocityY)) return false
+                roomViewModel.processInput(SelectGridPage(if (velocityX < 0) page + 1 else page - 1))
+                return true
+            }
+        })
+        recyclerView.addOnItemTouchListener(object : RecyclerView.SimpleOnItemTouchListener() {
+            override fun onInterceptTouchEvent(rv: RecyclerView, e: MotionEvent): Boolean {
+                gestureDetector.onTouchEvent(e)
+                return false
+            }
+        })
+        participantAdapter.prewarmViewPool(recyclerView, DEFAULT_GRID_PAGE_SIZE)
+    }
+
+    private fun setupStatsRecyclerView() {
+        statsListAdapter = StatsListAdapter(this)
+        binding.statsRecyclerView.layoutManager = LinearLayoutManager(this)
+        binding.statsRecyclerView.adapter = statsListAdapter
+    }
+
+    /*
+     * Stats are only polled while the stats pane is open in a resumed activity.
+     */
+    private fun updateStatsPaneVisibility() {
+        val enableStats = sharedPreferences.getBoolean(
+                Preferences.ENABLE_STATS, Preferences.ENABLE_STATS_DEFAULT)
+        val isVisible = enableStats && isActivityResumed &&
+                binding.navigationDrawer.isDrawerOpen(GravityCompat.END)
+        if (isVisible != isStatsPaneVisible) {
+            isStatsPaneVisible = isVisible
+            statsJob?.cancel()
+            statsJob = if (isVisible) collectRoomStats() else null
+        }
+    }
+
+    /*
+     * The stats rows are built off the main thread. Only the frame stats of the rendered tracks
+     * are gathered on the main thread because the sink registry is not thread safe.
+     */
+    private fun collectRoomStats() = statsScope.launch {
+        roomViewModel.roomStats
+                .map { roomStats -> roomStats to collectFrameStats() }
+                .flowOn(Dispatchers.Main)
+                .map { (roomStats, frameStats) ->
+                    statsListAdapter.buildStatsItems(roomStats, frameStats)
+                }
+                .flowOn(Dispatchers.Default)
+                .collect { statsListAdapter.submitStatsItems(it) }
     }
 
     private fun roomNameTextChanged(text: CharSequence?) {
@@ -354,7 +505,7 @@ class RoomActivity : BaseActivity() {
         }
     }
 
-    private fun updateLayout(roomViewState: RoomViewState) {
+    private fun updateLayout(layout: LayoutSlice) {
         var disconnectButtonState = View.GONE
         var joinRoomLayoutState = View.VISIBLE
         var joinStatusLayoutState = View.GONE
@@ -367,7 +518,7 @@ class RoomActivity : BaseActivity() {
         var toolbarTitle = displayName
         var joinStatus = ""
         var recordingWarningVisibility = View.GONE
-        when (roomViewState.configuration) {
+        when (layout.configuration) {
             Connecting -> {
                 disconnectButtonState = View.VISIBLE
                 joinRoomLayoutState = View.GONE
@@ -387,11 +538,11 @@ class RoomActivity : BaseActivity() {
                 settingsMenuItemState = false
                 screenCaptureMenuItemState = true
                 connectButtonEnabled = false
-                roomName = roomViewState.title
+                roomName = layout.title
                 toolbarTitle = roomName
                 joinStatus = ""
                 binding.recordingIndicator.visibility =
-                        if (roomViewState.isRecording) View.VISIBLE else View.GONE
+                        if (layout.isRecording) View.VISIBLE else View.GONE
             }
             Lobby -> {
                 connectButtonEnabled = isRoomTextNotEmpty
@@ -399,18 +550,6 @@ class RoomActivity : BaseActivity() {
                 binding.recordingIndicator.visibility = View.GONE
             }
         }
-        val isMicEnabled = roomViewState.isMicEnabled
-        val isCameraEnabled = roomViewState.isCameraEnabled
-        val isLocalMediaEnabled = isMicEnabled && isCameraEnabled
-        binding.localAudio.isEnabled = isLocalMediaEnabled
-        binding.localVideo.isEnabled = isLocalMediaEnabled
-        val micDrawable = if (roomViewState.isAudioMuted || !isLocalMediaEnabled) R.drawable.ic_mic_off_gray_24px else R.drawable.ic_mic_white_24px
-        val videoDrawable = if (roomViewState.isVideoOff || !isLocalMediaEnabled) R.drawable.ic_videocam_off_gray_24px else R.drawable.ic_videocam_white_24px
-        binding.localAudio.setImageResource(micDrawable)
-        binding.localVideo.setImageResource(videoDrawable)
-        statsListAdapter = StatsListAdapter(this)
-        binding.statsRecyclerView.adapter = statsListAdapter
-        binding.statsRecyclerView.layoutManager = LinearLayoutManager(this)
         binding.disconnect.visibility = disconnectButtonState
         binding.joinRoom.joinRoomLayout.visibility = joinRoomLayoutState
         binding.joinStatusLayout.visibility = joinStatusLayoutState
@@ -419,16 +558,29 @@ class RoomActivity : BaseActivity() {
         binding.joinStatus.text = joinStatus
         binding.joinRoomName.text = roomName
         binding.recordingNotice.visibility = recordingWarningVisibility
-        val pauseAudioTitle = getString(if (roomViewState.isAudioEnabled) R.string.pause_audio else R.string.resume_audio)
-        val pauseVideoTitle = getString(if (roomViewState.isVideoEnabled) R.string.pause_video else R.string.resume_video)
-        pauseAudioMenuItem.title = pauseAudioTitle
-        pauseVideoMenuItem.title = pauseVideoTitle
 
         // TODO: Remove when we use a Service to obtainTokenAndConnect to a room
         settingsMenuItem.isVisible = settingsMenuItemState
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
             screenCaptureMenuItem.isVisible = screenCaptureMenuItemState
-            val screenCaptureResources = if (roomViewState.isScreenCaptureOn) {
+        }
+    }
+
+    private fun updateLocalMediaControls(localMedia: LocalMediaSlice) {
+        val isLocalMediaEnabled = localMedia.isMicEnabled && localMedia.isCameraEnabled
+        binding.localAudio.isEnabled = isLocalMediaEnabled
+        binding.localVideo.isEnabled = isLocalMediaEnabled
+        val micDrawable = if (localMedia.isAudioMuted || !isLocalMediaEnabled) R.drawable.ic_mic_off_gray_24px else R.drawable.ic_mic_white_24px
+        val videoDrawable = if (localMedia.isVideoOff || !isLocalMediaEnabled) R.drawable.ic_videocam_off_gray_24px else R.drawable.ic_videocam_white_24px
+        binding.localAudio.setImageResource(micDrawable)
+        binding.localVideo.setImageResource(videoDrawable)
+        val pauseAudioTitle = getString(if (localMedia.isAudioEnabled) R.string.pause_audio else R.string.resume_audio)
+        val pauseVideoTitle = getString(if (localMedia.isVideoEnabled) R.string.pause_video else R.string.resume_video)
+        pauseAudioMenuItem.title = pauseAudioTitle
+        pauseVideoMenuItem.title = pauseVideoTitle
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            val screenCaptureResources = if (localMedia.isScreenCaptureOn) {
                 R.drawable.ic_stop_screen_share_white_24dp to getString(R.string.stop_screen_share)
             } else {
                 R.drawable.ic_screen_share_white_24dp to getString(R.string.share_screen)
@@ -467,21 +619,38 @@ class RoomActivity : BaseActivity() {
                 mediaProjectionManager.createScreenCaptureIntent(), MEDIA_PROJECTION_REQUEST_CODE)
     }
 
-    private fun updateStatsUI(roomViewState: RoomViewState) {
+    /*
+     * Render counters of the displayed remote video tracks by track sid. The primary view and the
+     * thumbnails share one sink registry. A track that is shown in more than one view reports the
+     * view with the highest frame rate.
+     */
+    private fun collectFrameStats(): Map<String, FrameStatsSnapshot> {
+        val frameStats = HashMap<String, FrameStatsSnapshot>()
+        participantAdapter.videoSinkRegistry.forEachSink { videoTrack, sink ->
+            val view = (if (sink is FrameRateLimitedSink) sink.delegate else sink) as? ParticipantView
+            val trackSid = (videoTrack as? RemoteVideoTrack)?.sid
+            if (view != null && trackSid != null) {
+                val snapshot = view.frameStats.snapshot()
+                val current = frameStats[trackSid]
+                if (current == null || snapshot.framesPerSecond > current.framesPerSecond) {
+                    frameStats[trackSid] = snapshot
+                }
+            }
+        }
+        return frameStats
+    }
+
+    private fun updateStatsUI(stats: StatsSlice) {
         val enableStats = sharedPreferences.getBoolean(
                 Preferences.ENABLE_STATS, Preferences.ENABLE_STATS_DEFAULT)
         if (enableStats) {
-            when (roomViewState.configuration) {
+            when (stats.configuration) {
                 RoomViewConfiguration.Connected -> {
-                    statsListAdapter.updateStatsData(roomViewState.roomStats)
                     binding.statsRecyclerView.visibility = View.VISIBLE
                     binding.statsDisabled.visibility = View.GONE
 
                     // disable stats if there is room but no participants (no media)
-                    val isStreamingMedia = roomViewState.participantThumbnails?.let { thumbnails ->
-                        thumbnails.size > 1
-                    } ?: false
-                    if (!isStreamingMedia) {
+                    if (!stats.isStreamingMedia) {
                         binding.statsDisabledTitle.text = getString(R.string.stats_unavailable)
                         binding.statsDisabledDescription.text = getString(R.string.stats_description_media_not_shared)
                         binding.statsRecyclerView.visibility = View.GONE
@@ -509,13 +678,19 @@ class RoomActivity : BaseActivity() {
         roomViewModel.processInput(viewEvent)
     }
 
-    private fun bindRoomViewState(roomViewState: RoomViewState) {
-        deviceMenuItem.isVisible = roomViewState.availableAudioDevices?.isNotEmpty() ?: false
-        renderPrimaryView(roomViewState.primaryParticipant)
-        renderThumbnails(roomViewState)
-        updateLayout(roomViewState)
-        updateAudioDeviceIcon(roomViewState.selectedDevice)
-        updateStatsUI(roomViewState)
+    /*
+     * Every group of views observes its own slice of the view state and is only rebound when
+     * that slice changed.
+     */
+    private fun observeRoomViewStateSlices() {
+        val slices = RoomViewStateSlices(roomViewStates)
+        roomViewStateSlices = slices
+        slices.primary.observe(this, { renderPrimaryView(it) })
+        slices.thumbnails.observe(this, { renderThumbnails(it) })
+        slices.layout.observe(this, { updateLayout(it) })
+        slices.localMedia.observe(this, { updateLocalMediaControls(it) })
+        slices.audioDevice.observe(this, { updateAudioDevice(it) })
+        slices.stats.observe(this, { updateStatsUI(it) })
     }
 
     private fun bindRoomViewEffects(roomViewEffect: RoomViewEffect) {
@@ -552,8 +727,9 @@ class RoomActivity : BaseActivity() {
                     }
             )
 
-    private fun updateAudioDeviceIcon(selectedAudioDevice: AudioDevice?) {
-        val audioDeviceMenuIcon = when (selectedAudioDevice) {
+    private fun updateAudioDevice(audioDevice: AudioDeviceSlice) {
+        deviceMenuItem.isVisible = audioDevice.availableAudioDevices?.isNotEmpty() ?: false
+        val audioDeviceMenuIcon = when (audioDevice.selectedDevice) {
             is BluetoothHeadset -> R.drawable.ic_bluetooth_white_24dp
             is WiredHeadset -> R.drawable.ic_headset_mic_white_24dp
             is Speakerphone -> R.drawable.ic_volume_up_white_24dp
@@ -562,7 +738,15 @@ class RoomActivity : BaseActivity() {
         this.deviceMenuItem.setIcon(audioDeviceMenuIcon)
     }
 
-    private fun renderPrimaryView(primaryParticipant: ParticipantViewState) {
+    private fun renderPrimaryView(primary: PrimarySlice) {
+        if (isGridMode && primary.configuration is RoomViewConfiguration.Connected) {
+            // The grid shows every participant, the primary view must not hold on to a track
+            binding.room.primaryVideo.visibility = View.GONE
+            primaryParticipantController.renderAsPrimary(null, null, null, false, false)
+            return
+        }
+        binding.room.primaryVideo.visibility = View.VISIBLE
+        val primaryParticipant = primary.primaryParticipant
         primaryParticipant.run {
             primaryParticipantController.renderAsPrimary(
                     if (isLocalParticipant) getString(R.string.you) else identity,
@@ -574,9 +758,18 @@ class RoomActivity : BaseActivity() {
         }
     }
 
-    private fun renderThumbnails(roomViewState: RoomViewState) {
-        val newThumbnails = if (roomViewState.configuration is RoomViewConfiguration.Connected)
-            roomViewState.participantThumbnails else null
+    private fun renderThumbnails(thumbnails: ThumbnailsSlice) {
+        val isConnected = thumbnails.configuration is RoomViewConfiguration.Connected
+        participantAdapter.thumbnailMaxFramesPerSecond = thumbnails.thumbnailMaxFramesPerSecond
+        if (isGridMode) {
+            gridPage = if (isConnected) thumbnails.gridPage else null
+            participantAdapter.submitList(gridPage?.participants)
+            supportActionBar?.subtitle = gridPage?.takeIf { it.pageCount > 1 }?.let {
+                getString(R.string.grid_page, it.page + 1, it.pageCount)
+            }
+            return
+        }
+        val newThumbnails = if (isConnected) thumbnails.participantThumbnails else null
         participantAdapter.submitList(newThumbnails)
     }
 
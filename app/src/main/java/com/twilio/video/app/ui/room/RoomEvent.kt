@@ -5,7 +5,7 @@ import com.twilio.video.Participant
 import com.twilio.video.Room
 import com.twilio.video.VideoTrack
 import com.twilio.video.app.data.api.AuthServiceError
-import com.twilio.video.app.sdk.RoomStats
+import com.twilio.video.app.sdk.MediaBudget
 
 sealed class RoomEvent {
 
@@ -22,7 +22,7 @@ sealed class RoomEvent {
     object RecordingStopped : RoomEvent()
     data class TokenError(val serviceError: AuthServiceError? = null) : RoomEvent()
     data class DominantSpeakerChanged(val newDominantSpeakerSid: String?) : RoomEvent()
-    data class StatsUpdate(val roomStats: RoomStats) : RoomEvent()
+    data class MediaBudgetChanged(val mediaBudget: MediaBudget) : RoomEvent()
 
     sealed class RemoteParticipantEvent : RoomEvent() {
 
@@ -22,5 +22,6 @@ sealed class RoomViewEvent {
     data class PinParticipant(val sid: String) : RoomViewEvent()
     data class VideoTrackRemoved(val sid: String) : RoomViewEvent()
     data class ScreenTrackRemoved(val sid: String) : RoomViewEvent()
+    data class SelectGridPage(val page: Int) : RoomViewEvent()
     object Disconnect : RoomViewEvent()
 }
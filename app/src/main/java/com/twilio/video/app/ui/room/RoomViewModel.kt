@@ -11,6 +11,7 @@ import com.twilio.video.Participant
 import com.twilio.video.app.participant.ParticipantManager
 import com.twilio.video.app.participant.buildParticipantViewState
 import com.twilio.video.app.sdk.RoomManager
+import com.twilio.video.app.sdk.RoomStats
 import com.twilio.video.app.sdk.VideoTrackViewState
 import com.twilio.video.app.ui.room.RoomEvent.ConnectFailure
 import com.twilio.video.app.ui.room.RoomEvent.Connected
@@ -27,6 +28,7 @@ import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.ScreenCaptur
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoDisabled
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoEnabled
 import com.twilio.video.app.ui.room.RoomEvent.MaxParticipantFailure
+import com.twilio.video.app.ui.room.RoomEvent.MediaBudgetChanged
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStopped
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent
@@ -37,7 +39,6 @@ import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParti
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.ScreenTrackUpdated
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.TrackSwitchOff
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.VideoTrackUpdated
-import com.twilio.video.app.ui.room.RoomEvent.StatsUpdate
 import com.twilio.video.app.ui.room.RoomEvent.TokenError
 import com.twilio.video.app.ui.room.RoomViewConfiguration.Lobby
 import com.twilio.video.app.ui.room.RoomViewEffect.PermissionsDenied
@@ -57,6 +58,7 @@ import com.twilio.video.app.ui.room.RoomViewEvent.OnResume
 import com.twilio.video.app.ui.room.RoomViewEvent.PinParticipant
 import com.twilio.video.app.ui.room.RoomViewEvent.ScreenTrackRemoved
 import com.twilio.video.app.ui.room.RoomViewEvent.SelectAudioDevice
+import com.twilio.video.app.ui.room.RoomViewEvent.SelectGridPage
 import com.twilio.video.app.ui.room.RoomViewEvent.StartScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.StopScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.SwitchCamera
@@ -68,20 +70,28 @@ import io.uniflow.androidx.flow.AndroidDataFlow
 import io.uniflow.core.flow.actionOn
 import io.uniflow.core.flow.data.UIState
 import kotlinx.coroutines.CancellationException
-import kotlinx.coroutines.channels.ClosedReceiveChannelException
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.isActive
 import kotlinx.coroutines.launch
 import timber.log.Timber
 
+private const val STATS_PANE_CONSUMER = "stats_pane"
+
 class RoomViewModel(
     private val roomManager: RoomManager,
     private val audioSwitch: AudioSwitch,
     private val permissionUtil: PermissionUtil,
     private val participantManager: ParticipantManager = ParticipantManager(),
-    initialViewState: RoomViewState = RoomViewState(participantManager.primaryParticipant)
+    initialViewState: RoomViewState = RoomViewState(participantManager.primaryParticipant),
+    frameClock: FrameClock = ChoreographerFrameClock()
 ) : AndroidDataFlow(defaultState = initialViewState) {
 
     private var permissionCheckRetry = false
+    /*
+     * Participant changes are applied to the ParticipantManager as they arrive, but the
+     * resulting view state is only emitted once per display frame.
+     */
+    private val participantUpdates = FrameBatcher(frameClock) { updateParticipantViewState() }
 
     init {
         audioSwitch.start { audioDevices, selectedDevice ->
@@ -96,6 +106,7 @@ class RoomViewModel(
         }
 
         subscribeToRoomChannel()
+        roomManager.prefetchCameraCapabilities()
     }
 
     @VisibleForTesting(otherwise = PROTECTED)
@@ -104,6 +115,12 @@ class RoomViewModel(
         audioSwitch.stop()
     }
 
+    /*
+     * Stats are not part of the view state. They are only polled while this flow is collected,
+     * i.e. while the stats pane is on screen.
+     */
+    val roomStats: Flow<RoomStats> get() = roomManager.roomStats(STATS_PANE_CONSUMER)
+
     fun processInput(viewEvent: RoomViewEvent) {
         Timber.d("View Event: $viewEvent")
 
@@ -120,7 +137,7 @@ class RoomViewModel(
             }
             is PinParticipant -> {
                 participantManager.changePinnedParticipant(viewEvent.sid)
-                updateParticipantViewState()
+                participantUpdates.invalidate()
             }
             ToggleLocalVideo -> roomManager.toggleLocalVideo()
             EnableLocalVideo -> roomManager.enableLocalVideo()
@@ -134,27 +151,29 @@ class RoomViewModel(
             SwitchCamera -> roomManager.switchCamera()
             is VideoTrackRemoved -> {
                 participantManager.updateParticipantVideoTrack(viewEvent.sid, null)
-                updateParticipantViewState()
+                participantUpdates.invalidate()
             }
             is ScreenTrackRemoved -> {
                 participantManager.updateParticipantScreenTrack(viewEvent.sid, null)
-                updateParticipantViewState()
+                participantUpdates.invalidate()
+            }
+            is SelectGridPage -> {
+                participantManager.selectGridPage(viewEvent.page)
+                participantUpdates.invalidate()
             }
             Disconnect -> roomManager.disconnect()
         }
     }
 
     private fun subscribeToRoomChannel() {
-        roomManager.roomReceiveChannel.let { channel ->
+        roomManager.roomEventBus.let { roomEventBus ->
             viewModelScope.launch {
                 while (isActive) {
                     Timber.d("Listening for RoomEvents")
                     try {
-                        observeRoomEvents(channel.receive())
+                        observeRoomEvents(roomEventBus.receive())
                     } catch (e: CancellationException) {
                         Timber.e("Cannot receive(), Receiving coroutine has been canceled")
-                    } catch (e: ClosedReceiveChannelException) {
-                        Timber.e("Cannot receive(), Channel has been closed")
                     }
                 }
             }
@@ -196,7 +215,7 @@ class RoomViewModel(
             is Disconnected -> showLobbyViewState()
             is DominantSpeakerChanged -> {
                 participantManager.changeDominantSpeaker(roomEvent.newDominantSpeakerSid)
-                updateParticipantViewState()
+                participantUpdates.invalidate()
             }
             is ConnectFailure -> action {
                 sendEvent {
@@ -214,11 +233,18 @@ class RoomViewModel(
                     ShowTokenErrorDialog(roomEvent.serviceError)
                 }
             }
+            is MediaBudgetChanged -> {
+                participantManager.setMaxRemoteVideoTracks(roomEvent.mediaBudget.maxRemoteVideoTracks)
+                participantUpdates.invalidate()
+                setState {
+                    it.copy(thumbnailMaxFramesPerSecond =
+                            roomEvent.mediaBudget.maxThumbnailFramesPerSecond)
+                }
+            }
             RecordingStarted -> setState { it.copy(isRecording = true) }
             RecordingStopped -> setState { it.copy(isRecording = false) }
             is RemoteParticipantEvent -> handleRemoteParticipantEvent(roomEvent)
             is LocalParticipantEvent -> handleLocalParticipantEvent(roomEvent)
-            is StatsUpdate -> setState { it.copy(roomStats = roomEvent.roomStats) }
         }
     }
 
@@ -228,32 +254,32 @@ class RoomViewModel(
             is VideoTrackUpdated -> {
                 participantManager.updateParticipantVideoTrack(remoteParticipantEvent.sid,
                         remoteParticipantEvent.videoTrack?.let { VideoTrackViewState(it) })
-                updateParticipantViewState()
+                participantUpdates.invalidate()
             }
             is TrackSwitchOff -> {
                 participantManager.updateParticipantVideoTrack(remoteParticipantEvent.sid,
                         VideoTrackViewState(remoteParticipantEvent.videoTrack,
                                 remoteParticipantEvent.switchOff))
-                updateParticipantViewState()
+                participantUpdates.invalidate()
             }
             is ScreenTrackUpdated -> {
                 participantManager.updateParticipantScreenTrack(remoteParticipantEvent.sid,
                         remoteParticipantEvent.screenTrack?.let { VideoTrackViewState(it) })
-                updateParticipantViewState()
+                participantUpdates.invalidate()
             }
             is MuteRemoteParticipant -> {
                 participantManager.muteParticipant(remoteParticipantEvent.sid,
                         remoteParticipantEvent.mute)
-                updateParticipantViewState()
+                participantUpdates.invalidate()
             }
             is NetworkQualityLevelChange -> {
                 participantManager.updateNetworkQuality(remoteParticipantEvent.sid,
                         remoteParticipantEvent.networkQualityLevel)
-                updateParticipantViewState()
+                participantUpdates.invalidate()
             }
             is RemoteParticipantDisconnected -> {
                 participantManager.removeParticipant(remoteParticipantEvent.sid)
-                updateParticipantViewState()
+                participantUpdates.invalidate()
             }
         }
     }
@@ -263,7 +289,7 @@ class RoomViewModel(
             is LocalParticipantEvent.VideoTrackUpdated -> {
                 participantManager.updateLocalParticipantVideoTrack(
                         localParticipantEvent.videoTrack?.let { VideoTrackViewState(it) })
-                updateParticipantViewState()
+                participantUpdates.invalidate()
                 setState { it.copy(isVideoOff = localParticipantEvent.videoTrack == null) }
             }
             AudioOn -> setState { it.copy(isAudioMuted = false) }
@@ -280,7 +306,7 @@ class RoomViewModel(
     private fun addParticipant(participant: Participant) {
         val participantViewState = buildParticipantViewState(participant)
         participantManager.addParticipant(participantViewState)
-        updateParticipantViewState()
+        participantUpdates.invalidate()
     }
 
     private fun showLobbyViewState() {
@@ -289,7 +315,7 @@ class RoomViewModel(
             it.copy(configuration = Lobby)
         }
         participantManager.clearRemoteParticipants()
-        updateParticipantViewState()
+        participantUpdates.invalidate()
     }
 
     private fun showConnectingViewState() {
@@ -305,20 +331,19 @@ class RoomViewModel(
     }
 
     private fun checkParticipants(participants: List<Participant>) {
-        for ((index, participant) in participants.withIndex()) {
-            if (index == 0) { // local participant
-                participantManager.updateLocalParticipantSid(participant.sid)
-            } else {
-                participantManager.addParticipant(buildParticipantViewState(participant))
-            }
+        participants.firstOrNull()?.let { localParticipant ->
+            participantManager.updateLocalParticipantSid(localParticipant.sid)
         }
-        updateParticipantViewState()
+        participantManager.addParticipants(
+                participants.drop(1).map { buildParticipantViewState(it) })
+        participantUpdates.invalidate()
     }
 
     private fun updateParticipantViewState() {
         setState {
             it.copy(
-                    participantThumbnails = participantManager.participantThumbnails,
+                    participantThumbnails = participantManager.takeThumbnailSnapshot(),
+                    gridPage = participantManager.gridPage,
                     primaryParticipant = participantManager.primaryParticipant
             )
         }
@@ -338,11 +363,13 @@ class RoomViewModel(
     class RoomViewModelFactory(
         private val roomManager: RoomManager,
         private val audioDeviceSelector: AudioSwitch,
-        private val permissionUtil: PermissionUtil
+        private val permissionUtil: PermissionUtil,
+        private val participantManager: ParticipantManager = ParticipantManager()
     ) : ViewModelProvider.Factory {
 
         override fun <T : ViewModel> create(modelClass: Class<T>): T {
-            return RoomViewModel(roomManager, audioDeviceSelector, permissionUtil) as T
+            return RoomViewModel(roomManager, audioDeviceSelector, permissionUtil,
+                    participantManager) as T
         }
     }
 }
@@ -1,8 +1,8 @@
 package com.twilio.video.app.ui.room
 
 import com.twilio.audioswitch.AudioDevice
+import com.twilio.video.app.participant.GridPage
 import com.twilio.video.app.participant.ParticipantViewState
-import com.twilio.video.app.sdk.RoomStats
 import com.twilio.video.app.sdk.VideoTrackViewState
 import com.twilio.video.app.ui.room.RoomViewConfiguration.Lobby
 import io.uniflow.core.flow.data.UIState
@@ -11,6 +11,7 @@ data class RoomViewState(
     val primaryParticipant: ParticipantViewState,
     val title: String? = null,
     val participantThumbnails: List<ParticipantViewState>? = null,
+    val gridPage: GridPage? = null,
     val selectedDevice: AudioDevice? = null,
     val availableAudioDevices: List<AudioDevice>? = null,
     val configuration: RoomViewConfiguration = Lobby,
@@ -23,7 +24,7 @@ data class RoomViewState(
     val isVideoOff: Boolean = false,
     val isScreenCaptureOn: Boolean = false,
     val isRecording: Boolean = false,
-    val roomStats: RoomStats? = null
+    val thumbnailMaxFramesPerSecond: Int = THUMBNAIL_MAX_FRAMES_PER_SECOND
 ) : UIState()
 
 sealed class RoomViewConfiguration {
@@ -0,0 +1,84 @@
+package com.twilio.video.app.ui.room
+
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.Transformations
+import com.twilio.audioswitch.AudioDevice
+import com.twilio.video.app.participant.GridPage
+import com.twilio.video.app.participant.ParticipantThumbnailSnapshot
+import com.twilio.video.app.participant.ParticipantViewState
+
+/*
+ * Splits the RoomViewState into the parts that are rendered by independent groups of views. Each
+ * slice only emits when it differs from its previous value, so a change to one field of the view
+ * state only rebinds the views that display it.
+ */
+internal class RoomViewStateSlices(viewStates: LiveData<RoomViewState>) {
+
+    val layout: LiveData<LayoutSlice> = viewStates.slice {
+        LayoutSlice(it.configuration, it.title, it.isRecording)
+    }
+    val localMedia: LiveData<LocalMediaSlice> = viewStates.slice {
+        LocalMediaSlice(it.isMicEnabled, it.isCameraEnabled, it.isAudioMuted, it.isVideoOff,
+                it.isAudioEnabled, it.isVideoEnabled, it.isScreenCaptureOn)
+    }
+    val primary: LiveData<PrimarySlice> = viewStates.slice {
+        PrimarySlice(it.configuration, it.primaryParticipant)
+    }
+    val thumbnails: LiveData<ThumbnailsSlice> = viewStates.slice {
+        ThumbnailsSlice(it.configuration, it.participantThumbnails,
+                (it.participantThumbnails as? ParticipantThumbnailSnapshot)?.version, it.gridPage,
+                it.thumbnailMaxFramesPerSecond)
+    }
+    val audioDevice: LiveData<AudioDeviceSlice> = viewStates.slice {
+        AudioDeviceSlice(it.selectedDevice, it.availableAudioDevices)
+    }
+    val stats: LiveData<StatsSlice> = viewStates.slice {
+        StatsSlice(it.configuration, (it.participantThumbnails?.size ?: 0) > 1)
+    }
+
+    private fun <T> LiveData<RoomViewState>.slice(selector: (RoomViewState) -> T): LiveData<T> =
+            Transformations.distinctUntilChanged(Transformations.map(this, selector))
+}
+
+internal data class LayoutSlice(
+    val configuration: RoomViewConfiguration,
+    val title: String?,
+    val isRecording: Boolean
+)
+
+internal data class LocalMediaSlice(
+    val isMicEnabled: Boolean,
+    val isCameraEnabled: Boolean,
+    val isAudioMuted: Boolean,
+    val isVideoOff: Boolean,
+    val isAudioEnabled: Boolean,
+    val isVideoEnabled: Boolean,
+    val isScreenCaptureOn: Boolean
+)
+
+internal data class PrimarySlice(
+    val configuration: RoomViewConfiguration,
+    val primaryParticipant: ParticipantViewState
+)
+
+/*
+ * Snapshots with equal thumbnails still differ by version, so each snapshot reaches the adapter
+ * and its change set can be applied.
+ */
+internal data class ThumbnailsSlice(
+    val configuration: RoomViewConfiguration,
+    val participantThumbnails: List<ParticipantViewState>?,
+    val thumbnailsVersion: Long?,
+    val gridPage: GridPage?,
+    val thumbnailMaxFramesPerSecond: Int
+)
+
+internal data class AudioDeviceSlice(
+    val selectedDevice: AudioDevice?,
+    val availableAudioDevices: List<AudioDevice>?
+)
+
+internal data class StatsSlice(
+    val configuration: RoomViewConfiguration,
+    val isStreamingMedia: Boolean
+)
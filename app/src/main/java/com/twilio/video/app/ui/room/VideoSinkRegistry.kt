@@ -0,0 +1,34 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.VideoTrack
+import tvi.webrtc.VideoSink
+
+/*
+ * Adds and removes the video sinks of participant views and keeps count of the live sinks of
+ * every track, so a sink is never added to a track twice and leaked sinks can be detected.
+ * Only used on the main thread.
+ */
+internal class VideoSinkRegistry {
+
+    private val liveSinks = HashMap<VideoTrack, HashSet<VideoSink>>()
+
+    val liveSinkCount: Int get() = liveSinks.values.sumBy { it.size }
+
+    fun liveSinkCount(videoTrack: VideoTrack) = liveSinks[videoTrack]?.size ?: 0
+
+    fun forEachSink(action: (VideoTrack, VideoSink) -> Unit) {
+        liveSinks.forEach { (videoTrack, sinks) -> sinks.forEach { action(videoTrack, it) } }
+    }
+
+    fun addSink(videoTrack: VideoTrack, sink: VideoSink) {
+        if (liveSinks.getOrPut(videoTrack) { HashSet() }.add(sink)) videoTrack.addSink(sink)
+    }
+
+    fun removeSink(videoTrack: VideoTrack, sink: VideoSink) {
+        val sinks = liveSinks[videoTrack] ?: return
+        if (sinks.remove(sink)) {
+            videoTrack.removeSink(sink)
+            if (sinks.isEmpty()) liveSinks.remove(videoTrack)
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.twilio.video.app.ui.settings
 
+import android.content.Context
+import android.content.Intent
 import android.os.Bundle
+import androidx.core.content.FileProvider
 import androidx.preference.EditTextPreference
 import androidx.preference.ListPreference
 import androidx.preference.Preference
+import com.google.android.material.snackbar.Snackbar
 import com.twilio.video.AudioCodec
 import com.twilio.video.G722Codec
 import com.twilio.video.H264Codec
@@ -18,18 +22,35 @@ import com.twilio.video.app.R
 import com.twilio.video.app.data.Preferences
 import com.twilio.video.app.data.Preferences.VIDEO_CAPTURE_RESOLUTION
 import com.twilio.video.app.data.Preferences.VIDEO_DIMENSIONS
+import com.twilio.video.app.sdk.StatsRecording
 import com.twilio.video.app.util.isInternalFlavor
+import java.io.File
+import java.io.IOException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.MainScope
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import timber.log.Timber
+
+private const val CALL_STATS_EXPORT_DIR = "call_stats"
+private const val CALL_STATS_CSV_FILE_NAME = "call_stats.csv"
 
 class AdvancedSettingsFragment : BaseSettingsFragment() {
 
     private var identityPreference: EditTextPreference? = null
     private val videoCodecNames = arrayOf(Vp8Codec.NAME, H264Codec.NAME, Vp9Codec.NAME)
     private val audioCodecNames = arrayOf(IsacCodec.NAME, OpusCodec.NAME, PcmaCodec.NAME, PcmuCodec.NAME, G722Codec.NAME)
+    private val exportScope = MainScope()
 
     override fun onCreatePreferences(savedInstanceState: Bundle?, rootKey: String?) {
         addPreferencesFromResource(R.xml.advanced_preferences)
 
         findPreference<Preference>(Preferences.INTERNAL)?.isVisible = isInternalFlavor
+        findPreference<Preference>(Preferences.SHARE_CALL_STATS)?.run {
+            isEnabled = StatsRecording.file(requireContext()).exists()
+            onPreferenceClickListener = Preference.OnPreferenceClickListener { shareCallStats(); true }
+        }
 
         setHasOptionsMenu(true)
 
@@ -67,6 +88,41 @@ class AdvancedSettingsFragment : BaseSettingsFragment() {
         }
     }
 
+    override fun onDestroy() {
+        exportScope.cancel()
+        super.onDestroy()
+    }
+
+    /*
+     * Exports the stats recording of the current or last call to CSV off the main thread and
+     * hands it to the share sheet. The next call overwrites the recording.
+     */
+    private fun shareCallStats() {
+        val context = requireContext().applicationContext
+        exportScope.launch {
+            try {
+                val csvFile = withContext(Dispatchers.IO) { exportCallStats(context) }
+                val uri = FileProvider.getUriForFile(context, "${context.packageName}.fileprovider", csvFile)
+                val shareIntent = Intent(Intent.ACTION_SEND)
+                        .setType("text/csv")
+                        .putExtra(Intent.EXTRA_STREAM, uri)
+                        .addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
+                startActivity(Intent.createChooser(shareIntent, getString(R.string.settings_screen_share_call_stats)))
+            } catch (e: IOException) {
+                Timber.e(e, "Unable to export the call stats")
+                Snackbar.make(requireView(), R.string.settings_screen_share_call_stats_error,
+                        Snackbar.LENGTH_LONG).show()
+            }
+        }
+    }
+
+    private fun exportCallStats(context: Context): File {
+        val exportDir = File(context.cacheDir, CALL_STATS_EXPORT_DIR).apply { mkdirs() }
+        return File(exportDir, CALL_STATS_CSV_FILE_NAME).also { csvFile ->
+            csvFile.bufferedWriter().use { StatsRecording(StatsRecording.file(context)).exportCsv(it) }
+        }
+    }
+
     private fun setupCodecListPreference(
         codecClass: Class<*>,
         key: String,
@@ -0,0 +1,85 @@
+package com.twilio.video.app.util
+
+private const val ENCODING_VERSION = "1"
+private const val FIELD_SEPARATOR = '\t'
+private const val FORMAT_SEPARATOR = ' '
+private const val DIMENSION_SEPARATOR = 'x'
+
+enum class CameraFacing { FRONT, BACK, EXTERNAL }
+
+data class CaptureFormat(val width: Int, val height: Int, val maxFramerate: Int)
+
+data class CameraCapabilities(
+    val cameraId: String,
+    val facing: CameraFacing,
+    val isPrivateFormatSupported: Boolean,
+    val isMonochrome: Boolean,
+    val captureFormats: List<CaptureFormat>
+) {
+    /*
+     * Cameras without ImageFormat.PRIVATE output and monochrome or NIR cameras cannot be used for
+     * video, see CameraCapturerCompat.
+     */
+    val isSupported: Boolean get() = isPrivateFormatSupported && !isMonochrome
+}
+
+/*
+ * The cameras of the device and whether they are accessed through the camera2 API. Capabilities
+ * are incomplete if a camera could not be queried, in which case they are not cached.
+ */
+data class CameraDeviceCapabilities(
+    val isCamera2: Boolean,
+    val cameras: List<CameraCapabilities>,
+    val isComplete: Boolean = true
+) {
+    val frontCameraId: String?
+        get() = cameras.find { it.facing == CameraFacing.FRONT && it.isSupported }?.cameraId
+    val backCameraId: String?
+        get() = cameras.find { it.facing == CameraFacing.BACK && it.isSupported }?.cameraId
+}
+
+/*
+ * Line based encoding of the capabilities: the encoding version, the key they were queried for,
+ * the camera API and then one tab separated line per camera. Camera1 device names contain commas
+ * and spaces, so only tabs and line breaks are used as separators around them.
+ */
+internal fun CameraDeviceCapabilities.encode(key: String): String = buildString {
+    appendLine(ENCODING_VERSION)
+    appendLine(key)
+    appendLine(if (isCamera2) "1" else "0")
+    cameras.forEach { camera ->
+        append(camera.cameraId).append(FIELD_SEPARATOR)
+        append(camera.facing.name).append(FIELD_SEPARATOR)
+        append(if (camera.isPrivateFormatSupported) "1" else "0").append(FIELD_SEPARATOR)
+        append(if (camera.isMonochrome) "1" else "0").append(FIELD_SEPARATOR)
+        camera.captureFormats.joinTo(this, FORMAT_SEPARATOR.toString()) { format ->
+            "${format.width}$DIMENSION_SEPARATOR${format.height}$DIMENSION_SEPARATOR${format.maxFramerate}"
+        }
+        appendLine()
+    }
+}
+
+/*
+ * Returns null if the encoded capabilities were written by another encoding version, for
+ * another key or cannot be parsed.
+ */
+internal fun decodeCameraDeviceCapabilities(encoded: String, key: String): CameraDeviceCapabilities? {
+    val lines = encoded.lines()
+    if (lines.size < 3 || lines[0] != ENCODING_VERSION || lines[1] != key) return null
+    return try {
+        CameraDeviceCapabilities(lines[2] == "1", lines.drop(3).filter { it.isNotEmpty() }.map { line ->
+            val fields = line.split(FIELD_SEPARATOR)
+            CameraCapabilities(
+                    fields[0],
+                    CameraFacing.valueOf(fields[1]),
+                    fields[2] == "1",
+                    fields[3] == "1",
+                    fields[4].split(FORMAT_SEPARATOR).filter { it.isNotEmpty() }.map { format ->
+                        val values = format.split(DIMENSION_SEPARATOR).map { it.toInt() }
+                        CaptureFormat(values[0], values[1], values[2])
+                    })
+        })
+    } catch (e: RuntimeException) {
+        null
+    }
+}
@@ -0,0 +1,84 @@
+package com.twilio.video.app.util
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.os.Build
+import timber.log.Timber
+
+private const val CAMERA_CAPABILITIES_PREFERENCES = "camera_capabilities"
+private const val CAMERA_CAPABILITIES_KEY = "capabilities"
+
+/*
+ * Identifies the system image the capabilities were queried on. The OS version is part of the key
+ * on its own so an OS update invalidates the cache even if the fingerprint does not change.
+ */
+data class BuildVersion(val fingerprint: String, val sdkInt: Int, val release: String) {
+
+    val key: String get() = "$sdkInt/$release/$fingerprint"
+
+    companion object {
+        fun current() = BuildVersion(Build.FINGERPRINT, Build.VERSION.SDK_INT, Build.VERSION.RELEASE)
+    }
+}
+
+interface CameraCapabilityStore {
+    fun read(): String?
+    fun write(encodedCapabilities: String)
+}
+
+class SharedPreferencesCameraCapabilityStore(context: Context) : CameraCapabilityStore {
+
+    private val applicationContext = context.applicationContext
+    private val sharedPreferences: SharedPreferences by lazy {
+        applicationContext.getSharedPreferences(CAMERA_CAPABILITIES_PREFERENCES, Context.MODE_PRIVATE)
+    }
+
+    override fun read(): String? = sharedPreferences.getString(CAMERA_CAPABILITIES_KEY, null)
+
+    override fun write(encodedCapabilities: String) {
+        sharedPreferences.edit().putString(CAMERA_CAPABILITIES_KEY, encodedCapabilities).apply()
+    }
+}
+
+/*
+ * Camera ids, facing, format support and monochrome detection persisted across launches, so that
+ * creating a camera capturer does not query the CameraManager for every camera. The capabilities
+ * are loaded on first access, which should happen off the main thread through load(). They are
+ * queried again whenever the build fingerprint or OS version differs from the persisted ones.
+ */
+class CameraCapabilityCache(
+    private val store: CameraCapabilityStore,
+    private val buildVersion: BuildVersion = BuildVersion.current(),
+    private val queryCapabilities: () -> CameraDeviceCapabilities
+) {
+
+    constructor(context: Context) : this(
+            SharedPreferencesCameraCapabilityStore(context),
+            queryCapabilities = { CameraCapturerCompat.queryCapabilities(context) })
+
+    @Volatile private var capabilities: CameraDeviceCapabilities? = null
+
+    /*
+     * Returns the cached capabilities, reading or querying them if needed. Blocks while another
+     * thread loads them.
+     */
+    fun load(): CameraDeviceCapabilities {
+        capabilities?.let { return it }
+        synchronized(this) {
+            capabilities?.let { return it }
+            val key = buildVersion.key
+            store.read()?.let { decodeCameraDeviceCapabilities(it, key) }?.let { capabilities ->
+                this.capabilities = capabilities
+                return capabilities
+            }
+            val capabilities = queryCapabilities()
+            Timber.d("Queried the capabilities of %d cameras", capabilities.cameras.size)
+            // Incomplete capabilities are queried again on the next load instead of being persisted
+            if (capabilities.isComplete && capabilities.cameras.isNotEmpty()) {
+                store.write(capabilities.encode(key))
+                this.capabilities = capabilities
+            }
+            return capabilities
+        }
+    }
+}
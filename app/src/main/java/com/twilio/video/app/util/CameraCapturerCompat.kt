@@ -9,6 +9,8 @@ import android.os.Build
 import com.twilio.video.Camera2Capturer
 import com.twilio.video.CameraCapturer
 import com.twilio.video.VideoCapturer
+import com.twilio.video.VideoDimensions
+import com.twilio.video.VideoFormat
 import timber.log.Timber
 import tvi.webrtc.Camera1Enumerator
 import tvi.webrtc.Camera2Enumerator
@@ -28,6 +30,14 @@ class CameraCapturerCompat(
                 ?: camera2Capturer?.cameraId
                 ?: throw IllegalStateException("At least one camera capturer must not be null")
 
+    /** The format of the last capture started by the video source or by changeCaptureFormat. */
+    @Volatile var captureFormat: VideoFormat? = null
+        private set
+    @Volatile var isCapturing = false
+        private set
+    @Volatile var isCapturePaused = false
+        private set
+
     override fun initialize(
         surfaceTextureHelper: SurfaceTextureHelper,
         context: Context,
@@ -37,12 +47,61 @@ class CameraCapturerCompat(
                 ?: camera2Capturer?.initialize(surfaceTextureHelper, context, capturerObserver)
     }
 
+    @Synchronized
     override fun startCapture(width: Int, height: Int, framerate: Int) {
+        captureFormat = VideoFormat(VideoDimensions(width, height), framerate)
+        isCapturePaused = false
+        isCapturing = true
         cameraCapturer?.startCapture(width, height, framerate) ?: camera2Capturer?.startCapture(width, height, framerate)
     }
 
+    @Synchronized
     override fun stopCapture() {
-        cameraCapturer?.stopCapture() ?: camera2Capturer?.stopCapture()
+        val wasCapturing = isCapturing
+        isCapturing = false
+        isCapturePaused = false
+        if (wasCapturing) cameraCapturer?.stopCapture() ?: camera2Capturer?.stopCapture()
+    }
+
+    /*
+     * Closes the camera while the video track that owns this capturer stays alive, so the camera
+     * is released in the background without unpublishing the track.
+     */
+    @Synchronized
+    fun pauseCapture() {
+        if (isCapturing) {
+            stopCapture()
+            isCapturePaused = true
+        }
+    }
+
+    /*
+     * Restarts a paused capture with the format the video source requested. Returns false if the
+     * capture was not paused, in which case the video track has to be created again.
+     */
+    @Synchronized
+    fun resumeCapture(): Boolean {
+        val captureFormat = captureFormat
+        if (!isCapturePaused || captureFormat == null) return false
+        startCapture(captureFormat.dimensions.width, captureFormat.dimensions.height,
+                captureFormat.framerate)
+        return true
+    }
+
+    /*
+     * Restarts a running capture with another format, so the video track keeps being published
+     * while its resolution and frame rate change. A paused capture resumes with the new format.
+     */
+    @Synchronized
+    fun changeCaptureFormat(videoFormat: VideoFormat) {
+        when {
+            isCapturing -> {
+                stopCapture()
+                startCapture(videoFormat.dimensions.width, videoFormat.dimensions.height,
+                        videoFormat.framerate)
+            }
+            isCapturePaused -> captureFormat = videoFormat
+        }
     }
 
     override fun isScreencast() = cameraCapturer?.isScreencast ?: camera2Capturer?.isScreencast ?: false
@@ -56,19 +115,51 @@ class CameraCapturerCompat(
     }
 
     companion object {
-        fun newInstance(context: Context): CameraCapturerCompat? {
+        fun newInstance(
+            context: Context,
+            cameraCapabilityCache: CameraCapabilityCache
+        ): CameraCapturerCompat? {
+            val capabilities = cameraCapabilityCache.load()
+            val frontCameraId = capabilities.frontCameraId
+            val backCameraId = capabilities.backCameraId
+            if (!isAtLeastOneCameraAvailable(frontCameraId, backCameraId)) {
+                Timber.w("No cameras are available on this device")
+                return null
+            }
+            val cameraId = frontCameraId ?: backCameraId ?: ""
+            return if (capabilities.isCamera2) {
+                CameraCapturerCompat(frontCameraId, backCameraId,
+                        camera2Capturer = Camera2Capturer(context, cameraId))
+            } else {
+                CameraCapturerCompat(frontCameraId, backCameraId,
+                        cameraCapturer = CameraCapturer(context, cameraId, getCameraListener()))
+            }
+        }
+
+        /*
+         * Queries the cameras of the device. This reads the characteristics of every camera and
+         * should only be called through CameraCapabilityCache. The capabilities are incomplete if
+         * a supported camera reports no capture formats, so they are queried again later.
+         *
+         * Camera1 can only list the capture formats of a camera by opening it, which needs the
+         * camera permission, so no capture formats are queried for Camera1 devices.
+         */
+        fun queryCapabilities(context: Context): CameraDeviceCapabilities {
             return if (Camera2Capturer.isSupported(context)) {
-                Camera2Enumerator(context).getFrontAndBackCameraIds(context)?.let { cameraIds ->
-                    val cameraCapturer = Camera2Capturer(context, cameraIds.first
-                            ?: cameraIds.second ?: "")
-                    CameraCapturerCompat(cameraIds.first, cameraIds.second, camera2Capturer = cameraCapturer)
+                val enumerator = Camera2Enumerator(context)
+                val cameras = enumerator.deviceNames.map { cameraId ->
+                    queryCamera2Capabilities(context, enumerator, cameraId)
                 }
-            } else {
-                Camera1Enumerator().getFrontAndBackCameraIds(context, isCamera2 = false)?.let { cameraIds ->
-                    val cameraCapturer = CameraCapturer(context, cameraIds.first ?: cameraIds.second
-                    ?: "", getCameraListener())
-                    CameraCapturerCompat(cameraIds.first, cameraIds.second, cameraCapturer = cameraCapturer)
+                val isComplete = cameras.all { camera ->
+                    camera != null && (!camera.isSupported || camera.captureFormats.isNotEmpty())
                 }
+                CameraDeviceCapabilities(true, cameras.filterNotNull(), isComplete)
+            } else {
+                val enumerator = Camera1Enumerator()
+                CameraDeviceCapabilities(false, enumerator.deviceNames.map { cameraId ->
+                    CameraCapabilities(cameraId, enumerator.getFacing(cameraId), true, false,
+                            emptyList())
+                })
             }
         }
 
@@ -80,56 +171,72 @@ class CameraCapturerCompat(
             override fun onError(errorCode: Int) {}
         }
 
-        private fun CameraEnumerator.getFrontAndBackCameraIds(context: Context, isCamera2: Boolean = true): Pair<String?, String?>? {
-            val cameraIds = deviceNames.find { isFrontFacing(it) && isCameraIdSupported(isCamera2, context, it) } to
-                    deviceNames.find { isBackFacing(it) && isCameraIdSupported(isCamera2, context, it) }
-            return if (isAtLeastOneCameraAvailable(cameraIds.first, cameraIds.second)) cameraIds
-            else {
-                Timber.w("No cameras are available on this device")
-                null
-            }
+        private fun CameraEnumerator.getFacing(cameraId: String) = when {
+            isFrontFacing(cameraId) -> CameraFacing.FRONT
+            isBackFacing(cameraId) -> CameraFacing.BACK
+            else -> CameraFacing.EXTERNAL
         }
 
-        private fun isCameraIdSupported(isCamera2: Boolean, context: Context, cameraId: String) =
-                if (isCamera2) isCameraIdSupported(context, cameraId) else true
-
-        private fun isCameraIdSupported(context: Context, cameraId: String): Boolean {
-            return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                val cameraManager = context.getSystemService(Context.CAMERA_SERVICE) as CameraManager
-                var isMonoChromeSupported = false
-                var isPrivateImageFormatSupported = false
-                val cameraCharacteristics: CameraCharacteristics
-                cameraCharacteristics = try {
-                    cameraManager.getCameraCharacteristics(cameraId)
-                } catch (e: Exception) {
-                    Timber.e(e)
-                    return false
-                }
-                /*
-                 * This is a temporary work around for a RuntimeException that occurs on devices which contain cameras
-                 * that do not support ImageFormat.PRIVATE output formats. A long term fix is currently in development.
-                 * https://github.com/twilio/video-quickstart-android/issues/431
-                 */
-                val streamMap = cameraCharacteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP)
-                if (streamMap != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    isPrivateImageFormatSupported = streamMap.isOutputSupportedFor(ImageFormat.PRIVATE)
+        private fun CameraEnumerator.getCaptureFormats(cameraId: String) =
+                getSupportedFormats(cameraId).orEmpty().map { format ->
+                    CaptureFormat(format.width, format.height, format.framerate.max)
                 }
 
-                /*
-                 * Read the color filter arrangements of the camera to filter out the ones that support
-                 * SENSOR_INFO_COLOR_FILTER_ARRANGEMENT_MONO or SENSOR_INFO_COLOR_FILTER_ARRANGEMENT_NIR.
-                 * Visit this link for details on supported values - https://developer.android.com/reference/android/hardware/camera2/CameraCharacteristics#SENSOR_INFO_COLOR_FILTER_ARRANGEMENT
-                 */
-                val colorFilterArrangement = cameraCharacteristics.get(
-                        CameraCharacteristics.SENSOR_INFO_COLOR_FILTER_ARRANGEMENT)
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && colorFilterArrangement != null) {
-                    isMonoChromeSupported = (colorFilterArrangement
-                            == CameraMetadata.SENSOR_INFO_COLOR_FILTER_ARRANGEMENT_MONO ||
-                            colorFilterArrangement
-                            == CameraMetadata.SENSOR_INFO_COLOR_FILTER_ARRANGEMENT_NIR)
-                }
-                isPrivateImageFormatSupported && !isMonoChromeSupported
-            } else true
+        /*
+         * Returns null if the characteristics of the camera cannot be read.
+         */
+        private fun queryCamera2Capabilities(
+            context: Context,
+            enumerator: Camera2Enumerator,
+            cameraId: String
+        ): CameraCapabilities? {
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+                return CameraCapabilities(cameraId, enumerator.getFacing(cameraId), true, false,
+                        enumerator.getCaptureFormats(cameraId))
+            }
+            val cameraManager = context.getSystemService(Context.CAMERA_SERVICE) as CameraManager
+            var isMonoChromeSupported = false
+            var isPrivateImageFormatSupported = false
+            val cameraCharacteristics: CameraCharacteristics
+            cameraCharacteristics = try {
+                cameraManager.getCameraCharacteristics(cameraId)
+            } catch (e: Exception) {
+                Timber.e(e)
+                return null
+            }
+            /*
+             * This is a temporary work around for a RuntimeException that occurs on devices which contain cameras
+             * that do not support ImageFormat.PRIVATE output formats. A long term fix is currently in development.
+             * https://github.com/twilio/video-quickstart-android/issues/431
+             */
+            val streamMap = cameraCharacteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP)
+            if (streamMap != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                isPrivateImageFormatSupported = streamMap.isOutputSupportedFor(ImageFormat.PRIVATE)
+            }
+
+            /*
+             * Read the color filter arrangements of the camera to filter out the ones that support
+             * SENSOR_INFO_COLOR_FILTER_ARRANGEMENT_MONO or SENSOR_INFO_COLOR_FILTER_ARRANGEMENT_NIR.
+             * Visit this link for details on supported values - https://developer.android.com/reference/android/hardware/camera2/CameraCharacteristics#SENSOR_INFO_COLOR_FILTER_ARRANGEMENT
+             */
+            val colorFilterArrangement = cameraCharacteristics.get(
+                    CameraCharacteristics.SENSOR_INFO_COLOR_FILTER_ARRANGEMENT)
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && colorFilterArrangement != null) {
+                isMonoChromeSupported = (colorFilterArrangement
+                        == CameraMetadata.SENSOR_INFO_COLOR_FILTER_ARRANGEMENT_MONO ||
+                        colorFilterArrangement
+                        == CameraMetadata.SENSOR_INFO_COLOR_FILTER_ARRANGEMENT_NIR)
+            }
+            val facing = when (cameraCharacteristics.get(CameraCharacteristics.LENS_FACING)) {
+                CameraMetadata.LENS_FACING_FRONT -> CameraFacing.FRONT
+                CameraMetadata.LENS_FACING_BACK -> CameraFacing.BACK
+                else -> CameraFacing.EXTERNAL
+            }
+            val captureFormats = if (isPrivateImageFormatSupported && !isMonoChromeSupported) {
+                enumerator.getCaptureFormats(cameraId)
+            } else emptyList()
+            return CameraCapabilities(cameraId, facing, isPrivateImageFormatSupported,
+                    isMonoChromeSupported, captureFormats)
         }
 
         private fun isAtLeastOneCameraAvailable(frontCameraId: String?, backCameraId: String?) =
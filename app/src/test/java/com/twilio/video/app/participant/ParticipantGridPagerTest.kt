@@ -0,0 +1,95 @@
+package com.twilio.video.app.participant
+
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority.HIGH
+import com.twilio.video.TrackPriority.LOW
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.sdk.VideoTrackViewState
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class ParticipantGridPagerTest : BaseUnitTest() {
+
+    private val gridPager = ParticipantGridPager(pageSize = 2)
+    private val videoTracks = List(6) { mock<RemoteVideoTrack>() }
+    private val participants = videoTracks.mapIndexed { index, videoTrack ->
+        ParticipantViewState("$index", "Participant $index",
+                videoTrack = VideoTrackViewState(videoTrack))
+    }
+
+    @Test
+    fun `the page count should round up to full pages`() {
+        assertThat(gridPager.pageCount(0), equalTo(1))
+        assertThat(gridPager.pageCount(2), equalTo(1))
+        assertThat(gridPager.pageCount(5), equalTo(3))
+    }
+
+    @Test
+    fun `selectPage should clamp the page to the existing pages`() {
+        assertThat(gridPager.selectPage(5, 6), equalTo(true))
+        assertThat(gridPager.currentPage, equalTo(2))
+        assertThat(gridPager.pageRange(6), equalTo(4 until 6))
+
+        assertThat(gridPager.selectPage(-1, 6), equalTo(true))
+        assertThat(gridPager.currentPage, equalTo(0))
+        assertThat(gridPager.selectPage(0, 6), equalTo(false))
+    }
+
+    @Test
+    fun `tracks beyond the current and the prefetched page should be lowered`() {
+        gridPager.updateTrackPriorities(participants)
+
+        videoTracks.take(4).forEach { verify(it, never()).priority = LOW }
+        videoTracks.drop(4).forEach { verify(it).priority = LOW }
+    }
+
+    @Test
+    fun `the prefetched page should follow the paging direction`() {
+        gridPager.selectPage(2, 6)
+        gridPager.selectPage(1, 6)
+
+        assertThat(gridPager.prefetchPage, equalTo(0))
+
+        gridPager.updateTrackPriorities(participants)
+
+        videoTracks.take(4).forEach { verify(it, never()).priority = LOW }
+        videoTracks.drop(4).forEach { verify(it).priority = LOW }
+    }
+
+    @Test
+    fun `a lowered track should be restored once its page is selected`() {
+        gridPager.updateTrackPriorities(participants)
+        videoTracks.drop(4).forEach { whenever(it.priority).thenReturn(LOW) }
+
+        gridPager.selectPage(2, 6)
+        gridPager.updateTrackPriorities(participants)
+
+        videoTracks.drop(4).forEach { verify(it).priority = null }
+        videoTracks.take(2).forEach { verify(it).priority = LOW }
+    }
+
+    @Test
+    fun `a priority that was changed elsewhere should not be restored`() {
+        gridPager.updateTrackPriorities(participants)
+        whenever(videoTracks[4].priority).thenReturn(HIGH)
+
+        gridPager.selectPage(2, 6)
+        gridPager.updateTrackPriorities(participants)
+
+        verify(videoTracks[4], never()).priority = null
+    }
+
+    @Test
+    fun `clampPage should move to the last page once participants left`() {
+        gridPager.selectPage(2, 6)
+
+        gridPager.clampPage(3)
+
+        assertThat(gridPager.currentPage, equalTo(1))
+    }
+}
@@ -1,16 +1,25 @@
 package com.twilio.video.app.participant
 
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.anyOrNull
+import com.nhaarman.mockitokotlin2.clearInvocations
+import com.nhaarman.mockitokotlin2.eq
 import com.nhaarman.mockitokotlin2.inOrder
 import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.spy
 import com.nhaarman.mockitokotlin2.times
 import com.nhaarman.mockitokotlin2.verify
 import com.nhaarman.mockitokotlin2.verifyZeroInteractions
 import com.twilio.video.LocalVideoTrack
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_TWO
 import com.twilio.video.RemoteVideoTrack
 import com.twilio.video.TrackPriority.HIGH
+import com.twilio.video.TrackPriority.LOW
 import com.twilio.video.VideoTrack
 import com.twilio.video.app.BaseUnitTest
 import com.twilio.video.app.sdk.VideoTrackViewState
+import com.twilio.video.app.util.testRemoteVideoTrack
 import junitparams.JUnitParamsRunner
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.CoreMatchers.equalTo
@@ -125,7 +134,7 @@ class ParticipantManagerTest : BaseUnitTest() {
 
     @Test
     fun `primary participant VideoTrack priority should be high when screen sharing`() {
-        val screenTrack = mock<RemoteVideoTrack>()
+        val screenTrack = testRemoteVideoTrack()
         val screenSharingParticipant = setupThreeParticipantScenario()
 
         participantManager.updateParticipantScreenTrack(screenSharingParticipant.sid!!,
@@ -162,13 +171,14 @@ class ParticipantManagerTest : BaseUnitTest() {
     }
 
     @Test
-    fun `primary participant VideoTrack priority should be null when dominant speaker is set`() {
+    fun `primary participant VideoTrack priority should not be set when dominant speaker is set`() {
         val dominantSpeaker = setupThreeParticipantScenario()
 
         participantManager.changeDominantSpeaker(dominantSpeaker.sid!!)
 
         val videoTrack = participantManager.primaryParticipant!!.videoTrack!!.videoTrack as RemoteVideoTrack
-        verify(videoTrack).priority = null
+        verify(videoTrack, never()).priority = anyOrNull()
+        verify(participantManager.getParticipant("2")!!.getRemoteVideoTrack())!!.priority = null
     }
 
     @Test
@@ -185,7 +195,7 @@ class ParticipantManagerTest : BaseUnitTest() {
     @Test
     fun `primary participant VideoTrack priority should be high when there is one remote participant`() {
         val participant2 = ParticipantViewState("2", "Participant 2",
-                videoTrack = VideoTrackViewState(mock<RemoteVideoTrack>()))
+                videoTrack = VideoTrackViewState(testRemoteVideoTrack()))
         participantManager.addParticipant(localParticipant)
         participantManager.addParticipant(participant2)
 
@@ -196,7 +206,7 @@ class ParticipantManagerTest : BaseUnitTest() {
     @Test
     fun `primary participant VideoTrack priority should not be set when there is one remote participant with a null video track`() {
         val participant2 = ParticipantViewState("2", "Participant 2",
-                videoTrack = VideoTrackViewState(mock<RemoteVideoTrack>()))
+                videoTrack = VideoTrackViewState(testRemoteVideoTrack()))
         participantManager.addParticipant(localParticipant)
         participantManager.addParticipant(participant2)
 
@@ -235,7 +245,7 @@ class ParticipantManagerTest : BaseUnitTest() {
     @Test
     fun `the old primary participant screen track priority should be reset to null when a new participant is assigned`() {
         val participant3 = setupThreeParticipantScenario()
-        val screenTrack = mock<RemoteVideoTrack>()
+        val screenTrack = testRemoteVideoTrack()
 
         participantManager.updateParticipantScreenTrack(participant3.sid!!,
                 VideoTrackViewState(screenTrack))
@@ -264,7 +274,7 @@ class ParticipantManagerTest : BaseUnitTest() {
     @Test
     fun `the old primary participant screen track priority should be reset to null when the local participant is assigned`() {
         setupThreeParticipantScenario()
-        val screenTrack = mock<RemoteVideoTrack>()
+        val screenTrack = testRemoteVideoTrack()
 
         participantManager.updateParticipantScreenTrack("3",
                 VideoTrackViewState(screenTrack))
@@ -276,6 +286,291 @@ class ParticipantManagerTest : BaseUnitTest() {
         }
     }
 
+    @Test
+    fun `the old primary participant VideoTrack priority should stay low when it was lowered elsewhere`() {
+        val videoTrack = testRemoteVideoTrack()
+        participantManager.addParticipant(localParticipant)
+        participantManager.addParticipant(ParticipantViewState("2", "Participant 2",
+                videoTrack = VideoTrackViewState(videoTrack)))
+        participantManager.addParticipant(ParticipantViewState("3", "Participant 3",
+                videoTrack = VideoTrackViewState(testRemoteVideoTrack())))
+        assertThat(videoTrack.priority, equalTo(HIGH))
+        videoTrack.priority = LOW
+
+        participantManager.changePinnedParticipant("3")
+
+        assertThat(videoTrack.priority, equalTo(LOW))
+        verify(videoTrack, never()).priority = null
+    }
+
+    @Test
+    fun `no track priority should be raised for the primary participant in grid mode`() {
+        val participantManager = ParticipantManager(ParticipantGridPager(pageSize = 2))
+        val videoTracks = List(4) { testRemoteVideoTrack() }
+        participantManager.addParticipants(videoTracks.mapIndexed { index, videoTrack ->
+            ParticipantViewState("${index + 2}", "Participant ${index + 2}",
+                    videoTrack = VideoTrackViewState(videoTrack))
+        })
+
+        participantManager.changePinnedParticipant("5")
+        participantManager.changeDominantSpeaker("4")
+
+        videoTracks.forEach { verify(it, never()).priority = HIGH }
+        assertThat(videoTracks[3].priority, equalTo(LOW))
+    }
+
+    @Test
+    fun `addParticipants should append all participants in order after the local participant`() {
+        val participants = (2..31).map { ParticipantViewState("$it", "Participant $it") }
+
+        participantManager.addParticipants(participants)
+
+        val thumbnails = participantManager.participantThumbnails
+        assertThat(thumbnails.size, equalTo(31))
+        assertThat(thumbnails.drop(1), equalTo(participants))
+        assertThat(participantManager.primaryParticipant, equalTo(participants.first()))
+    }
+
+    @Test
+    fun `addParticipants should only set the primary participant track priority once`() {
+        val participant2 = ParticipantViewState("2", "Participant 2",
+                videoTrack = VideoTrackViewState(testRemoteVideoTrack()))
+        val participant3 = ParticipantViewState("3", "Participant 3",
+                videoTrack = VideoTrackViewState(testRemoteVideoTrack()))
+
+        participantManager.addParticipants(listOf(participant2, participant3))
+
+        verify(participant2.getRemoteVideoTrack())!!.priority = HIGH
+        verifyZeroInteractions(participant3.getRemoteVideoTrack())
+    }
+
+    @Test
+    fun `addParticipant should update an existing participant with the same sid`() {
+        setupThreeParticipantScenario()
+
+        participantManager.addParticipant(ParticipantViewState("2", "Participant 2", isMuted = true))
+
+        val thumbnails = participantManager.participantThumbnails
+        assertThat(thumbnails.size, equalTo(3))
+        assertThat(participantManager.getParticipant("2")!!.isMuted, equalTo(true))
+    }
+
+    @Test
+    fun `removeParticipants should remove all matching participants`() {
+        participantManager.addParticipants((2..6).map { ParticipantViewState("$it", "Participant $it") })
+
+        participantManager.removeParticipants(listOf("2", "4", "6"))
+
+        assertThat(participantManager.participantThumbnails.map { it.sid },
+                equalTo(listOf(null, "3", "5")))
+        assertThat(participantManager.getParticipant("4"), `is`(nullValue()))
+        assertThat(participantManager.primaryParticipant.sid, equalTo("3"))
+    }
+
+    @Test
+    fun `removing the pinned participant should select a new primary participant`() {
+        val participant3 = setupThreeParticipantScenario()
+        participantManager.changePinnedParticipant(participant3.sid!!)
+
+        participantManager.removeParticipant(participant3.sid!!)
+
+        assertThat(participantManager.primaryParticipant.sid, equalTo("2"))
+    }
+
+    @Test
+    fun `updateLocalParticipantSid should index the local participant by its new sid`() {
+        participantManager.updateLocalParticipantSid("local")
+
+        participantManager.muteParticipant("local", true)
+
+        val localParticipant = participantManager.getParticipant("local")!!
+        assertThat(localParticipant.isLocalParticipant, equalTo(true))
+        assertThat(localParticipant.isMuted, equalTo(true))
+    }
+
+    @Test
+    fun `takeThumbnailSnapshot should include a range insertion for appended participants`() {
+        participantManager.takeThumbnailSnapshot()
+
+        participantManager.addParticipants((2..4).map { ParticipantViewState("$it", "Participant $it") })
+
+        val snapshot = participantManager.takeThumbnailSnapshot()
+        assertThat(snapshot.baseVersion, equalTo(1L))
+        assertThat(snapshot.version, equalTo(2L))
+        assertThat(snapshot.changes, equalTo(listOf<ParticipantChange>(ParticipantChange.Inserted(1, 3))))
+        assertThat(snapshot, equalTo(participantManager.participantThumbnails))
+    }
+
+    @Test
+    fun `takeThumbnailSnapshot should only include the move of a new dominant speaker`() {
+        setupThreeParticipantScenario()
+        participantManager.takeThumbnailSnapshot()
+
+        participantManager.changeDominantSpeaker("3")
+
+        assertThat(participantManager.takeThumbnailSnapshot().changes, equalTo(listOf<ParticipantChange>(
+                ParticipantChange.Moved(2, 1))))
+    }
+
+    @Test
+    fun `takeThumbnailSnapshot should include the changed fields of an updated participant`() {
+        setupThreeParticipantScenario()
+        participantManager.takeThumbnailSnapshot()
+
+        participantManager.muteParticipant("2", true)
+
+        assertThat(participantManager.takeThumbnailSnapshot().changes, equalTo(listOf<ParticipantChange>(
+                ParticipantChange.Changed(1, setOf(ParticipantPayload.MUTED)))))
+    }
+
+    @Test
+    fun `takeThumbnailSnapshot should not include updates that do not change a thumbnail field`() {
+        setupThreeParticipantScenario()
+        participantManager.takeThumbnailSnapshot()
+
+        participantManager.updateParticipant(participantManager.getParticipant("2")!!.copy())
+
+        assertThat(participantManager.takeThumbnailSnapshot().changes, equalTo(emptyList()))
+    }
+
+    @Test
+    fun `takeThumbnailSnapshot should include removals that are valid when applied in order`() {
+        participantManager.addParticipants((2..6).map { ParticipantViewState("$it", "Participant $it") })
+        participantManager.takeThumbnailSnapshot()
+
+        participantManager.removeParticipants(listOf("2", "3", "5"))
+
+        assertThat(participantManager.takeThumbnailSnapshot().changes, equalTo(listOf<ParticipantChange>(
+                ParticipantChange.Removed(4, 1),
+                ParticipantChange.Removed(1, 2))))
+    }
+
+    @Test
+    fun `takeThumbnailSnapshot should not include changes that were already part of a previous snapshot`() {
+        setupThreeParticipantScenario()
+        participantManager.takeThumbnailSnapshot()
+
+        val snapshot = participantManager.takeThumbnailSnapshot()
+
+        assertThat(snapshot.changes, equalTo(emptyList()))
+    }
+
+    @Test
+    fun `takeThumbnailSnapshot should require a diff when too many changes are pending`() {
+        setupThreeParticipantScenario()
+
+        repeat(100) { participantManager.muteParticipant("2", it % 2 == 0) }
+
+        assertThat(participantManager.takeThumbnailSnapshot().changes, `is`(nullValue()))
+        assertThat(participantManager.takeThumbnailSnapshot().changes, equalTo(emptyList()))
+    }
+
+    @Test
+    fun `gridPage should only contain the participants of the selected page`() {
+        val participantManager = ParticipantManager(ParticipantGridPager(pageSize = 2))
+        val videoTracks = List(4) { testRemoteVideoTrack() }
+        participantManager.addParticipants(videoTracks.mapIndexed { index, videoTrack ->
+            ParticipantViewState("${index + 2}", "Participant ${index + 2}",
+                    videoTrack = VideoTrackViewState(videoTrack))
+        })
+
+        participantManager.selectGridPage(1)
+
+        val gridPage = participantManager.gridPage
+        assertThat(gridPage?.page, equalTo(1))
+        assertThat(gridPage?.pageCount, equalTo(3))
+        assertThat(gridPage?.participants?.map { it.sid }, equalTo(listOf("3", "4")))
+        verify(videoTracks[3]).priority = LOW
+    }
+
+    @Test
+    fun `mute and network quality updates should not update the grid track priorities again`() {
+        val gridPager = spy(ParticipantGridPager(pageSize = 2))
+        val participantManager = ParticipantManager(gridPager)
+        participantManager.addParticipants(List(4) {
+            ParticipantViewState("${it + 2}", "Participant ${it + 2}",
+                    videoTrack = VideoTrackViewState(testRemoteVideoTrack()))
+        })
+        clearInvocations(gridPager)
+
+        participantManager.muteParticipant("3", true)
+        participantManager.updateNetworkQuality("4", NETWORK_QUALITY_LEVEL_TWO)
+        participantManager.selectGridPage(0)
+
+        verify(gridPager, never()).updateTrackPriorities(any())
+    }
+
+    @Test
+    fun `a page switch and a roster change should update the grid track priorities once each`() {
+        val gridPager = spy(ParticipantGridPager(pageSize = 2))
+        val participantManager = ParticipantManager(gridPager)
+        participantManager.addParticipants(List(4) {
+            ParticipantViewState("${it + 2}", "Participant ${it + 2}",
+                    videoTrack = VideoTrackViewState(testRemoteVideoTrack()))
+        })
+        clearInvocations(gridPager)
+
+        participantManager.selectGridPage(1)
+        participantManager.removeParticipant("5")
+
+        verify(gridPager, times(2)).updateTrackPriorities(any())
+    }
+
+    @Test
+    fun `gridPage should be null without a grid pager`() {
+        assertThat(participantManager.gridPage, `is`(nullValue()))
+    }
+
+    @Test
+    fun `only the recent speakers within the video limit should render video`() {
+        val participantManager = ParticipantManager(speakerPolicy = SpeakerRecencyPolicy(2))
+        participantManager.addParticipants(List(4) {
+            ParticipantViewState("${it + 2}", "Participant ${it + 2}",
+                    videoTrack = VideoTrackViewState(testRemoteVideoTrack()))
+        })
+
+        participantManager.changeDominantSpeaker("5")
+
+        val hiddenSids = participantManager.participantThumbnails
+                .filter { it.isVideoHidden }
+                .map { it.sid }
+        assertThat(hiddenSids, equalTo(listOf("3", "4")))
+        assertThat(participantManager.primaryParticipant.isVideoHidden, equalTo(false))
+    }
+
+    @Test
+    fun `mute and network quality updates should not run the speaker policy again`() {
+        val speakerPolicy = spy(SpeakerRecencyPolicy(2))
+        val participantManager = ParticipantManager(speakerPolicy = speakerPolicy)
+        participantManager.addParticipants(List(4) {
+            ParticipantViewState("${it + 2}", "Participant ${it + 2}",
+                    videoTrack = VideoTrackViewState(testRemoteVideoTrack()))
+        })
+        clearInvocations(speakerPolicy)
+
+        participantManager.muteParticipant("3", true)
+        participantManager.updateNetworkQuality("4", NETWORK_QUALITY_LEVEL_TWO)
+
+        verify(speakerPolicy, never()).videoSids(any(), anyOrNull())
+        verify(speakerPolicy, never()).updateTrackPriorities(any())
+    }
+
+    @Test
+    fun `a new dominant speaker should run the speaker policy again`() {
+        val speakerPolicy = spy(SpeakerRecencyPolicy(2))
+        val participantManager = ParticipantManager(speakerPolicy = speakerPolicy)
+        participantManager.addParticipants(List(4) {
+            ParticipantViewState("${it + 2}", "Participant ${it + 2}",
+                    videoTrack = VideoTrackViewState(testRemoteVideoTrack()))
+        })
+        clearInvocations(speakerPolicy)
+
+        participantManager.changeDominantSpeaker("5")
+
+        verify(speakerPolicy).videoSids(any(), eq("5"))
+        verify(speakerPolicy).updateTrackPriorities(any())
+    }
+
     private fun setupExistingDominantSpeakerScenario() {
         val participant2 = ParticipantViewState("2", "Participant 2",
                 isDominantSpeaker = true)
@@ -287,9 +582,9 @@ class ParticipantManagerTest : BaseUnitTest() {
 
     private fun setupThreeParticipantScenario(): ParticipantViewState {
         val participant2 = ParticipantViewState("2", "Participant 2",
-                videoTrack = VideoTrackViewState(mock<RemoteVideoTrack>()))
+                videoTrack = VideoTrackViewState(testRemoteVideoTrack()))
         val participant3 = ParticipantViewState("3", "Participant 3",
-                videoTrack = VideoTrackViewState(mock<RemoteVideoTrack>()))
+                videoTrack = VideoTrackViewState(testRemoteVideoTrack()))
         participantManager.updateLocalParticipant(localParticipant)
         participantManager.addParticipant(participant2)
         participantManager.addParticipant(participant3)
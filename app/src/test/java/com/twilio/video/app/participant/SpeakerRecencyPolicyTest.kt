@@ -0,0 +1,100 @@
+package com.twilio.video.app.participant
+
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.LocalVideoTrack
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority.HIGH
+import com.twilio.video.TrackPriority.LOW
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.sdk.VideoTrackViewState
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class SpeakerRecencyPolicyTest : BaseUnitTest() {
+
+    private val speakerPolicy = SpeakerRecencyPolicy(maxVideoTracks = 2)
+    private val localParticipant = ParticipantViewState("1", "Local Participant",
+            videoTrack = VideoTrackViewState(mock<LocalVideoTrack>()), isLocalParticipant = true)
+    private val videoTracks = List(4) { mock<RemoteVideoTrack>() }
+    private val participants = listOf(localParticipant) + videoTracks.mapIndexed { index, videoTrack ->
+        ParticipantViewState("${index + 2}", "Participant ${index + 2}",
+                videoTrack = VideoTrackViewState(videoTrack))
+    }
+
+    @Test
+    fun `participants in thumbnail order should render video until someone speaks`() {
+        assertThat(speakerPolicy.videoSids(participants, "1"), equalTo(setOf("2", "3")))
+    }
+
+    @Test
+    fun `a video track limit should lower the number of participants that render video`() {
+        speakerPolicy.videoTrackLimit = 1
+
+        assertThat(speakerPolicy.videoSids(participants, "1"), equalTo(setOf("2")))
+    }
+
+    @Test
+    fun `the most recent dominant speakers should render video`() {
+        speakerPolicy.onDominantSpeaker("4")
+        speakerPolicy.onDominantSpeaker("5")
+        speakerPolicy.onDominantSpeaker("3")
+
+        assertThat(speakerPolicy.videoSids(participants, "1"), equalTo(setOf("3", "5")))
+    }
+
+    @Test
+    fun `a repeated speaker should move to the front of the recent speakers`() {
+        speakerPolicy.onDominantSpeaker("4")
+        speakerPolicy.onDominantSpeaker("5")
+        speakerPolicy.onDominantSpeaker("4")
+        speakerPolicy.onDominantSpeaker("3")
+
+        assertThat(speakerPolicy.videoSids(participants, "1"), equalTo(setOf("3", "4")))
+    }
+
+    @Test
+    fun `the primary participant should always render video`() {
+        speakerPolicy.onDominantSpeaker("4")
+        speakerPolicy.onDominantSpeaker("5")
+
+        assertThat(speakerPolicy.videoSids(participants, "2"), equalTo(setOf("2", "5")))
+    }
+
+    @Test
+    fun `a removed speaker should no longer render video`() {
+        speakerPolicy.onDominantSpeaker("5")
+        speakerPolicy.onDominantSpeaker("4")
+
+        speakerPolicy.onParticipantRemoved("4")
+
+        assertThat(speakerPolicy.videoSids(participants, "1"), equalTo(setOf("5", "2")))
+    }
+
+    @Test
+    fun `hidden videos should be lowered and restored once shown again`() {
+        val hiddenParticipants = participants.map { it.copy(isVideoHidden = it.sid == "5") }
+        speakerPolicy.updateTrackPriorities(hiddenParticipants)
+        whenever(videoTracks[3].priority).thenReturn(LOW)
+
+        speakerPolicy.updateTrackPriorities(participants)
+
+        verify(videoTracks[3]).priority = LOW
+        verify(videoTracks[3]).priority = null
+        verify(videoTracks[0], never()).priority = LOW
+    }
+
+    @Test
+    fun `a priority that was changed elsewhere should not be restored`() {
+        val hiddenParticipants = participants.map { it.copy(isVideoHidden = it.sid == "5") }
+        speakerPolicy.updateTrackPriorities(hiddenParticipants)
+        whenever(videoTracks[3].priority).thenReturn(HIGH)
+
+        speakerPolicy.updateTrackPriorities(participants)
+
+        verify(videoTracks[3], never()).priority = null
+    }
+}
@@ -0,0 +1,153 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FIVE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_THREE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_TWO
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class CaptureGovernorTest : BaseUnitTest() {
+
+    private val goodSample = CaptureSample(30, 80, 0f, NETWORK_QUALITY_LEVEL_FIVE)
+    private val lossySample = CaptureSample(30, 80, 8f, NETWORK_QUALITY_LEVEL_FIVE)
+    private val captureGovernor = CaptureGovernor(maxDimensionsIndex = 1, downgradeSamples = 2,
+            upgradeSamples = 4, settleSamples = 1)
+
+    @Test
+    fun `the ladder should lower the frame rate and the resolution in turns`() {
+        assertThat(captureLadder(1), equalTo(listOf(CaptureLevel(1, 30), CaptureLevel(1, 24),
+                CaptureLevel(0, 24), CaptureLevel(0, 15))))
+        assertThat(captureLadder(3), equalTo(listOf(CaptureLevel(3, 30), CaptureLevel(3, 24),
+                CaptureLevel(2, 24), CaptureLevel(2, 15), CaptureLevel(1, 15),
+                CaptureLevel(0, 15))))
+    }
+
+    @Test
+    fun `the capture should start at the preference`() {
+        assertThat(captureGovernor.decision,
+                equalTo(CaptureDecision(CaptureLevel(1, 30), CaptureReason.PREFERENCE, 0, 4)))
+    }
+
+    @Test
+    fun `samples while the camera starts should be ignored`() {
+        assertThat(captureGovernor.onSample(lossySample), nullValue())
+        assertThat(captureGovernor.onSample(lossySample), nullValue())
+
+        assertThat(captureGovernor.onSample(lossySample), equalTo(CaptureLevel(1, 24)))
+    }
+
+    @Test
+    fun `a single bad sample should not lower the capture format`() {
+        settle()
+
+        captureGovernor.onSample(lossySample)
+        captureGovernor.onSample(goodSample)
+        captureGovernor.onSample(lossySample)
+
+        assertThat(captureGovernor.decision.step, equalTo(0))
+    }
+
+    @Test
+    fun `a poor network quality level should lower the capture format`() {
+        settle()
+        val poorNetworkSample = goodSample.copy(networkQualityLevel = NETWORK_QUALITY_LEVEL_TWO)
+
+        captureGovernor.onSample(poorNetworkSample)
+        val level = captureGovernor.onSample(poorNetworkSample)
+
+        assertThat(level, equalTo(CaptureLevel(1, 24)))
+        assertThat(captureGovernor.decision.reason, equalTo(CaptureReason.CONGESTION))
+    }
+
+    @Test
+    fun `an encoder that drops most frames should lower the capture format`() {
+        settle()
+        val slowEncoderSample = goodSample.copy(framerate = 12)
+
+        captureGovernor.onSample(slowEncoderSample)
+
+        assertThat(captureGovernor.onSample(slowEncoderSample), equalTo(CaptureLevel(1, 24)))
+    }
+
+    @Test
+    fun `the capture format should not go below the last step`() {
+        repeat(4) { downgrade() }
+
+        assertThat(captureGovernor.decision.level, equalTo(CaptureLevel(0, 15)))
+        assertThat(captureGovernor.decision.step, equalTo(3))
+    }
+
+    @Test
+    fun `a recovered uplink should raise the capture format again`() {
+        downgrade()
+        captureGovernor.onSample(goodSample)
+
+        repeat(3) { assertThat(captureGovernor.onSample(goodSample), nullValue()) }
+        val level = captureGovernor.onSample(goodSample)
+
+        assertThat(level, equalTo(CaptureLevel(1, 30)))
+        assertThat(captureGovernor.decision.reason, equalTo(CaptureReason.RECOVERY))
+    }
+
+    @Test
+    fun `a fair network quality level should hold the capture format`() {
+        downgrade()
+        val fairNetworkSample = goodSample.copy(networkQualityLevel = NETWORK_QUALITY_LEVEL_THREE)
+
+        repeat(10) { captureGovernor.onSample(fairNetworkSample) }
+
+        assertThat(captureGovernor.decision.step, equalTo(1))
+    }
+
+    @Test
+    fun `an upgrade that fails should double the good samples the next upgrade requires`() {
+        downgrade()
+        captureGovernor.onSample(goodSample)
+        repeat(4) { captureGovernor.onSample(goodSample) }
+        assertThat(captureGovernor.decision.step, equalTo(0))
+        downgrade()
+
+        captureGovernor.onSample(goodSample)
+        repeat(7) { captureGovernor.onSample(goodSample) }
+        assertThat(captureGovernor.decision.step, equalTo(1))
+        captureGovernor.onSample(goodSample)
+
+        assertThat(captureGovernor.decision.step, equalTo(0))
+    }
+
+    @Test
+    fun `device limits should cap the capture format until they are lifted`() {
+        assertThat(captureGovernor.setLimits(0, 24), equalTo(CaptureLevel(0, 24)))
+        assertThat(captureGovernor.decision.reason, equalTo(CaptureReason.DEVICE_LIMIT))
+
+        repeat(10) { captureGovernor.onSample(goodSample) }
+        assertThat(captureGovernor.decision.step, equalTo(2))
+
+        assertThat(captureGovernor.setLimits(Int.MAX_VALUE, Int.MAX_VALUE), equalTo(CaptureLevel(1, 30)))
+    }
+
+    @Test
+    fun `device limits above the congested step should not change the capture format`() {
+        downgrade()
+        downgrade()
+
+        assertThat(captureGovernor.setLimits(1, 24), nullValue())
+        assertThat(captureGovernor.decision.level, equalTo(CaptureLevel(0, 24)))
+    }
+
+    private fun settle() {
+        captureGovernor.onSample(goodSample)
+    }
+
+    /*
+     * Settles and then lowers the capture format by one step.
+     */
+    private fun downgrade() {
+        captureGovernor.onSample(goodSample)
+        captureGovernor.onSample(lossySample)
+        captureGovernor.onSample(lossySample)
+    }
+}
@@ -0,0 +1,68 @@
+package com.twilio.video.app.sdk
+
+import com.nhaarman.mockitokotlin2.mock
+import com.twilio.video.app.BaseUnitTest
+import java.util.concurrent.TimeUnit
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import tvi.webrtc.VideoFrame
+
+class FirstFrameTimerTest : BaseUnitTest() {
+
+    private var nowNanos = 0L
+    private val firstFrameTimer = FirstFrameTimer { nowNanos }
+    private val videoFrame = mock<VideoFrame>()
+
+    @Test
+    fun `the first frame after a cold start should be timed as a cold start`() {
+        firstFrameTimer.start(CameraStart.COLD)
+        advanceMillis(400)
+
+        firstFrameTimer.onFrame(videoFrame)
+
+        assertThat(firstFrameTimer.lastColdStartMillis, equalTo(400L))
+        assertThat(firstFrameTimer.lastWarmStartMillis, nullValue())
+    }
+
+    @Test
+    fun `the first frame after a warm start should be timed as a warm start`() {
+        firstFrameTimer.start(CameraStart.COLD)
+        advanceMillis(400)
+        firstFrameTimer.onFrame(videoFrame)
+
+        firstFrameTimer.start(CameraStart.WARM)
+        advanceMillis(120)
+        firstFrameTimer.onFrame(videoFrame)
+
+        assertThat(firstFrameTimer.lastColdStartMillis, equalTo(400L))
+        assertThat(firstFrameTimer.lastWarmStartMillis, equalTo(120L))
+    }
+
+    @Test
+    fun `only the first frame after a start should be timed`() {
+        firstFrameTimer.start(CameraStart.WARM)
+        advanceMillis(100)
+        firstFrameTimer.onFrame(videoFrame)
+
+        advanceMillis(100)
+        firstFrameTimer.onFrame(videoFrame)
+
+        assertThat(firstFrameTimer.lastWarmStartMillis, equalTo(100L))
+    }
+
+    @Test
+    fun `frames after a cancelled start should not be timed`() {
+        firstFrameTimer.start(CameraStart.COLD)
+        firstFrameTimer.cancel()
+
+        firstFrameTimer.onFrame(videoFrame)
+
+        assertThat(firstFrameTimer.lastColdStartMillis, nullValue())
+    }
+
+    private fun advanceMillis(millis: Long) {
+        nowNanos += TimeUnit.MILLISECONDS.toNanos(millis)
+    }
+}
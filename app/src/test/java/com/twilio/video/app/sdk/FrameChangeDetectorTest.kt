@@ -0,0 +1,71 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.util.SyntheticI420Buffer
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class FrameChangeDetectorTest : BaseUnitTest() {
+
+    private val changeDetector = FrameChangeDetector(pixelThreshold = 4)
+
+    @Test
+    fun `the first frame should be changed`() {
+        assertThat(changeDetector.isChanged(SyntheticI420Buffer(64, 36, 100)), equalTo(true))
+    }
+
+    @Test
+    fun `a frame with the same content should not be changed`() {
+        changeDetector.isChanged(SyntheticI420Buffer(64, 36, 100).fill(10, 10, 20, 20, 200))
+
+        assertThat(changeDetector.isChanged(SyntheticI420Buffer(64, 36, 100).fill(10, 10, 20, 20, 200)),
+                equalTo(false))
+    }
+
+    @Test
+    fun `luma noise within the threshold should not be changed`() {
+        changeDetector.isChanged(SyntheticI420Buffer(64, 36, 100))
+
+        assertThat(changeDetector.isChanged(SyntheticI420Buffer(64, 36, 104)), equalTo(false))
+    }
+
+    @Test
+    fun `a single changed pixel should be changed`() {
+        changeDetector.isChanged(SyntheticI420Buffer(64, 36, 100))
+
+        assertThat(changeDetector.isChanged(SyntheticI420Buffer(64, 36, 100).fill(63, 35, 64, 36, 110)),
+                equalTo(true))
+    }
+
+    @Test
+    fun `bright pixels should be compared as unsigned luma`() {
+        changeDetector.isChanged(SyntheticI420Buffer(64, 36, 250))
+
+        assertThat(changeDetector.isChanged(SyntheticI420Buffer(64, 36, 2)), equalTo(true))
+    }
+
+    @Test
+    fun `a changed frame should become the reference`() {
+        changeDetector.isChanged(SyntheticI420Buffer(64, 36, 100))
+        changeDetector.isChanged(SyntheticI420Buffer(64, 36, 150))
+
+        assertThat(changeDetector.isChanged(SyntheticI420Buffer(64, 36, 150)), equalTo(false))
+        assertThat(changeDetector.isChanged(SyntheticI420Buffer(64, 36, 100)), equalTo(true))
+    }
+
+    @Test
+    fun `a frame of another size should be changed`() {
+        changeDetector.isChanged(SyntheticI420Buffer(64, 36, 100))
+
+        assertThat(changeDetector.isChanged(SyntheticI420Buffer(36, 64, 100)), equalTo(true))
+    }
+
+    @Test
+    fun `a reset should make the next frame changed`() {
+        changeDetector.isChanged(SyntheticI420Buffer(64, 36, 100))
+        changeDetector.reset()
+
+        assertThat(changeDetector.isChanged(SyntheticI420Buffer(64, 36, 100)), equalTo(true))
+    }
+}
@@ -0,0 +1,110 @@
+package com.twilio.video.app.sdk
+
+import android.os.PowerManager.THERMAL_STATUS_CRITICAL
+import android.os.PowerManager.THERMAL_STATUS_LIGHT
+import android.os.PowerManager.THERMAL_STATUS_MODERATE
+import android.os.PowerManager.THERMAL_STATUS_NONE
+import android.os.PowerManager.THERMAL_STATUS_SEVERE
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.util.TestDelayScheduler
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+private const val COOL_DOWN_MILLIS = 1000L
+
+class MediaGovernorTest : BaseUnitTest() {
+
+    private val thermalSource = FakeThermalSource()
+    private val delayScheduler = TestDelayScheduler()
+    private val budgets = mutableListOf<MediaBudget>()
+    private val mediaGovernor = MediaGovernor(thermalSource, delayScheduler,
+            coolDownMillis = COOL_DOWN_MILLIS) { budgets.add(it) }
+
+    @Test
+    fun `a cool device with a charged battery should not restrict the media`() {
+        mediaGovernor.start()
+        thermalSource.report(THERMAL_STATUS_NONE)
+
+        assertThat(mediaGovernor.budget, equalTo(MediaBudget.UNRESTRICTED))
+        assertThat(budgets, equalTo(emptyList()))
+    }
+
+    @Test
+    fun `a hotter device should restrict the media right away`() {
+        mediaGovernor.start()
+        thermalSource.report(THERMAL_STATUS_MODERATE)
+        thermalSource.report(THERMAL_STATUS_CRITICAL)
+
+        assertThat(budgets, equalTo(listOf(MEDIA_BUDGET_TABLE[2].budget, MEDIA_BUDGET_TABLE[0].budget)))
+        assertThat(mediaGovernor.budget.maxRemoteVideoTracks, equalTo(1))
+    }
+
+    @Test
+    fun `a low battery should restrict the media unless it is charging`() {
+        mediaGovernor.start()
+        thermalSource.report(THERMAL_STATUS_NONE, batteryPercent = 8, isCharging = true)
+        assertThat(mediaGovernor.budget, equalTo(MediaBudget.UNRESTRICTED))
+
+        thermalSource.report(THERMAL_STATUS_NONE, batteryPercent = 8)
+
+        assertThat(mediaGovernor.budget, equalTo(MEDIA_BUDGET_TABLE[1].budget))
+    }
+
+    @Test
+    fun `a cooler device should restore the media after the cool down`() {
+        mediaGovernor.start()
+        thermalSource.report(THERMAL_STATUS_SEVERE)
+
+        thermalSource.report(THERMAL_STATUS_LIGHT)
+        delayScheduler.advanceBy(COOL_DOWN_MILLIS - 1)
+        assertThat(mediaGovernor.budget, equalTo(MEDIA_BUDGET_TABLE[1].budget))
+        delayScheduler.advanceBy(1)
+
+        assertThat(mediaGovernor.budget, equalTo(MEDIA_BUDGET_TABLE[3].budget))
+    }
+
+    @Test
+    fun `a device that heats up again during the cool down should stay restricted`() {
+        mediaGovernor.start()
+        thermalSource.report(THERMAL_STATUS_SEVERE)
+        thermalSource.report(THERMAL_STATUS_NONE)
+
+        thermalSource.report(THERMAL_STATUS_SEVERE)
+        delayScheduler.advanceBy(COOL_DOWN_MILLIS)
+
+        assertThat(budgets, equalTo(listOf(MEDIA_BUDGET_TABLE[1].budget)))
+        assertThat(delayScheduler.pendingActionCount, equalTo(0))
+    }
+
+    @Test
+    fun `stopping should restore the unrestricted media`() {
+        mediaGovernor.start()
+        thermalSource.report(THERMAL_STATUS_CRITICAL)
+        thermalSource.report(THERMAL_STATUS_NONE)
+
+        mediaGovernor.stop()
+
+        assertThat(mediaGovernor.budget, equalTo(MediaBudget.UNRESTRICTED))
+        assertThat(thermalSource.isStarted, equalTo(false))
+        assertThat(delayScheduler.pendingActionCount, equalTo(0))
+    }
+
+    private class FakeThermalSource : ThermalSource {
+
+        private var listener: ((DeviceCondition) -> Unit)? = null
+        val isStarted: Boolean get() = listener != null
+
+        override fun start(listener: (DeviceCondition) -> Unit) {
+            this.listener = listener
+        }
+
+        override fun stop() {
+            listener = null
+        }
+
+        fun report(thermalStatus: Int, batteryPercent: Int = 100, isCharging: Boolean = false) {
+            listener?.invoke(DeviceCondition(thermalStatus, batteryPercent, isCharging))
+        }
+    }
+}
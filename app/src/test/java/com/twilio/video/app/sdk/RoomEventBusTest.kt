@@ -0,0 +1,108 @@
+package com.twilio.video.app.sdk
+
+import com.nhaarman.mockitokotlin2.mock
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FIVE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_ONE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_THREE
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.ui.room.RoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.Connecting
+import com.twilio.video.app.ui.room.RoomEvent.DominantSpeakerChanged
+import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
+import com.twilio.video.app.ui.room.RoomEvent.RecordingStopped
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantConnected
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.runBlockingTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+@ExperimentalCoroutinesApi
+class RoomEventBusTest : BaseUnitTest() {
+
+    private val roomEventBus = RoomEventBus()
+
+    @Test
+    fun `lifecycle events should be received in the order they were sent`() {
+        val events = listOf(Connecting, RecordingStarted, RecordingStopped,
+                RemoteParticipantConnected(mock()))
+
+        events.forEach { roomEventBus.send(it) }
+
+        assertThat(drain(), equalTo(events))
+    }
+
+    @Test
+    fun `network quality changes for the same participant should be conflated to the latest value`() {
+        roomEventBus.send(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_ONE))
+        roomEventBus.send(NetworkQualityLevelChange("2", NETWORK_QUALITY_LEVEL_THREE))
+        roomEventBus.send(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_FIVE))
+
+        assertThat(drain(), equalTo(listOf<RoomEvent>(
+                NetworkQualityLevelChange("2", NETWORK_QUALITY_LEVEL_THREE),
+                NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_FIVE))))
+        assertThat(roomEventBus.droppedCount, equalTo(1L))
+    }
+
+    @Test
+    fun `a conflated event should be delivered after lifecycle events sent before it`() {
+        val participantConnected = RemoteParticipantConnected(mock())
+        roomEventBus.send(DominantSpeakerChanged("1"))
+        roomEventBus.send(participantConnected)
+        roomEventBus.send(DominantSpeakerChanged("2"))
+
+        assertThat(drain(), equalTo(listOf(participantConnected, DominantSpeakerChanged("2"))))
+    }
+
+    @Test
+    fun `dominant speaker changes should only keep the latest pending change`() {
+        val latestChange = DominantSpeakerChanged("latest")
+        repeat(10) { roomEventBus.send(DominantSpeakerChanged("$it")) }
+        roomEventBus.send(latestChange)
+
+        assertThat(roomEventBus.queueDepth, equalTo(1))
+        assertThat(roomEventBus.poll(), equalTo<RoomEvent>(latestChange))
+        assertThat(roomEventBus.droppedCount, equalTo(10L))
+        assertThat(roomEventBus.sentCount, equalTo(11L))
+    }
+
+    @Test
+    fun `a conflated event that was already received should not conflate newer events`() {
+        roomEventBus.send(DominantSpeakerChanged("1"))
+        roomEventBus.poll()
+        roomEventBus.send(DominantSpeakerChanged("2"))
+
+        assertThat(roomEventBus.poll(), equalTo<RoomEvent>(DominantSpeakerChanged("2")))
+        assertThat(roomEventBus.droppedCount, equalTo(0L))
+    }
+
+    @Test
+    fun `queue depth should track pending events`() {
+        roomEventBus.send(Connecting)
+        roomEventBus.send(RecordingStarted)
+        roomEventBus.poll()
+
+        assertThat(roomEventBus.queueDepth, equalTo(1))
+        assertThat(roomEventBus.maxQueueDepth, equalTo(2))
+    }
+
+    @Test
+    fun `receive should suspend until an event is sent`() = runBlockingTest {
+        val received = mutableListOf<RoomEvent>()
+        val job = launch { repeat(2) { received.add(roomEventBus.receive()) } }
+
+        assertThat(received.isEmpty(), equalTo(true))
+        roomEventBus.send(Connecting)
+        roomEventBus.send(RecordingStarted)
+
+        assertThat(received, equalTo(listOf(Connecting, RecordingStarted)))
+        assertThat(roomEventBus.poll(), nullValue())
+        job.cancel()
+    }
+
+    private fun drain(): List<RoomEvent> =
+            generateSequence { roomEventBus.poll() }.toList()
+}
@@ -0,0 +1,70 @@
+package com.twilio.video.app.sdk
+
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.LocalParticipant
+import com.twilio.video.LocalVideoTrack
+import com.twilio.video.LocalVideoTrackPublication
+import com.twilio.video.Room
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.util.TestStatsTimer
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class RoomManagerTest : BaseUnitTest() {
+
+    private val statsTimer = TestStatsTimer()
+    private val localParticipantManager = mock<LocalParticipantManager> {
+        on { localVideoTrackNames } doReturn hashMapOf(CAMERA_TRACK_NAME to "Camera")
+    }
+    private val roomManager = RoomManager(mock(), mock(), mock(), statsTimer = statsTimer).apply {
+        localParticipantManager = this@RoomManagerTest.localParticipantManager
+    }
+    private val localParticipant = mock<LocalParticipant> { on { sid } doReturn "PA1" }
+
+    @Test
+    fun `stats should be polled for the capture governor while the camera track is capturing`() {
+        roomManager.statsScheduler.attach(mock<Room>())
+        whenever(localParticipantManager.isCameraTrackCapturing).thenReturn(true)
+
+        publishCameraTrack()
+
+        assertThat(roomManager.statsScheduler.isPolling, equalTo(true))
+    }
+
+    @Test
+    fun `stats should not be polled while the camera track is paused or disabled`() {
+        roomManager.statsScheduler.attach(mock<Room>())
+        whenever(localParticipantManager.isCameraTrackCapturing).thenReturn(true)
+        publishCameraTrack()
+
+        whenever(localParticipantManager.isCameraTrackCapturing).thenReturn(false)
+        roomManager.updateCaptureGovernorConsumer()
+
+        assertThat(roomManager.statsScheduler.isPolling, equalTo(false))
+        assertThat(statsTimer.isStarted, equalTo(false))
+    }
+
+    @Test
+    fun `stats should not be polled once the camera track is unpublished`() {
+        roomManager.statsScheduler.attach(mock<Room>())
+        whenever(localParticipantManager.isCameraTrackCapturing).thenReturn(true)
+        publishCameraTrack()
+
+        roomManager.trackSidIndex.removeLocalVideoTrack(CAMERA_TRACK_NAME)
+        roomManager.updateCaptureGovernorConsumer()
+
+        assertThat(roomManager.statsScheduler.isPolling, equalTo(false))
+    }
+
+    private fun publishCameraTrack() {
+        val localVideoTrack = mock<LocalVideoTrack> { on { name } doReturn CAMERA_TRACK_NAME }
+        val publication = mock<LocalVideoTrackPublication> {
+            on { trackSid } doReturn "MT1"
+            on { this.localVideoTrack } doReturn localVideoTrack
+        }
+        roomManager.onLocalVideoTrackPublished(localParticipant, publication)
+    }
+}
@@ -0,0 +1,169 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.util.SyntheticI420Buffer
+import com.twilio.video.app.util.TestDelayScheduler
+import java.util.concurrent.TimeUnit
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import tvi.webrtc.CapturerObserver
+import tvi.webrtc.VideoFrame
+
+class ScreenShareFrameFilterTest : BaseUnitTest() {
+
+    private var nowMillis = 0L
+    private var screenLuma = 0
+    private var screen = SyntheticI420Buffer(64, 36, screenLuma)
+    private var lastDeliveredTimestampNs = 0L
+    private val forwardedTimestampsMillis = mutableListOf<Long>()
+    private val delayScheduler = TestDelayScheduler()
+    private val capturerObserver = object : CapturerObserver {
+        override fun onCapturerStarted(success: Boolean) {}
+        override fun onCapturerStopped() {}
+        override fun onFrameCaptured(frame: VideoFrame) {
+            forwardedTimestampsMillis.add(TimeUnit.NANOSECONDS.toMillis(frame.timestampNs))
+        }
+    }
+    private var refreshIntervalMillis = 10_000L
+    private val frameFilter by lazy {
+        ScreenShareFrameFilter(capturerObserver, delayScheduler, { forceFrame() },
+                refreshIntervalMillis = refreshIntervalMillis,
+                nanoTime = { TimeUnit.MILLISECONDS.toNanos(nowMillis) })
+    }
+
+    @Test
+    fun `the first frame should be forwarded`() {
+        drawFrame()
+
+        assertThat(forwardedTimestampsMillis, equalTo(listOf(0L)))
+    }
+
+    @Test
+    fun `unchanged frames should be skipped`() {
+        drawFrame()
+        repeat(4) {
+            advanceTo(nowMillis + 200)
+            drawFrame(isChanged = false)
+        }
+
+        assertThat(forwardedTimestampsMillis, equalTo(listOf(0L)))
+        assertThat(frameFilter.unchangedFrameCount, equalTo(4L))
+    }
+
+    @Test
+    fun `an unchanged frame should be forwarded once the refresh interval passed`() {
+        refreshIntervalMillis = 1000
+        drawFrame()
+        advanceTo(500)
+        drawFrame(isChanged = false)
+        assertThat(forwardedTimestampsMillis, equalTo(listOf(0L)))
+
+        advanceTo(1000)
+
+        assertThat(forwardedTimestampsMillis, equalTo(listOf(0L, 1000L)))
+    }
+
+    @Test
+    fun `a change within the static frame interval should be forwarded through a forced frame`() {
+        drawFrame()
+        advanceTo(50)
+        drawFrame()
+        assertThat(forwardedTimestampsMillis, equalTo(listOf(0L)))
+
+        advanceTo(175)
+
+        assertThat(forwardedTimestampsMillis, equalTo(listOf(0L, 175L)))
+        assertThat(frameFilter.heldBackFrameCount, equalTo(1L))
+    }
+
+    @Test
+    fun `motion should raise the frame rate`() {
+        drawFrame()
+        advanceTo(200)
+        drawFrame()
+
+        advanceTo(270)
+        drawFrame()
+
+        assertThat(forwardedTimestampsMillis, equalTo(listOf(0L, 200L, 270L)))
+    }
+
+    @Test
+    fun `a single change should not raise the frame rate`() {
+        drawFrame()
+        advanceTo(1000)
+        drawFrame()
+
+        advanceTo(1070)
+        drawFrame()
+
+        assertThat(forwardedTimestampsMillis, equalTo(listOf(0L, 1000L)))
+    }
+
+    @Test
+    fun `the frame rate should drop once the motion stopped`() {
+        drawFrame()
+        advanceTo(200)
+        drawFrame()
+        advanceTo(270)
+        drawFrame()
+
+        advanceTo(3000)
+        drawFrame()
+        advanceTo(3100)
+        drawFrame()
+
+        assertThat(forwardedTimestampsMillis, equalTo(listOf(0L, 200L, 270L, 3000L)))
+        advanceTo(3175)
+        assertThat(forwardedTimestampsMillis, equalTo(listOf(0L, 200L, 270L, 3000L, 3175L)))
+    }
+
+    @Test
+    fun `analyzed frames should release the buffers they read`() {
+        drawFrame()
+        advanceTo(200)
+        drawFrame(isChanged = false)
+
+        assertThat(screen.refCount, equalTo(1))
+    }
+
+    @Test
+    fun `a stopped capturer should cancel the forced frame`() {
+        drawFrame()
+        advanceTo(50)
+        drawFrame()
+
+        frameFilter.onCapturerStopped()
+
+        assertThat(delayScheduler.pendingActionCount, equalTo(0))
+    }
+
+    private fun drawFrame(isChanged: Boolean = true) {
+        frameFilter.onFrameCaptured(nextFrame(isChanged))
+    }
+
+    private fun nextFrame(isChanged: Boolean): VideoFrame {
+        if (isChanged) {
+            screenLuma += 10
+            screen = SyntheticI420Buffer(64, 36, screenLuma)
+        }
+        lastDeliveredTimestampNs = TimeUnit.MILLISECONDS.toNanos(nowMillis)
+        return VideoFrame(screen, 0, lastDeliveredTimestampNs)
+    }
+
+    /*
+     * Delivers the current screen again with the timestamp of the last frame, like
+     * SurfaceTextureHelper.forceFrame.
+     */
+    private fun forceFrame() {
+        frameFilter.onFrameCaptured(VideoFrame(screen, 0, lastDeliveredTimestampNs))
+    }
+
+    private fun advanceTo(millis: Long) {
+        while (nowMillis < millis) {
+            nowMillis++
+            delayScheduler.advanceBy(1)
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.twilio.video.app.sdk
+
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.mock
+import com.twilio.video.LocalVideoTrackStats
+import com.twilio.video.RemoteVideoTrackStats
+import com.twilio.video.StatsReport
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.BaseUnitTest
+import java.io.StringWriter
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class StatsRecorderTest : BaseUnitTest() {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val executor = Executors.newSingleThreadExecutor()
+    private val file by lazy { temporaryFolder.newFile("stats.bin") }
+
+    @Test
+    fun `the file size should be capped by the record capacity`() {
+        record(maxRecords = 4, sampleCount = 10)
+
+        assertThat(file.length(), equalTo(StatsRecordingFormat.fileSize(4)))
+    }
+
+    @Test
+    fun `only the newest samples should be kept once the recording wraps around`() {
+        record(maxRecords = 4, sampleCount = 10)
+
+        val recording = StatsRecording(file)
+        val timestamps = mutableListOf<Long>()
+        recording.forEachSample { timestamps.add(it.timestampMillis) }
+
+        assertThat(recording.recordCount, equalTo(10L))
+        assertThat(timestamps, equalTo(listOf(6000L, 7000L, 8000L, 9000L)))
+    }
+
+    @Test
+    fun `samples should be exported to csv`() {
+        record(maxRecords = 4, sampleCount = 2)
+        val writer = StringWriter()
+
+        StatsRecording(file).exportCsv(writer)
+
+        assertThat(writer.toString().lines(), equalTo(listOf(
+                "timestamp,track_sid,track_kind,bytes,packets,packets_lost,round_trip_time," +
+                        "jitter,audio_level,frame_rate,width,height",
+                "0,MT0,remote_video,0,0,0,0,0,0,30,0,0",
+                "1000,MT1,remote_video,100,10,1,0,0,0,30,0,0",
+                "")))
+    }
+
+    @Test
+    fun `samples should be exported to json`() {
+        record(maxRecords = 4, sampleCount = 1)
+        val writer = StringWriter()
+
+        StatsRecording(file).exportJson(writer)
+
+        assertThat(writer.toString(), equalTo("[\n" +
+                "{\"timestamp\":0,\"trackSid\":\"MT0\",\"trackKind\":\"remote_video\"," +
+                "\"bytes\":0,\"packets\":0,\"packetsLost\":0,\"roundTripTime\":0,\"jitter\":0," +
+                "\"audioLevel\":0,\"frameRate\":30,\"width\":0,\"height\":0}\n]\n"))
+    }
+
+    @Test
+    fun `local and remote tracks of a report should be recorded with their kind`() {
+        val statsReport = mock<StatsReport> {
+            on { localVideoTrackStats } doReturn listOf(localVideoTrackStats("MT0"))
+            on { remoteVideoTrackStats } doReturn listOf(remoteVideoTrackStats("MT1", 1))
+        }
+        val statsRecorder = StatsRecorder(file, 4, executor)
+
+        statsRecorder.start()
+        statsRecorder.record(listOf(statsReport), 1000)
+        statsRecorder.stop()
+        executor.awaitTermination(5, TimeUnit.SECONDS)
+
+        val samples = mutableListOf<StatsRecording.StatsSample>()
+        StatsRecording(file).forEachSample { samples.add(it) }
+        assertThat(samples.map { it.trackSid to it.trackKind }, equalTo(listOf(
+                "MT0" to "local_video", "MT1" to "remote_video")))
+    }
+
+    private fun record(maxRecords: Int, sampleCount: Int) {
+        val statsRecorder = StatsRecorder(file, maxRecords, executor)
+        statsRecorder.start()
+        repeat(sampleCount) {
+            val statsReport = mock<StatsReport> {
+                on { remoteVideoTrackStats } doReturn listOf(remoteVideoTrackStats("MT${it % 2}", it))
+            }
+            statsRecorder.record(listOf(statsReport), it * 1000L)
+        }
+        statsRecorder.stop()
+        executor.awaitTermination(5, TimeUnit.SECONDS)
+    }
+
+    private fun remoteVideoTrackStats(trackSid: String, sample: Int) =
+            mock<RemoteVideoTrackStats>().apply {
+                setField("trackSid", trackSid)
+                setField("bytesReceived", sample * 100L)
+                setField("packetsReceived", sample * 10)
+                setField("packetsLost", sample)
+                setField("frameRate", 30)
+                setField("dimensions", VideoDimensions(0, 0))
+            }
+
+    private fun localVideoTrackStats(trackSid: String) =
+            mock<LocalVideoTrackStats>().apply {
+                setField("trackSid", trackSid)
+                setField("dimensions", VideoDimensions(0, 0))
+            }
+
+    /*
+     * The SDK only exposes the stats as final fields with package private constructors.
+     */
+    private fun Any.setField(name: String, value: Any) {
+        generateSequence<Class<*>>(javaClass) { it.superclass }
+                .mapNotNull { type -> type.declaredFields.find { it.name == name } }
+                .first()
+                .run {
+                    isAccessible = true
+                    set(this@setField, value)
+                }
+    }
+}
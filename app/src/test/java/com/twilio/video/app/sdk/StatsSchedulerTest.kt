@@ -0,0 +1,132 @@
+package com.twilio.video.app.sdk
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.argumentCaptor
+import com.nhaarman.mockitokotlin2.atLeastOnce
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.times
+import com.nhaarman.mockitokotlin2.verify
+import com.twilio.video.Room
+import com.twilio.video.StatsListener
+import com.twilio.video.StatsReport
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.util.TestStatsTimer
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class StatsSchedulerTest : BaseUnitTest() {
+
+    private val statsTimer = TestStatsTimer()
+    private val room = mock<Room>()
+    private val receivedReports = mutableListOf<List<StatsReport>>()
+    private val statsScheduler = StatsScheduler({ receivedReports.add(it) },
+            intervalMillis = 1000, maxIntervalMillis = 4000, statsTimer = statsTimer)
+
+    @Test
+    fun `stats should not be polled without consumers`() {
+        statsScheduler.attach(room)
+
+        statsTimer.advanceBy(5000)
+
+        verify(room, never()).getStats(any())
+        assertThat(statsScheduler.isPolling, equalTo(false))
+    }
+
+    @Test
+    fun `stats should be polled once per interval while there is a consumer`() {
+        statsScheduler.attach(room)
+        statsScheduler.addConsumer("pane")
+
+        repeat(3) {
+            statsTimer.advanceBy(if (it == 0) 0 else 1000)
+            completeRequest(latencyMillis = 10)
+        }
+
+        verify(room, times(3)).getStats(any())
+        assertThat(receivedReports.size, equalTo(3))
+        assertThat(statsScheduler.pollCount, equalTo(3L))
+    }
+
+    @Test
+    fun `a tick should be skipped while the previous request is in flight`() {
+        statsScheduler.attach(room)
+        statsScheduler.addConsumer("pane")
+
+        statsTimer.advanceBy(2000)
+
+        verify(room, times(1)).getStats(any())
+        assertThat(statsScheduler.skippedTickCount, equalTo(2L))
+    }
+
+    @Test
+    fun `the interval should back off when reports are slow and recover when they are fast`() {
+        statsScheduler.attach(room)
+        statsScheduler.addConsumer("pane")
+        statsTimer.advanceBy(0)
+
+        statsTimer.advanceBy(900)
+        completeRequest(latencyMillis = 0)
+
+        assertThat(statsScheduler.lastPollLatencyMillis, equalTo(900L))
+        assertThat(statsScheduler.currentIntervalMillis, equalTo(2000L))
+
+        statsTimer.advanceBy(100)
+        completeRequest(latencyMillis = 10)
+
+        assertThat(statsScheduler.currentIntervalMillis, equalTo(1000L))
+        assertThat(statsScheduler.maxPollLatencyMillis, equalTo(900L))
+    }
+
+    @Test
+    fun `polling should stop when the last consumer is removed`() {
+        statsScheduler.attach(room)
+        statsScheduler.addConsumer("pane")
+        statsScheduler.addConsumer("recorder")
+        statsTimer.advanceBy(0)
+        completeRequest(latencyMillis = 10)
+
+        statsScheduler.removeConsumer("pane")
+        assertThat(statsScheduler.isPolling, equalTo(true))
+        statsScheduler.removeConsumer("recorder")
+        statsTimer.advanceBy(5000)
+
+        verify(room, times(1)).getStats(any())
+        assertThat(statsTimer.isStarted, equalTo(false))
+    }
+
+    @Test
+    fun `a request in flight when polling stopped should not block polling once it resumes`() {
+        statsScheduler.attach(room)
+        statsScheduler.addConsumer("pane")
+        statsTimer.advanceBy(0)
+
+        statsScheduler.removeConsumer("pane")
+        statsScheduler.addConsumer("pane")
+        statsTimer.advanceBy(0)
+
+        verify(room, times(2)).getStats(any())
+        assertThat(statsScheduler.skippedTickCount, equalTo(0L))
+    }
+
+    @Test
+    fun `reports that arrive after detaching should not be delivered`() {
+        statsScheduler.attach(room)
+        statsScheduler.addConsumer("pane")
+        statsTimer.advanceBy(0)
+
+        statsScheduler.detach()
+        completeRequest(latencyMillis = 10)
+
+        assertThat(receivedReports.isEmpty(), equalTo(true))
+    }
+
+    private fun completeRequest(latencyMillis: Long) {
+        statsTimer.advanceBy(latencyMillis)
+        argumentCaptor<StatsListener>().run {
+            verify(room, atLeastOnce()).getStats(capture())
+            lastValue.onStats(emptyList())
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.twilio.video.app.sdk
+
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.RemoteAudioTrackPublication
+import com.twilio.video.RemoteParticipant
+import com.twilio.video.RemoteVideoTrackPublication
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.sdk.TrackSidIndex.IndexedTrack
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class TrackSidIndexTest : BaseUnitTest() {
+
+    private val trackSidIndex = TrackSidIndex()
+    private val remoteParticipant = mock<RemoteParticipant> {
+        whenever(mock.sid).thenReturn("PA1")
+        whenever(mock.identity).thenReturn("Participant 1")
+    }
+
+    @Test
+    fun `a subscribed remote track should be labeled with the participant identity`() {
+        trackSidIndex.addRemoteTrack(remoteParticipant, "MT1", isAudioTrack = true)
+
+        assertThat(trackSidIndex["MT1"], equalTo(IndexedTrack("PA1", "Participant 1",
+                isAudioTrack = true, isLocalTrack = false)))
+    }
+
+    @Test
+    fun `an unsubscribed remote track should be removed`() {
+        trackSidIndex.addRemoteTrack(remoteParticipant, "MT1", isAudioTrack = false)
+
+        trackSidIndex.removeRemoteTrack(remoteParticipant, "MT1")
+
+        assertThat(trackSidIndex["MT1"], nullValue())
+    }
+
+    @Test
+    fun `removing a remote participant should remove all of its tracks`() {
+        trackSidIndex.addRemoteTrack(remoteParticipant, "MT1", isAudioTrack = true)
+        trackSidIndex.addRemoteTrack(remoteParticipant, "MT2", isAudioTrack = false)
+        trackSidIndex.addLocalVideoTrack("PA0", "MT3", CAMERA_TRACK_NAME, "Camera")
+
+        trackSidIndex.removeRemoteParticipant("PA1")
+
+        assertThat(trackSidIndex.size, equalTo(1))
+        assertThat(trackSidIndex["MT3"]?.name, equalTo("Camera"))
+    }
+
+    @Test
+    fun `addRemoteParticipant should only index subscribed publications`() {
+        val subscribedAudio = mock<RemoteAudioTrackPublication> {
+            whenever(mock.trackSid).thenReturn("MT1")
+            whenever(mock.isTrackSubscribed).thenReturn(true)
+        }
+        val unsubscribedVideo = mock<RemoteVideoTrackPublication> {
+            whenever(mock.trackSid).thenReturn("MT2")
+            whenever(mock.isTrackSubscribed).thenReturn(false)
+        }
+        whenever(remoteParticipant.remoteAudioTracks).thenReturn(listOf(subscribedAudio))
+        whenever(remoteParticipant.remoteVideoTracks).thenReturn(listOf(unsubscribedVideo))
+
+        trackSidIndex.addRemoteParticipant(remoteParticipant)
+
+        assertThat(trackSidIndex["MT1"]?.isAudioTrack, equalTo(true))
+        assertThat(trackSidIndex["MT2"], nullValue())
+    }
+
+    @Test
+    fun `republishing a local track should replace the previous track sid`() {
+        trackSidIndex.addLocalVideoTrack("PA0", "MT1", CAMERA_TRACK_NAME, "Camera")
+        trackSidIndex.addLocalVideoTrack("PA0", "MT2", CAMERA_TRACK_NAME, "Camera")
+
+        assertThat(trackSidIndex["MT1"], nullValue())
+        assertThat(trackSidIndex["MT2"]?.isLocalTrack, equalTo(true))
+
+        trackSidIndex.removeLocalVideoTrack(CAMERA_TRACK_NAME)
+
+        assertThat(trackSidIndex.size, equalTo(0))
+    }
+}
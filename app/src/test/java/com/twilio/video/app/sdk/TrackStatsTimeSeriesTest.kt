@@ -0,0 +1,69 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class TrackStatsTimeSeriesTest : BaseUnitTest() {
+
+    private val timeSeries = TrackStatsTimeSeries(capacity = 4, isSent = false)
+
+    @Test
+    fun `the newest sample should have age zero`() {
+        timeSeries.add(1000, bytes = 100, packets = 1, packetsLost = 0, frameRate = 15)
+        timeSeries.add(2000, bytes = 200, packets = 2, packetsLost = 0, frameRate = 30)
+
+        assertThat(timeSeries.frameRateAt(0), equalTo(30))
+        assertThat(timeSeries.frameRateAt(1), equalTo(15))
+    }
+
+    @Test
+    fun `the oldest sample should be overwritten once the capacity is reached`() {
+        (1..6).forEach { timeSeries.add(it * 1000L, bytes = it * 100L, packets = it, packetsLost = 0) }
+
+        assertThat(timeSeries.size, equalTo(4))
+        assertThat(timeSeries.timestampAt(3), equalTo(3000L))
+        assertThat(timeSeries.bytesAt(0), equalTo(600L))
+    }
+
+    @Test
+    fun `bitrate should be computed from the byte delta within the window`() {
+        timeSeries.add(0, bytes = 0, packets = 0, packetsLost = 0)
+        timeSeries.add(1000, bytes = 125_000, packets = 100, packetsLost = 0)
+        timeSeries.add(2000, bytes = 250_000, packets = 200, packetsLost = 0)
+        timeSeries.add(3000, bytes = 500_000, packets = 300, packetsLost = 0)
+
+        assertThat(timeSeries.bitrateKbps(windowMillis = 1000), equalTo(2000))
+        assertThat(timeSeries.bitrateKbps(windowMillis = 5000), equalTo(1333))
+    }
+
+    @Test
+    fun `packet loss of a received track should be the share of lost packets within the window`() {
+        timeSeries.add(0, bytes = 0, packets = 0, packetsLost = 0)
+        timeSeries.add(1000, bytes = 0, packets = 90, packetsLost = 10)
+
+        assertThat(timeSeries.packetLossPercent(windowMillis = 1000), equalTo(10f))
+    }
+
+    @Test
+    fun `packet loss of a sent track should be the share of sent packets that were lost`() {
+        val timeSeries = TrackStatsTimeSeries(capacity = 4, isSent = true)
+        timeSeries.add(0, bytes = 0, packets = 0, packetsLost = 0)
+        timeSeries.add(1000, bytes = 0, packets = 100, packetsLost = 10)
+
+        assertThat(timeSeries.packetLossPercent(windowMillis = 1000), equalTo(10f))
+    }
+
+    @Test
+    fun `rates should be zero with a single sample or after a counter reset`() {
+        timeSeries.add(0, bytes = 1000, packets = 10, packetsLost = 0)
+
+        assertThat(timeSeries.bitrateKbps(windowMillis = 1000), equalTo(0))
+
+        timeSeries.add(1000, bytes = 0, packets = 0, packetsLost = 0)
+
+        assertThat(timeSeries.bitrateKbps(windowMillis = 1000), equalTo(0))
+        assertThat(timeSeries.packetLossPercent(windowMillis = 1000), equalTo(0f))
+    }
+}
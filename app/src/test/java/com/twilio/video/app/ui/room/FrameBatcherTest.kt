@@ -0,0 +1,45 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.util.TestFrameClock
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class FrameBatcherTest : BaseUnitTest() {
+
+    private val frameClock = TestFrameClock().apply { isPaused = true }
+    private var frameCount = 0
+    private val frameBatcher = FrameBatcher(frameClock) { frameCount++ }
+
+    @Test
+    fun `all invalidations within one frame should result in a single update`() {
+        repeat(30) { frameBatcher.invalidate() }
+
+        assertThat(frameBatcher.pendingInvalidations, equalTo(30))
+        frameClock.doFrame()
+
+        assertThat(frameCount, equalTo(1))
+        assertThat(frameBatcher.pendingInvalidations, equalTo(0))
+    }
+
+    @Test
+    fun `no update should happen for a frame without invalidations`() {
+        frameBatcher.invalidate()
+        frameClock.doFrame()
+        frameClock.doFrame()
+
+        assertThat(frameCount, equalTo(1))
+    }
+
+    @Test
+    fun `invalidations after a frame should be applied on the following frame`() {
+        frameBatcher.invalidate()
+        frameClock.doFrame()
+        frameBatcher.invalidate()
+        frameBatcher.invalidate()
+        frameClock.doFrame()
+
+        assertThat(frameCount, equalTo(2))
+    }
+}
@@ -0,0 +1,77 @@
+package com.twilio.video.app.ui.room
+
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.app.BaseUnitTest
+import java.util.concurrent.TimeUnit
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import tvi.webrtc.VideoFrame
+import tvi.webrtc.VideoSink
+
+class FrameRateLimitedSinkTest : BaseUnitTest() {
+
+    private var forwardedFrameCount = 0
+    private val delegate = VideoSink { forwardedFrameCount++ }
+    private val videoFrame = mock<VideoFrame>()
+    private var timestampNanos = 0L
+
+    @Test
+    fun `a 30 fps track should be halved by a 15 fps budget`() {
+        val sink = FrameRateLimitedSink(delegate, 15)
+
+        deliverFrames(sink, count = 30, framesPerSecond = 30)
+
+        assertThat(forwardedFrameCount, equalTo(15))
+        assertThat(sink.droppedFrameCount, equalTo(15L))
+    }
+
+    @Test
+    fun `frames below the budget should all be forwarded`() {
+        val sink = FrameRateLimitedSink(delegate, 30)
+
+        deliverFrames(sink, count = 24, framesPerSecond = 24)
+
+        assertThat(forwardedFrameCount, equalTo(24))
+    }
+
+    @Test
+    fun `a 30 fps track should be reduced to 10 fps`() {
+        val sink = FrameRateLimitedSink(delegate, 10)
+
+        deliverFrames(sink, count = 30, framesPerSecond = 30)
+
+        assertThat(forwardedFrameCount, equalTo(10))
+    }
+
+    @Test
+    fun `a raised budget should take effect for the following frames`() {
+        val sink = FrameRateLimitedSink(delegate, 15)
+        deliverFrames(sink, count = 30, framesPerSecond = 30)
+
+        sink.maxFramesPerSecond = PRIMARY_MAX_FRAMES_PER_SECOND
+        deliverFrames(sink, count = 30, framesPerSecond = 30)
+
+        assertThat(forwardedFrameCount, equalTo(45))
+    }
+
+    @Test
+    fun `a timestamp that jumps backwards should be forwarded`() {
+        val sink = FrameRateLimitedSink(delegate, 15)
+        deliverFrames(sink, count = 3, framesPerSecond = 30)
+
+        timestampNanos = 0
+        deliverFrames(sink, count = 1, framesPerSecond = 30)
+
+        assertThat(forwardedFrameCount, equalTo(3))
+    }
+
+    private fun deliverFrames(sink: FrameRateLimitedSink, count: Int, framesPerSecond: Int) {
+        repeat(count) {
+            timestampNanos += TimeUnit.SECONDS.toNanos(1) / framesPerSecond
+            whenever(videoFrame.timestampNs).thenReturn(timestampNanos)
+            sink.onFrame(videoFrame)
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.BaseUnitTest
+import java.util.concurrent.TimeUnit
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class FrameStatsTest : BaseUnitTest() {
+
+    private val frameStats = FrameStats()
+    private var nowNanos = 0L
+
+    @Test
+    fun `frames and dimensions should be counted`() {
+        renderFrames(count = 30, intervalMillis = 33, width = 640, height = 360)
+
+        val snapshot = frameStats.snapshot(nowNanos)
+
+        assertThat(snapshot.frameCount, equalTo(30L))
+        assertThat(snapshot.framesPerSecond, equalTo(30))
+        assertThat(snapshot.width, equalTo(640))
+        assertThat(snapshot.height, equalTo(360))
+    }
+
+    @Test
+    fun `frame intervals should be counted in the histogram`() {
+        renderFrames(count = 11, intervalMillis = 33)
+        renderFrames(count = 5, intervalMillis = 100)
+
+        assertThat(frameStats.snapshot(nowNanos).intervalHistogram,
+                equalTo(listOf(0L, 10L, 0L, 5L, 0L, 0L, 0L)))
+    }
+
+    @Test
+    fun `a long gap between frames should be counted as a frozen frame`() {
+        renderFrames(count = 30, intervalMillis = 33)
+        renderFrames(count = 1, intervalMillis = 400)
+        renderFrames(count = 10, intervalMillis = 33)
+
+        val snapshot = frameStats.snapshot(nowNanos)
+
+        assertThat(snapshot.frozenFrameCount, equalTo(1L))
+        assertThat(snapshot.frozenDurationMillis, equalTo(400L))
+        assertThat(snapshot.framesPerSecond, equalTo(30))
+    }
+
+    @Test
+    fun `a slow but steady frame rate should not be counted as frozen`() {
+        renderFrames(count = 30, intervalMillis = 200)
+
+        val snapshot = frameStats.snapshot(nowNanos)
+
+        assertThat(snapshot.frozenFrameCount, equalTo(0L))
+        assertThat(snapshot.framesPerSecond, equalTo(5))
+    }
+
+    @Test
+    fun `the frame rate should drop to zero once frames stop arriving`() {
+        renderFrames(count = 30, intervalMillis = 33)
+
+        assertThat(frameStats.snapshot(nowNanos + TimeUnit.SECONDS.toNanos(2)).framesPerSecond,
+                equalTo(0))
+    }
+
+    @Test
+    fun `reset should clear all counters`() {
+        renderFrames(count = 30, intervalMillis = 33)
+
+        frameStats.reset()
+
+        assertThat(frameStats.snapshot(nowNanos), equalTo(FrameStatsSnapshot(
+                0, 0, 0, List(INTERVAL_BUCKET_COUNT) { 0L }, 0, 0, 0)))
+    }
+
+    private fun renderFrames(count: Int, intervalMillis: Long, width: Int = 320, height: Int = 180) {
+        repeat(count) {
+            nowNanos += TimeUnit.MILLISECONDS.toNanos(intervalMillis)
+            frameStats.onFrame(nowNanos, width, height)
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.twilio.video.app.ui.room
+
+import android.view.View
+import android.view.ViewGroup
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import androidx.test.core.app.ApplicationProvider
+import com.twilio.video.app.R
+import com.twilio.video.app.TestApp
+import com.twilio.video.app.participant.ParticipantViewState
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+@RunWith(RobolectricTestRunner::class)
+@Config(application = TestApp::class)
+class ParticipantThumbViewTest {
+
+    private val context = ApplicationProvider.getApplicationContext<TestApp>()
+    private val participant = ParticipantViewState("1", "Participant 1")
+
+    @Test
+    fun `the thumbnail should not nest view groups`() {
+        val thumb = ParticipantThumbView(context)
+
+        val nestedViewGroups = (0 until thumb.childCount).count { thumb.getChildAt(it) is ViewGroup }
+
+        assertThat(nestedViewGroups, equalTo(0))
+    }
+
+    @Test
+    fun `state changes should reuse the cached backgrounds`() {
+        val thumb = ParticipantThumbView(context)
+        thumb.setState(ParticipantView.State.VIDEO)
+        val videoBackground = thumb.background
+
+        thumb.setState(ParticipantView.State.NO_VIDEO)
+        thumb.setState(ParticipantView.State.VIDEO)
+
+        assertThat(thumb.background, sameInstance(videoBackground))
+    }
+
+    @Test
+    fun `the switched off indicator should only be visible for switched off tracks`() {
+        val thumb = ParticipantThumbView(context)
+        val switchOffIndicator = thumb.findViewById<View>(R.id.participant_track_switch_off)
+
+        thumb.setState(ParticipantView.State.SWITCHED_OFF)
+        assertThat(switchOffIndicator.visibility, equalTo(View.VISIBLE))
+
+        thumb.setState(ParticipantView.State.VIDEO)
+        assertThat(switchOffIndicator.visibility, equalTo(View.GONE))
+    }
+
+    @Test
+    fun `the view pool should be filled up to the max video track count`() {
+        val recyclerView = RecyclerView(context).apply {
+            layoutManager = LinearLayoutManager(context, LinearLayoutManager.HORIZONTAL, false)
+        }
+        val adapter = ParticipantAdapter()
+        recyclerView.adapter = adapter
+
+        adapter.fillViewPool(recyclerView, 5)
+        adapter.fillViewPool(recyclerView, 5)
+
+        assertThat(recyclerView.recycledViewPool.getRecycledViewCount(0), equalTo(5))
+    }
+
+    @Test
+    fun `the view pool size should be clamped to a sane range`() {
+        val recyclerView = RecyclerView(context).apply {
+            layoutManager = LinearLayoutManager(context, LinearLayoutManager.HORIZONTAL, false)
+        }
+        val adapter = ParticipantAdapter()
+        recyclerView.adapter = adapter
+
+        adapter.fillViewPool(recyclerView, 0)
+        assertThat(recyclerView.recycledViewPool.getRecycledViewCount(0), equalTo(5))
+
+        adapter.fillViewPool(recyclerView, 1000)
+        assertThat(recyclerView.recycledViewPool.getRecycledViewCount(0), equalTo(16))
+    }
+}
@@ -0,0 +1,222 @@
+package com.twilio.video.app.ui.room
+
+import android.graphics.drawable.Drawable
+import android.view.View
+import android.widget.ImageView
+import android.widget.TextView
+import androidx.test.core.app.ApplicationProvider
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FIVE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_ONE
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority.HIGH
+import com.twilio.video.TrackPriority.LOW
+import com.twilio.video.VideoTrack
+import com.twilio.video.app.R
+import com.twilio.video.app.TestApp
+import com.twilio.video.app.participant.ParticipantPayload
+import com.twilio.video.app.participant.ParticipantPayload.IDENTITY
+import com.twilio.video.app.participant.ParticipantPayload.MUTED
+import com.twilio.video.app.participant.ParticipantPayload.NETWORK_QUALITY
+import com.twilio.video.app.participant.ParticipantPayload.PINNED
+import com.twilio.video.app.participant.ParticipantPayload.VIDEO_TRACK
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.VideoTrackViewState
+import com.twilio.video.app.util.TestDelayScheduler
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import timber.log.Timber
+
+private const val BIND_ITERATIONS = 1_000
+
+@RunWith(RobolectricTestRunner::class)
+@Config(application = TestApp::class)
+class ParticipantViewHolderTest {
+
+    private val thumb = ParticipantThumbView(ApplicationProvider.getApplicationContext())
+    private val videoSinkRegistry = VideoSinkRegistry()
+    private val delayScheduler = TestDelayScheduler()
+    private val viewHolder = ParticipantViewHolder(thumb, videoSinkRegistry,
+            RenderHintController(delayScheduler = delayScheduler))
+    private val videoTrack = mock<RemoteVideoTrack> {
+        whenever(mock.isEnabled).thenReturn(true)
+    }
+    private val participant = ParticipantViewState("1", "Participant 1",
+            networkQualityLevel = NETWORK_QUALITY_LEVEL_ONE)
+
+    @Test
+    fun `an identity payload should only rebind the identity`() {
+        val previousThumbnail = bindChangedState(setOf(IDENTITY))
+
+        assertThat(renderedThumbnail(), equalTo(previousThumbnail.copy(identity = "Renamed")))
+    }
+
+    @Test
+    fun `a muted payload should only rebind the audio indicator`() {
+        val previousThumbnail = bindChangedState(setOf(MUTED))
+
+        assertThat(renderedThumbnail(), equalTo(previousThumbnail.copy(isMutedVisible = true)))
+    }
+
+    @Test
+    fun `a pinned payload should only rebind the pin indicator`() {
+        val previousThumbnail = bindChangedState(setOf(PINNED))
+
+        assertThat(renderedThumbnail(), equalTo(previousThumbnail.copy(isPinVisible = true)))
+    }
+
+    @Test
+    fun `a network quality payload should only rebind the network quality image`() {
+        val previousThumbnail = bindChangedState(setOf(NETWORK_QUALITY))
+
+        val networkQualityImage = thumb.findViewById<ImageView>(R.id.network_quality).drawable
+        assertThat(networkQualityImage, not(sameInstance(previousThumbnail.networkQualityImage)))
+        assertThat(renderedThumbnail(),
+                equalTo(previousThumbnail.copy(networkQualityImage = networkQualityImage)))
+    }
+
+    @Test
+    fun `a video track payload should only rebind the video`() {
+        val previousThumbnail = bindChangedState(setOf(VIDEO_TRACK))
+
+        assertThat(renderedThumbnail(), equalTo(previousThumbnail.copy(
+                isVideoVisible = true, videoTrack = videoTrack)))
+    }
+
+    @Test
+    fun `a change without a payload should not rebind any view`() {
+        val previousThumbnail = bindChangedState(emptySet())
+
+        assertThat(renderedThumbnail(), equalTo(previousThumbnail))
+    }
+
+    @Test
+    fun `a bound thumbnail should only become a sink once it is attached`() {
+        viewHolder.bind(participant.copy(videoTrack = VideoTrackViewState(videoTrack))) {}
+
+        assertThat(videoSinkRegistry.liveSinkCount(videoTrack), equalTo(0))
+
+        viewHolder.onAttached()
+
+        assertThat(videoSinkRegistry.liveSinkCount(videoTrack), equalTo(1))
+        verify(videoTrack).addSink(viewHolder.videoSink)
+    }
+
+    @Test
+    fun `a detached thumbnail should remove its sink and lower the track priority`() {
+        viewHolder.bind(participant.copy(videoTrack = VideoTrackViewState(videoTrack))) {}
+        viewHolder.onAttached()
+
+        viewHolder.onDetached()
+        delayScheduler.advanceBy(DEFAULT_RENDER_HINT_DEBOUNCE_MILLIS)
+
+        assertThat(videoSinkRegistry.liveSinkCount(videoTrack), equalTo(0))
+        verify(videoTrack).removeSink(viewHolder.videoSink)
+        verify(videoTrack).priority = LOW
+    }
+
+    @Test
+    fun `a detached thumbnail should not lower a priority that was set elsewhere`() {
+        whenever(videoTrack.priority).thenReturn(HIGH)
+        viewHolder.bind(participant.copy(videoTrack = VideoTrackViewState(videoTrack))) {}
+        viewHolder.onAttached()
+
+        viewHolder.onDetached()
+        delayScheduler.advanceBy(DEFAULT_RENDER_HINT_DEBOUNCE_MILLIS)
+
+        verify(videoTrack, never()).priority = LOW
+    }
+
+    @Test
+    fun `repeated attaches and binds should not add duplicate sinks`() {
+        val state = participant.copy(videoTrack = VideoTrackViewState(videoTrack))
+        viewHolder.bind(state) {}
+        viewHolder.onAttached()
+        viewHolder.onDetached()
+        viewHolder.onAttached()
+        viewHolder.bind(state) {}
+
+        assertThat(videoSinkRegistry.liveSinkCount(videoTrack), equalTo(1))
+    }
+
+    @Test
+    fun `a hidden video should show the avatar instead of becoming a sink`() {
+        val state = participant.copy(videoTrack = VideoTrackViewState(videoTrack))
+        viewHolder.bind(state) {}
+        viewHolder.onAttached()
+
+        viewHolder.bind(state.copy(isVideoHidden = true), setOf(VIDEO_TRACK)) {}
+
+        assertThat(videoSinkRegistry.liveSinkCount(videoTrack), equalTo(0))
+        assertThat(thumb.findViewById<View>(R.id.selected_identity).visibility, equalTo(View.VISIBLE))
+    }
+
+    @Test
+    fun `a recycled thumbnail should not keep a sink`() {
+        viewHolder.bind(participant.copy(videoTrack = VideoTrackViewState(videoTrack))) {}
+        viewHolder.onAttached()
+
+        viewHolder.onRecycled()
+
+        assertThat(videoSinkRegistry.liveSinkCount, equalTo(0))
+    }
+
+    @Test
+    fun `benchmark full binds against partial binds`() {
+        viewHolder.bind(participant) {}
+        val states = listOf(participant.copy(networkQualityLevel = NETWORK_QUALITY_LEVEL_FIVE), participant)
+
+        val fullBindNanos = measureBinds { viewHolder.bind(states[it % 2], ParticipantPayload.ALL) {} }
+        val partialBindNanos = measureBinds { viewHolder.bind(states[it % 2], setOf(NETWORK_QUALITY)) {} }
+
+        Timber.i("%d full binds took %d ns, %d network quality binds took %d ns",
+                BIND_ITERATIONS, fullBindNanos, BIND_ITERATIONS, partialBindNanos)
+        assertThat(thumb.findViewById<TextView>(R.id.selected_identity).text.toString(),
+                equalTo("Participant 1"))
+    }
+
+    /*
+     * Binds the participant, then a state in which every rendered field changed together with
+     * only the given payloads. Returns how the thumbnail was rendered before the second bind.
+     */
+    private fun bindChangedState(payloads: Set<ParticipantPayload>): RenderedThumbnail {
+        viewHolder.bind(participant) {}
+        val previousThumbnail = renderedThumbnail()
+        viewHolder.bind(participant.copy(identity = "Renamed", isMuted = true, isPinned = true,
+                isDominantSpeaker = true, networkQualityLevel = NETWORK_QUALITY_LEVEL_FIVE,
+                videoTrack = VideoTrackViewState(videoTrack)), payloads) {}
+        return previousThumbnail
+    }
+
+    private fun renderedThumbnail() = RenderedThumbnail(
+            thumb.findViewById<TextView>(R.id.selected_identity).text.toString(),
+            thumb.findViewById<View>(R.id.audio_toggle).visibility == View.VISIBLE,
+            thumb.findViewById<View>(R.id.pin).visibility == View.VISIBLE,
+            thumb.findViewById<ImageView>(R.id.network_quality).drawable,
+            thumb.findViewById<View>(R.id.video).visibility == View.VISIBLE,
+            thumb.videoTrack)
+
+    private fun measureBinds(bind: (Int) -> Unit): Long {
+        val start = System.nanoTime()
+        repeat(BIND_ITERATIONS) { bind(it) }
+        return System.nanoTime() - start
+    }
+}
+
+private data class RenderedThumbnail(
+    val identity: String,
+    val isMutedVisible: Boolean,
+    val isPinVisible: Boolean,
+    val networkQualityImage: Drawable?,
+    val isVideoVisible: Boolean,
+    val videoTrack: VideoTrack?
+)
@@ -0,0 +1,95 @@
+package com.twilio.video.app.ui.room
+
+import androidx.test.core.app.ApplicationProvider
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.spy
+import com.nhaarman.mockitokotlin2.times
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.app.TestApp
+import com.twilio.video.app.sdk.VideoTrackViewState
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+@RunWith(RobolectricTestRunner::class)
+@Config(application = TestApp::class)
+class PrimaryParticipantControllerTest {
+
+    private val primaryView = spy(ParticipantPrimaryView(ApplicationProvider.getApplicationContext()))
+    private val videoSinkRegistry = VideoSinkRegistry()
+    private val controller = PrimaryParticipantController(primaryView,
+            RenderHintController(delayScheduler = mock()), videoSinkRegistry)
+    private val videoTrack = mock<RemoteVideoTrack> {
+        whenever(mock.isEnabled).thenReturn(true)
+    }
+    private val otherVideoTrack = mock<RemoteVideoTrack> {
+        whenever(mock.isEnabled).thenReturn(true)
+    }
+
+    @Test
+    fun `rendering the same track again should not touch its sink`() {
+        repeat(3) { render(videoTrack) }
+
+        verify(videoTrack, times(1)).addSink(any())
+        verify(videoTrack, never()).removeSink(any())
+        assertThat(videoSinkRegistry.liveSinkCount(videoTrack), equalTo(1))
+    }
+
+    @Test
+    fun `a new primary track should move the sink once`() {
+        render(videoTrack)
+        render(otherVideoTrack)
+        render(otherVideoTrack)
+
+        verify(videoTrack, times(1)).removeSink(any())
+        verify(otherVideoTrack, times(1)).addSink(any())
+        assertThat(videoSinkRegistry.liveSinkCount, equalTo(1))
+    }
+
+    @Test
+    fun `a track that becomes enabled should get its sink`() {
+        whenever(videoTrack.isEnabled).thenReturn(false)
+        render(videoTrack)
+        verify(videoTrack, never()).addSink(any())
+
+        whenever(videoTrack.isEnabled).thenReturn(true)
+        render(videoTrack)
+
+        verify(videoTrack, times(1)).addSink(any())
+    }
+
+    @Test
+    fun `unchanged fields should not be rebound`() {
+        render(videoTrack)
+        render(videoTrack)
+        render(videoTrack, muted = true)
+
+        verify(primaryView, times(1)).setIdentity("Participant 1")
+        verify(primaryView, times(1)).setMirror(false)
+        verify(primaryView, times(2)).setMuted(any())
+        verify(primaryView, times(1)).setState(ParticipantView.State.VIDEO)
+    }
+
+    @Test
+    fun `removing the primary track should remove its sink and show no video`() {
+        render(videoTrack)
+
+        render(null)
+
+        verify(videoTrack, times(1)).removeSink(any())
+        verify(primaryView).setState(ParticipantView.State.NO_VIDEO)
+        assertThat(videoSinkRegistry.liveSinkCount, equalTo(0))
+    }
+
+    private fun render(videoTrack: RemoteVideoTrack?, muted: Boolean = false) {
+        controller.renderAsPrimary("Participant 1", null,
+                videoTrack?.let { VideoTrackViewState(it) }, muted, false)
+    }
+}
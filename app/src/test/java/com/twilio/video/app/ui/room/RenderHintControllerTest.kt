@@ -0,0 +1,162 @@
+package com.twilio.video.app.ui.room
+
+import android.view.View
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority.HIGH
+import com.twilio.video.TrackPriority.LOW
+import com.twilio.video.TrackPriority.STANDARD
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.participant.SpeakerRecencyPolicy
+import com.twilio.video.app.sdk.VideoTrackViewState
+import com.twilio.video.app.util.TestDelayScheduler
+import com.twilio.video.app.util.testRemoteVideoTrack
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class RenderHintControllerTest : BaseUnitTest() {
+
+    private val delayScheduler = TestDelayScheduler()
+    private val renderHintController = RenderHintController(
+            mapOf(LOW to VideoDimensions(320, 180)), delayScheduler, 300)
+    private val thumbnail = mock<View>()
+    private val primaryView = mock<View>()
+    private val videoTrack = mock<RemoteVideoTrack>()
+
+    @Test
+    fun `a view size should map to the lowest priority that covers it`() {
+        assertThat(renderHintController.priorityFor(0, 0), equalTo(LOW))
+        assertThat(renderHintController.priorityFor(180, 320), equalTo(LOW))
+        assertThat(renderHintController.priorityFor(480, 640), equalTo(STANDARD))
+        assertThat(renderHintController.priorityFor(1080, 720), equalTo(HIGH))
+        assertThat(renderHintController.priorityFor(2560, 1440), equalTo(HIGH))
+    }
+
+    @Test
+    fun `size updates within the debounce window should be applied once`() {
+        renderHintController.update(thumbnail, videoTrack, 100, 100)
+        delayScheduler.advanceBy(100)
+        renderHintController.update(thumbnail, videoTrack, 600, 400)
+        delayScheduler.advanceBy(100)
+        renderHintController.update(thumbnail, videoTrack, 200, 200)
+
+        delayScheduler.advanceBy(300)
+
+        assertThat(renderHintController.applyCount, equalTo(1))
+        verify(videoTrack).priority = LOW
+        verify(videoTrack, never()).priority = STANDARD
+    }
+
+    @Test
+    fun `an unchanged size should not schedule an update`() {
+        renderHintController.update(thumbnail, videoTrack, 100, 100)
+        delayScheduler.advanceBy(300)
+
+        renderHintController.update(thumbnail, videoTrack, 100, 100)
+
+        assertThat(delayScheduler.pendingActionCount, equalTo(0))
+    }
+
+    @Test
+    fun `a track should be hinted by its largest view`() {
+        renderHintController.update(thumbnail, videoTrack, 100, 100)
+        renderHintController.update(primaryView, videoTrack, 1080, 1920)
+
+        delayScheduler.advanceBy(300)
+
+        verify(videoTrack).priority = HIGH
+        verify(videoTrack, never()).priority = LOW
+    }
+
+    @Test
+    fun `a high priority that was not hinted should not be lowered`() {
+        whenever(videoTrack.priority).thenReturn(HIGH)
+
+        renderHintController.update(thumbnail, videoTrack, 100, 100)
+        delayScheduler.advanceBy(300)
+
+        verify(videoTrack, never()).priority = LOW
+    }
+
+    @Test
+    fun `a hinted priority should be cleared once no view renders the track`() {
+        renderHintController.update(thumbnail, videoTrack, 100, 100)
+        delayScheduler.advanceBy(300)
+        whenever(videoTrack.priority).thenReturn(LOW)
+
+        renderHintController.remove(thumbnail)
+        delayScheduler.advanceBy(300)
+
+        verify(videoTrack).priority = null
+    }
+
+    @Test
+    fun `released hints should not be applied`() {
+        renderHintController.update(thumbnail, videoTrack, 100, 100)
+
+        renderHintController.release()
+        delayScheduler.advanceBy(300)
+
+        assertThat(renderHintController.applyCount, equalTo(0))
+    }
+
+    @Test
+    fun `a priority that was not set by a hint should not be cleared`() {
+        val videoTrack = testRemoteVideoTrack()
+        videoTrack.priority = LOW
+        renderHintController.update(thumbnail, videoTrack, 100, 100)
+        delayScheduler.advanceBy(300)
+
+        renderHintController.remove(thumbnail)
+        delayScheduler.advanceBy(300)
+
+        assertThat(videoTrack.priority, equalTo(LOW))
+    }
+
+    @Test
+    fun `a hidden video should stay low once its hint is dropped`() {
+        val speakerPolicy = SpeakerRecencyPolicy(maxVideoTracks = 1)
+        val videoTrack = testRemoteVideoTrack()
+        val participant = ParticipantViewState("2", "Participant 2",
+                videoTrack = VideoTrackViewState(videoTrack))
+        renderHintController.update(thumbnail, videoTrack, 100, 100)
+        delayScheduler.advanceBy(300)
+
+        speakerPolicy.updateTrackPriorities(listOf(participant.copy(isVideoHidden = true)))
+        renderHintController.update(thumbnail, null, 100, 100)
+        delayScheduler.advanceBy(300)
+
+        assertThat(videoTrack.priority, equalTo(LOW))
+    }
+
+    @Test
+    fun `a hint should only apply to a track lowered by the speaker policy once it is restored`() {
+        val speakerPolicy = SpeakerRecencyPolicy(maxVideoTracks = 1)
+        val videoTrack = testRemoteVideoTrack()
+        val participant = ParticipantViewState("2", "Participant 2",
+                videoTrack = VideoTrackViewState(videoTrack))
+        speakerPolicy.updateTrackPriorities(listOf(participant.copy(isVideoHidden = true)))
+
+        renderHintController.update(thumbnail, videoTrack, 100, 100)
+        delayScheduler.advanceBy(300)
+        renderHintController.update(thumbnail, null, 100, 100)
+        delayScheduler.advanceBy(300)
+
+        assertThat(videoTrack.priority, equalTo(LOW))
+
+        speakerPolicy.updateTrackPriorities(listOf(participant))
+        assertThat(videoTrack.priority, `is`(nullValue()))
+        renderHintController.update(thumbnail, videoTrack, 100, 100)
+        delayScheduler.advanceBy(300)
+
+        assertThat(videoTrack.priority, equalTo(LOW))
+    }
+}
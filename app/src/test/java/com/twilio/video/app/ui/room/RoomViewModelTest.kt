@@ -5,6 +5,8 @@ import androidx.arch.core.executor.testing.InstantTaskExecutorRule
 import com.nhaarman.mockitokotlin2.mock
 import com.nhaarman.mockitokotlin2.verify
 import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_UNKNOWN
+import com.twilio.video.RemoteParticipant
 import com.twilio.video.RemoteVideoTrack
 import com.twilio.video.app.BaseUnitTest
 import com.twilio.video.app.participant.ParticipantManager
@@ -16,6 +18,7 @@ import com.twilio.video.app.ui.room.RoomEvent.ConnectFailure
 import com.twilio.video.app.ui.room.RoomEvent.MaxParticipantFailure
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStopped
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantConnected
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.TrackSwitchOff
 import com.twilio.video.app.ui.room.RoomViewConfiguration.Lobby
 import com.twilio.video.app.ui.room.RoomViewEffect.Disconnected
@@ -25,6 +28,7 @@ import com.twilio.video.app.ui.room.RoomViewEffect.ShowMaxParticipantFailureDial
 import com.twilio.video.app.ui.room.RoomViewEvent.Connect
 import com.twilio.video.app.ui.room.RoomViewEvent.OnResume
 import com.twilio.video.app.util.PermissionUtil
+import com.twilio.video.app.util.TestFrameClock
 import io.uniflow.android.test.TestViewObserver
 import io.uniflow.android.test.createTestObserver
 import io.uniflow.test.rule.TestDispatchersRule
@@ -59,6 +63,7 @@ class RoomViewModelTest : BaseUnitTest() {
         addParticipant(participantViewState)
     }
     private val permissionUtil = mock<PermissionUtil>()
+    private val frameClock = TestFrameClock()
     private lateinit var testObserver: TestViewObserver
     private lateinit var viewModel: RoomViewModel
     private val localParticipantViewState = ParticipantViewState(isLocalParticipant = true)
@@ -70,7 +75,8 @@ class RoomViewModelTest : BaseUnitTest() {
                 roomManager,
                 mock(),
                 permissionUtil,
-                participantManager)
+                participantManager,
+                frameClock = frameClock)
         testObserver = viewModel.createTestObserver()
     }
 
@@ -121,7 +127,8 @@ class RoomViewModelTest : BaseUnitTest() {
                 mock(),
                 permissionUtil,
                 participantManager,
-                initialViewState = initialRoomViewState.copy(isCameraEnabled = true))
+                initialViewState = initialRoomViewState.copy(isCameraEnabled = true),
+                frameClock = frameClock)
         whenever(permissionUtil.isPermissionGranted(Manifest.permission.CAMERA))
                 .thenReturn(false)
         val expectedViewState = initialRoomViewState.copy(isCameraEnabled = false)
@@ -151,7 +158,8 @@ class RoomViewModelTest : BaseUnitTest() {
                 mock(),
                 permissionUtil,
                 participantManager,
-                initialViewState = initialRoomViewState.copy(isCameraEnabled = true))
+                initialViewState = initialRoomViewState.copy(isCameraEnabled = true),
+                frameClock = frameClock)
         whenever(permissionUtil.isPermissionGranted(Manifest.permission.RECORD_AUDIO))
                 .thenReturn(false)
         val expectedViewState = initialRoomViewState.copy(isMicEnabled = false)
@@ -231,6 +239,30 @@ class RoomViewModelTest : BaseUnitTest() {
                         isRecording = false))
     }
 
+    @Test
+    fun `A burst of participant events within one frame should emit a single view state`() {
+        frameClock.isPaused = true
+
+        repeat(30) { index ->
+            val participant = mock<RemoteParticipant> {
+                whenever(mock.sid).thenReturn("sid-$index")
+                whenever(mock.identity).thenReturn("Participant $index")
+                whenever(mock.networkQualityLevel).thenReturn(NETWORK_QUALITY_LEVEL_UNKNOWN)
+            }
+            roomManager.sendRoomEvent(RemoteParticipantConnected(participant))
+        }
+        testObserver.verifySequence(initialRoomViewState)
+
+        frameClock.doFrame()
+
+        assertThat(participantManager.participantThumbnails.size, equalTo(32))
+        testObserver.verifySequence(
+                initialRoomViewState,
+                initialRoomViewState.copy(
+                        participantThumbnails = participantManager.participantThumbnails,
+                        primaryParticipant = participantManager.primaryParticipant))
+    }
+
     private fun connect() =
         viewModel.processInput(Connect("Test", "Test Room"))
 }
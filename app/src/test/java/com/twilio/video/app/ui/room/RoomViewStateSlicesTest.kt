@@ -0,0 +1,102 @@
+package com.twilio.video.app.ui.room
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.MutableLiveData
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.participant.ParticipantThumbnailSnapshot
+import com.twilio.video.app.participant.ParticipantViewState
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+
+class RoomViewStateSlicesTest : BaseUnitTest() {
+
+    @get:Rule
+    val rule = InstantTaskExecutorRule()
+
+    private val localParticipant = ParticipantViewState(isLocalParticipant = true)
+    private val initialViewState = RoomViewState(localParticipant,
+            configuration = RoomViewConfiguration.Connected)
+    private val viewStates = MutableLiveData<RoomViewState>()
+    private val slices = RoomViewStateSlices(viewStates)
+    private val bindCounts = HashMap<String, Int>()
+
+    @Before
+    fun setUp() {
+        countBinds("layout", slices.layout)
+        countBinds("localMedia", slices.localMedia)
+        countBinds("primary", slices.primary)
+        countBinds("thumbnails", slices.thumbnails)
+        countBinds("audioDevice", slices.audioDevice)
+        countBinds("stats", slices.stats)
+        viewStates.value = initialViewState
+    }
+
+    @Test
+    fun `the first view state should bind every slice once`() {
+        assertThat(bindCounts, equalTo(mapOf("layout" to 1, "localMedia" to 1, "primary" to 1,
+                "thumbnails" to 1, "audioDevice" to 1, "stats" to 1)))
+    }
+
+    @Test
+    fun `an equal view state should not rebind any slice`() {
+        viewStates.value = initialViewState.copy()
+
+        assertThat(bindCounts.values.sum(), equalTo(6))
+    }
+
+    @Test
+    fun `a recording change should only rebind the layout`() {
+        viewStates.value = initialViewState.copy(isRecording = true)
+
+        assertThat(bindCounts["layout"], equalTo(2))
+        assertThat(bindCounts.values.sum(), equalTo(7))
+    }
+
+    @Test
+    fun `a muted microphone should only rebind the local media controls`() {
+        viewStates.value = initialViewState.copy(isAudioMuted = true)
+
+        assertThat(bindCounts["localMedia"], equalTo(2))
+        assertThat(bindCounts.values.sum(), equalTo(7))
+    }
+
+    @Test
+    fun `a second participant should rebind the stats and the thumbnails`() {
+        viewStates.value = initialViewState.copy(participantThumbnails = listOf(localParticipant,
+                ParticipantViewState("2", "Participant 2")))
+
+        assertThat(bindCounts["stats"], equalTo(2))
+        assertThat(bindCounts["thumbnails"], equalTo(2))
+        assertThat(bindCounts.values.sum(), equalTo(8))
+    }
+
+    @Test
+    fun `a new thumbnail snapshot should rebind the thumbnails even if the participants are equal`() {
+        val thumbnails = listOf(localParticipant)
+        viewStates.value = initialViewState.copy(
+                participantThumbnails = ParticipantThumbnailSnapshot(0, 1, emptyList(), thumbnails))
+        viewStates.value = initialViewState.copy(
+                participantThumbnails = ParticipantThumbnailSnapshot(1, 2, emptyList(), thumbnails))
+
+        assertThat(bindCounts["thumbnails"], equalTo(3))
+        assertThat(bindCounts["primary"], equalTo(1))
+        assertThat(bindCounts["stats"], equalTo(1))
+    }
+
+    @Test
+    fun `a configuration change should rebind the slices that depend on it`() {
+        viewStates.value = initialViewState.copy(configuration = RoomViewConfiguration.Lobby)
+
+        assertThat(bindCounts, equalTo(mapOf("layout" to 2, "localMedia" to 1, "primary" to 2,
+                "thumbnails" to 2, "audioDevice" to 1, "stats" to 2)))
+    }
+
+    private fun countBinds(name: String, slice: LiveData<*>) {
+        bindCounts[name] = 0
+        slice.observeForever { bindCounts[name] = bindCounts.getValue(name) + 1 }
+    }
+}
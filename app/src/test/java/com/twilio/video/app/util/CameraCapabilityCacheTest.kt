@@ -0,0 +1,118 @@
+package com.twilio.video.app.util
+
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class CameraCapabilityCacheTest : BaseUnitTest() {
+
+    private val store = FakeCameraCapabilityStore()
+    private val buildVersion = BuildVersion("vendor/device:10/QP1A/1:user/release-keys", 29, "10")
+    private val capabilities = CameraDeviceCapabilities(true, listOf(
+            CameraCapabilities("0", CameraFacing.BACK, true, false,
+                    listOf(CaptureFormat(1920, 1080, 30000), CaptureFormat(1280, 720, 60000))),
+            CameraCapabilities("1", CameraFacing.FRONT, true, false,
+                    listOf(CaptureFormat(1280, 720, 30000))),
+            CameraCapabilities("2", CameraFacing.BACK, true, true, emptyList())))
+    private var queryCount = 0
+
+    @Test
+    fun `capabilities should only be queried once`() {
+        val cache = newCache(buildVersion)
+
+        cache.load()
+        cache.load()
+
+        assertThat(queryCount, equalTo(1))
+    }
+
+    @Test
+    fun `persisted capabilities should be reused by the next launch`() {
+        newCache(buildVersion).load()
+
+        val capabilities = newCache(buildVersion).load()
+
+        assertThat(queryCount, equalTo(1))
+        assertThat(capabilities, equalTo(this.capabilities))
+    }
+
+    @Test
+    fun `an OS update should invalidate the persisted capabilities`() {
+        newCache(buildVersion).load()
+
+        newCache(buildVersion.copy(sdkInt = 30, release = "11")).load()
+
+        assertThat(queryCount, equalTo(2))
+    }
+
+    @Test
+    fun `a new build fingerprint should invalidate the persisted capabilities`() {
+        newCache(buildVersion).load()
+
+        newCache(buildVersion.copy(fingerprint = "vendor/device:10/QP1A/2:user/release-keys")).load()
+
+        assertThat(queryCount, equalTo(2))
+    }
+
+    @Test
+    fun `incomplete capabilities should be queried again`() {
+        val cache = CameraCapabilityCache(store, buildVersion) {
+            queryCount++
+            capabilities.copy(isComplete = false)
+        }
+
+        cache.load()
+        cache.load()
+
+        assertThat(queryCount, equalTo(2))
+        assertThat(store.encodedCapabilities, nullValue())
+    }
+
+    @Test
+    fun `unreadable persisted capabilities should be queried again`() {
+        store.encodedCapabilities = "1\n${buildVersion.key}\n1\n0\tBACK\t1"
+
+        newCache(buildVersion).load()
+
+        assertThat(queryCount, equalTo(1))
+    }
+
+    @Test
+    fun `monochrome cameras should not be used as front or back camera`() {
+        val capabilities = newCache(buildVersion).load()
+
+        assertThat(capabilities.backCameraId, equalTo("0"))
+        assertThat(capabilities.frontCameraId, equalTo("1"))
+        assertThat(capabilities.copy(cameras = capabilities.cameras.drop(1)).backCameraId,
+                nullValue())
+    }
+
+    @Test
+    fun `camera1 device names should survive the encoding`() {
+        val camera1Capabilities = CameraDeviceCapabilities(false, listOf(
+                CameraCapabilities("Camera 1, Facing front, Orientation 270", CameraFacing.FRONT,
+                        true, false, listOf(CaptureFormat(640, 480, 30000)))))
+
+        val decoded = decodeCameraDeviceCapabilities(camera1Capabilities.encode("key"), "key")
+
+        assertThat(decoded, equalTo(camera1Capabilities))
+    }
+
+    private fun newCache(buildVersion: BuildVersion) =
+            CameraCapabilityCache(store, buildVersion) {
+                queryCount++
+                capabilities
+            }
+
+    private class FakeCameraCapabilityStore : CameraCapabilityStore {
+        var encodedCapabilities: String? = null
+
+        override fun read() = encodedCapabilities
+
+        override fun write(encodedCapabilities: String) {
+            this.encodedCapabilities = encodedCapabilities
+        }
+    }
+}
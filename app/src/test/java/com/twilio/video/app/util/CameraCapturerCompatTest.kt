@@ -0,0 +1,57 @@
+package com.twilio.video.app.util
+
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.times
+import com.nhaarman.mockitokotlin2.verify
+import com.twilio.video.Camera2Capturer
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class CameraCapturerCompatTest : BaseUnitTest() {
+
+    private val camera2Capturer = mock<Camera2Capturer>()
+    private val cameraCapturer = CameraCapturerCompat("1", "0", camera2Capturer = camera2Capturer)
+
+    @Test
+    fun `a paused capture should resume with the last capture format`() {
+        cameraCapturer.startCapture(1280, 720, 30)
+
+        cameraCapturer.pauseCapture()
+        val isResumed = cameraCapturer.resumeCapture()
+
+        assertThat(isResumed, equalTo(true))
+        verify(camera2Capturer).stopCapture()
+        verify(camera2Capturer, times(2)).startCapture(1280, 720, 30)
+        assertThat(cameraCapturer.isCapturing, equalTo(true))
+    }
+
+    @Test
+    fun `a capture that was never started should not be resumed`() {
+        cameraCapturer.pauseCapture()
+
+        assertThat(cameraCapturer.resumeCapture(), equalTo(false))
+        verify(camera2Capturer, never()).stopCapture()
+    }
+
+    @Test
+    fun `a capture that was stopped should not be resumed`() {
+        cameraCapturer.startCapture(640, 480, 30)
+        cameraCapturer.stopCapture()
+
+        assertThat(cameraCapturer.resumeCapture(), equalTo(false))
+    }
+
+    @Test
+    fun `stopping a paused capture should not stop the camera again`() {
+        cameraCapturer.startCapture(640, 480, 30)
+        cameraCapturer.pauseCapture()
+
+        cameraCapturer.stopCapture()
+
+        verify(camera2Capturer, times(1)).stopCapture()
+        assertThat(cameraCapturer.resumeCapture(), equalTo(false))
+    }
+}
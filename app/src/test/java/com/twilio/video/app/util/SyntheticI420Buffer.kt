@@ -0,0 +1,70 @@
+package com.twilio.video.app.util
+
+import java.nio.ByteBuffer
+import tvi.webrtc.VideoFrame
+
+/*
+ * I420 buffer backed by heap byte buffers with a uniform luma, so that frames can be analyzed
+ * without the native WebRTC library. Luma rows are padded to exercise strides.
+ */
+class SyntheticI420Buffer(
+    private val width: Int,
+    private val height: Int,
+    luma: Int
+) : VideoFrame.I420Buffer {
+
+    private val strideY = width + 8
+    private val chromaWidth = (width + 1) / 2
+    private val chromaHeight = (height + 1) / 2
+    private val dataY = ByteBuffer.allocate(strideY * height)
+    private val dataU = ByteBuffer.allocate(chromaWidth * chromaHeight)
+    private val dataV = ByteBuffer.allocate(chromaWidth * chromaHeight)
+
+    var refCount = 1
+        private set
+
+    init {
+        fill(0, 0, width, height, luma)
+    }
+
+    /*
+     * Sets the luma of a rectangle, e.g. to draw a changed region.
+     */
+    fun fill(left: Int, top: Int, right: Int, bottom: Int, luma: Int): SyntheticI420Buffer {
+        for (row in top until bottom) {
+            for (column in left until right) dataY.put(row * strideY + column, luma.toByte())
+        }
+        return this
+    }
+
+    override fun getDataY(): ByteBuffer = dataY.slice()
+    override fun getDataU(): ByteBuffer = dataU.slice()
+    override fun getDataV(): ByteBuffer = dataV.slice()
+    override fun getStrideY() = strideY
+    override fun getStrideU() = chromaWidth
+    override fun getStrideV() = chromaWidth
+    override fun getWidth() = width
+    override fun getHeight() = height
+
+    override fun toI420(): VideoFrame.I420Buffer {
+        retain()
+        return this
+    }
+
+    override fun retain() {
+        refCount++
+    }
+
+    override fun release() {
+        refCount--
+    }
+
+    override fun cropAndScale(
+        cropX: Int,
+        cropY: Int,
+        cropWidth: Int,
+        cropHeight: Int,
+        scaleWidth: Int,
+        scaleHeight: Int
+    ): VideoFrame.Buffer = throw UnsupportedOperationException("Synthetic buffers are not scaled")
+}
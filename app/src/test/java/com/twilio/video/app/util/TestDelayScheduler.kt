@@ -0,0 +1,29 @@
+package com.twilio.video.app.util
+
+import com.twilio.video.app.ui.room.DelayScheduler
+
+/*
+ * DelayScheduler with a manual clock. Actions run once advanceBy passes their due time.
+ */
+class TestDelayScheduler : DelayScheduler {
+
+    private var nowMillis = 0L
+    private val pendingActions = mutableListOf<Pair<Long, Runnable>>()
+
+    val pendingActionCount: Int get() = pendingActions.size
+
+    override fun postDelayed(action: Runnable, delayMillis: Long) {
+        pendingActions.add(nowMillis + delayMillis to action)
+    }
+
+    override fun removeCallbacks(action: Runnable) {
+        pendingActions.removeAll { it.second === action }
+    }
+
+    fun advanceBy(millis: Long) {
+        nowMillis += millis
+        val dueActions = pendingActions.filter { it.first <= nowMillis }.sortedBy { it.first }
+        pendingActions.removeAll(dueActions)
+        dueActions.forEach { it.second.run() }
+    }
+}
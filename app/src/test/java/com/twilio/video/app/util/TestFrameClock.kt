@@ -0,0 +1,23 @@
+package com.twilio.video.app.util
+
+import com.twilio.video.app.ui.room.FrameClock
+
+/*
+ * FrameClock that runs frame callbacks immediately unless paused. While paused, callbacks are
+ * queued until doFrame is invoked.
+ */
+class TestFrameClock : FrameClock {
+
+    var isPaused = false
+    private val pendingCallbacks = mutableListOf<() -> Unit>()
+
+    override fun postFrameCallback(callback: () -> Unit) {
+        if (isPaused) pendingCallbacks.add(callback) else callback()
+    }
+
+    fun doFrame() {
+        val callbacks = pendingCallbacks.toList()
+        pendingCallbacks.clear()
+        callbacks.forEach { it() }
+    }
+}
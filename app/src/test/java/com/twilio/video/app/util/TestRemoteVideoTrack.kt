@@ -0,0 +1,19 @@
+package com.twilio.video.app.util
+
+import com.nhaarman.mockitokotlin2.anyOrNull
+import com.nhaarman.mockitokotlin2.doAnswer
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority
+
+/*
+ * Mock track that returns the last priority set, like the SDK does.
+ */
+fun testRemoteVideoTrack(): RemoteVideoTrack {
+    var currentPriority: TrackPriority? = null
+    return mock<RemoteVideoTrack>().apply {
+        whenever(priority).thenAnswer { currentPriority }
+        doAnswer { currentPriority = it.getArgument(0) }.whenever(this).priority = anyOrNull()
+    }
+}
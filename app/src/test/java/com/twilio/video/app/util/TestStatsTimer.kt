@@ -0,0 +1,40 @@
+package com.twilio.video.app.util
+
+import com.twilio.video.app.sdk.StatsTimer
+
+/*
+ * StatsTimer with a manual clock. Ticks run once advanceBy passes their due time and are dropped
+ * when the timer stops.
+ */
+class TestStatsTimer : StatsTimer {
+    private var time = 0L
+    private val actions = mutableListOf<Pair<Long, () -> Unit>>()
+    var isStarted = false
+        private set
+
+    override fun now() = time
+
+    override fun start() {
+        isStarted = true
+    }
+
+    override fun postDelayed(delayMillis: Long, action: () -> Unit) {
+        if (isStarted) actions.add(time + delayMillis to action)
+    }
+
+    override fun stop() {
+        isStarted = false
+        actions.clear()
+    }
+
+    fun advanceBy(millis: Long) {
+        val targetTime = time + millis
+        while (true) {
+            val next = actions.filter { it.first <= targetTime }.minByOrNull { it.first } ?: break
+            actions.remove(next)
+            time = next.first
+            next.second()
+        }
+        time = targetTime
+    }
+}